@@ -0,0 +1,18 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * What a successful {@code NPM_BUILD} left in the workspace, for the image build to package.
+ */
+@Value
+public class BuildOutput {
+    /** Commit the build ran on. */
+    String commitHash;
+    /** Top-level workspace entries the build created or rewrote, e.g. {@code dist}. */
+    List<String> paths;
+    /** Whether a workspace file outside {@link #paths} was modified after the build, e.g. by a later step. */
+    boolean sourcesModified;
+}
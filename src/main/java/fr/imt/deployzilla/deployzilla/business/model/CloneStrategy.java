@@ -0,0 +1,16 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+/**
+ * How much of a repository's history and content the {@code CLONE} step downloads.
+ */
+public enum CloneStrategy {
+
+    /** Only the commit being built ({@code --depth 1}). */
+    SHALLOW,
+
+    /** All commits and trees, file contents only for the checked-out commit ({@code --filter=blob:none}). */
+    BLOBLESS,
+
+    /** All commits, trees and contents only for the checked-out commit ({@code --filter=tree:0}). */
+    TREELESS
+}
@@ -0,0 +1,16 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+/**
+ * What the {@code IMAGE_BUILD} step puts in the application image.
+ */
+public enum ImageBuildMode {
+
+    /** Install all dependencies and run the build script again inside the image build. */
+    REBUILD,
+
+    /**
+     * Package the output {@code NPM_BUILD} produced in the workspace with production dependencies only;
+     * falls back to {@link #REBUILD} when that output is missing or from another commit.
+     */
+    PREBUILT
+}
@@ -0,0 +1,20 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobProgress {
+    private String jobId;
+    private String jobType;
+    private String status;
+    /** Epoch milliseconds, {@code null} until the job starts. */
+    private Long startedAt;
+    /** Epoch milliseconds, {@code null} until the job ends. */
+    private Long endedAt;
+}
@@ -2,20 +2,35 @@ package fr.imt.deployzilla.deployzilla.business.model;
 
 import lombok.Getter;
 
+import java.util.Arrays;
+import java.util.Optional;
+
 @Getter
 public enum JobType {
-    CLONE("CLONE"),
-    NPM_INSTALL("NPM-INSTALL"),
-    NPM_LINT("NPM-LINT"),
-    NPM_TEST("NPM-TEST"),
-    SONAR("SONAR"),
-    NPM_BUILD("NPM-BUILD"),
-    IMAGE_BUILD("IMAGE-BUILD"),
-    APP_RUN("APP-RUN");
+    CLONE("CLONE", "git-clone"),
+    NPM_INSTALL("NPM-INSTALL", "npm-install"),
+    NPM_LINT("NPM-LINT", "eslint"),
+    NPM_TEST("NPM-TEST", "unit-test"),
+    SONAR("SONAR", "sonar"),
+    NPM_BUILD("NPM-BUILD", "npm-build"),
+    IMAGE_BUILD("IMAGE-BUILD", "image-build"),
+    APP_RUN("APP-RUN", "app-run");
 
     private final String commandName;
 
-    JobType(String commandName) {
+    /**
+     * Identifier of the step in container labels and process logs.
+     */
+    private final String stepId;
+
+    JobType(String commandName, String stepId) {
         this.commandName = commandName;
+        this.stepId = stepId;
+    }
+
+    public static Optional<JobType> fromStepId(String stepId) {
+        return Arrays.stream(values())
+                .filter(jobType -> jobType.stepId.equals(stepId))
+                .findFirst();
     }
 }
@@ -0,0 +1,37 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * One process log line with its origin and ordering information.
+ */
+@Value
+@Builder
+public class LogRecord {
+
+    String pipelineId;
+
+    /**
+     * Step that produced the line, or {@code null} for pipeline-level messages.
+     */
+    String stepId;
+
+    LogStream stream;
+
+    /**
+     * Per-pipeline sequence number, increasing by one per line, so clients can detect gaps and reorder.
+     * Negative for synthetic records such as "lines skipped" markers.
+     */
+    long sequence;
+
+    /**
+     * Container timestamp of the line when Docker provides one, otherwise the time it was published.
+     */
+    Instant timestamp;
+
+    String payload;
+
+}
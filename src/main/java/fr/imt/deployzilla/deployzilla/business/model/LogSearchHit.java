@@ -0,0 +1,16 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Value;
+
+@Value
+public class LogSearchHit {
+
+    String pipelineId;
+
+    String stepId;
+
+    long timestamp;
+
+    String line;
+
+}
@@ -0,0 +1,30 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+@Builder
+public class LogSearchQuery {
+
+    String projectId;
+
+    /**
+     * Text that must appear in the line (case-insensitive); its words are looked up in the index.
+     */
+    String text;
+
+    /**
+     * Restricts hits to the logs of one step, or all steps when {@code null}.
+     */
+    JobType jobType;
+
+    Instant from;
+
+    Instant to;
+
+    int limit;
+
+}
@@ -0,0 +1,10 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+/**
+ * Origin of a log line: a container output stream, or Deployzilla itself.
+ */
+public enum LogStream {
+    STDOUT,
+    STDERR,
+    SYSTEM
+}
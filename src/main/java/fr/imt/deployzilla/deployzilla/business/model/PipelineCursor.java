@@ -0,0 +1,15 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keyset position in a pipeline listing: the sort value and ID of the last pipeline already returned.
+ * The sort value is null past the pipelines that have one.
+ */
+@Value
+public class PipelineCursor {
+    LocalDateTime sortValue;
+    String id;
+}
@@ -0,0 +1,12 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class PipelinePage {
+    List<PipelineSummary> pipelines;
+    /** Opaque cursor of the next page, {@code null} on the last page. */
+    String nextCursor;
+}
@@ -0,0 +1,22 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Latest known state of a pipeline and of all its jobs, kept in memory while the pipeline is active.
+ */
+@Value
+@Builder
+public class PipelineState {
+    String pipelineId;
+    String status;
+    String currentStep;
+    List<JobProgress> jobs;
+    /** Increases with every change; derived from the update time so it also increases across restarts. */
+    long version;
+    /** Epoch milliseconds of the last change. */
+    long updatedAt;
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -13,4 +15,8 @@ public class PipelineStatusUpdate {
     private String pipelineId;
     private String status;
     private String currentStep;
+    /** Jobs whose state changed, latest state per job. */
+    private List<JobProgress> jobs;
+    /** Epoch milliseconds at which the update was produced. */
+    private long timestamp;
 }
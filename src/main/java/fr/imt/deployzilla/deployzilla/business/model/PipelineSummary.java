@@ -0,0 +1,20 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pipeline without its jobs, as listed in the pipeline history.
+ */
+@Value
+public class PipelineSummary {
+    String id;
+    String projectId;
+    String status;
+    String commitHash;
+    String author;
+    String trigger;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+}
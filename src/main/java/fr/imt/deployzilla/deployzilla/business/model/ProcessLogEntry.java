@@ -0,0 +1,35 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Value;
+
+@Value
+public class ProcessLogEntry {
+
+    /**
+     * Sequence identifier of the entry, usable as a resume point.
+     */
+    String id;
+
+    /**
+     * Time of the line (epoch milliseconds), as on the published record.
+     */
+    long timestamp;
+
+    /**
+     * Step that produced the line, or {@code null} for pipeline-level messages.
+     */
+    String stepId;
+
+    /**
+     * {@code null} for entries written before the origin was recorded.
+     */
+    LogStream stream;
+
+    /**
+     * Per-pipeline sequence number of the record, or {@code null} for entries written before it was recorded.
+     */
+    Long sequence;
+
+    String message;
+
+}
@@ -0,0 +1,29 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the {@code CLONE} step found in the checked-out repository, for later steps and caches to key off.
+ */
+@Value
+public class RepositoryMetadata {
+    String commitHash;
+    String treeHash;
+    /** {@code npm}, {@code yarn} or {@code pnpm}, detected the same way as by the Node steps. */
+    String packageManager;
+    /**
+     * Git blob hash of each lockfile present, by the package manager owning it ({@code npm} for
+     * {@code package-lock.json}). Not by file name, as MongoDB map keys cannot contain dots.
+     */
+    Map<String, String> lockfileHashes;
+    /** Commit of the project's last successful pipeline, or {@code null} if unknown. */
+    String baseCommitHash;
+    /**
+     * Files changed since {@link #baseCommitHash}, deleted ones included and renamed ones under both paths;
+     * {@code null} when there is no base to compare with.
+     */
+    List<String> changedFiles;
+}
@@ -0,0 +1,18 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Value;
+
+/**
+ * Duration percentiles of one job type over a time window, in milliseconds.
+ */
+@Value
+public class StepDurationStats {
+    /** {@code null} when aggregated over all projects. */
+    String projectId;
+    JobType jobType;
+    long count;
+    long p50;
+    long p95;
+    long p99;
+    long max;
+}
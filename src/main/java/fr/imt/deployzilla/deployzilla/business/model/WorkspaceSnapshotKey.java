@@ -0,0 +1,17 @@
+package fr.imt.deployzilla.deployzilla.business.model;
+
+import lombok.Value;
+
+/**
+ * Identifies an installed {@code node_modules}: the same lockfile installed by the same image on the same
+ * platform always gives the same tree, whichever project it belongs to.
+ */
+@Value
+public class WorkspaceSnapshotKey {
+    /** Git blob hash of the lockfile the dependencies were installed from. */
+    String lockfileHash;
+    /** ID of the install image; native modules are built against its Node version and libc. */
+    String imageId;
+    /** {@code os/architecture} of the install image. */
+    String platform;
+}
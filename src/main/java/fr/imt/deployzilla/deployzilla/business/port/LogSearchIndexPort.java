@@ -0,0 +1,19 @@
+package fr.imt.deployzilla.deployzilla.business.port;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogSearchHit;
+import fr.imt.deployzilla.deployzilla.business.model.LogSearchQuery;
+
+import java.util.List;
+
+public interface LogSearchIndexPort {
+
+    /**
+     * Add a published log line of a pipeline step to its project's search index.
+     */
+    void index(String pipelineId, String stepId, String line);
+
+    /**
+     * Return matching lines, oldest first.
+     */
+    List<LogSearchHit> search(LogSearchQuery query);
+}
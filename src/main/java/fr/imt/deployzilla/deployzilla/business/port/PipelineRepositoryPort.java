@@ -1,11 +1,58 @@
 package fr.imt.deployzilla.deployzilla.business.port;
 
+import fr.imt.deployzilla.deployzilla.business.model.PipelineCursor;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineSummary;
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Job;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface PipelineRepositoryPort {
     Pipeline save(Pipeline pipeline);
     Optional<Pipeline> findById(String pipelineId);
-    void updateCommitHash(String pipelineId, String commitHash);
+
+    /**
+     * Record what was checked out by the clone step; the commit hash becomes the pipeline's.
+     */
+    void updateRepositoryMetadata(String pipelineId, RepositoryMetadata metadata);
+
+    /**
+     * Commit hash of the project's most recent successful pipeline.
+     */
+    Optional<String> findLastSuccessfulCommitHash(String projectId);
+
+    /**
+     * Persist a pipeline status change. Written behind: coalesced with other changes and flushed shortly after.
+     */
+    void updateStatus(String pipelineId, String status);
+
+    /**
+     * Persist the status and start/end times of one job of the pipeline. Written behind like {@link #updateStatus}.
+     */
+    void updateJob(String pipelineId, Job job);
+
+    /**
+     * Pipelines of a project, newest first by {@code createdAt}, starting after {@code after} (or from the newest).
+     */
+    List<PipelineSummary> findByProject(String projectId, PipelineCursor after, int limit);
+
+    /**
+     * Pipelines in a status, most recently updated first, starting after {@code after} (or from the most recent).
+     */
+    List<PipelineSummary> findByStatus(String status, PipelineCursor after, int limit);
+
+    /**
+     * Finished pipelines last updated after {@code since}, with only their project ID and jobs loaded.
+     */
+    List<Pipeline> findFinishedSince(LocalDateTime since);
+
+    /**
+     * Move up to {@code limit} pipelines that finished before {@code cutoff} to the archive tier.
+     *
+     * @return how many were archived
+     */
+    int archiveFinishedBefore(LocalDateTime cutoff, int limit);
 }
@@ -0,0 +1,18 @@
+package fr.imt.deployzilla.deployzilla.business.port;
+
+import fr.imt.deployzilla.deployzilla.business.model.PipelineState;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineStatusUpdate;
+
+import java.util.Optional;
+
+public interface PipelineStatePort {
+
+    /**
+     * Merge a status update into the pipeline's snapshot.
+     *
+     * @return the snapshot after the update
+     */
+    PipelineState apply(PipelineStatusUpdate update);
+
+    Optional<PipelineState> find(String pipelineId);
+}
@@ -1,5 +1,7 @@
 package fr.imt.deployzilla.deployzilla.business.port;
 
+import fr.imt.deployzilla.deployzilla.business.model.PipelineStatusUpdate;
+
 public interface PipelineStatusPublisherPort {
-    void publish(String pipelineId, String status, String currentStep);
+    void publish(PipelineStatusUpdate update);
 }
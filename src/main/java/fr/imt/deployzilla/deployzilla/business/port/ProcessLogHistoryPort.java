@@ -0,0 +1,9 @@
+package fr.imt.deployzilla.deployzilla.business.port;
+
+import fr.imt.deployzilla.deployzilla.business.model.ProcessLogEntry;
+
+import java.util.List;
+
+public interface ProcessLogHistoryPort {
+    List<ProcessLogEntry> readAfter(String pipelineId, String lastSeenId, int limit);
+}
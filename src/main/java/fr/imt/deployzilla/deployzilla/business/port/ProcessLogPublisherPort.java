@@ -1,5 +1,7 @@
 package fr.imt.deployzilla.deployzilla.business.port;
 
+import fr.imt.deployzilla.deployzilla.business.model.LogRecord;
+
 public interface ProcessLogPublisherPort {
-    void publish(String pipelineId, String message);
+    void publish(LogRecord record);
 }
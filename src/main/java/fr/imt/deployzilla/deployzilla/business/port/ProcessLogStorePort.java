@@ -0,0 +1,11 @@
+package fr.imt.deployzilla.deployzilla.business.port;
+
+import java.util.List;
+
+public interface ProcessLogStorePort {
+    void append(String pipelineId, String stepId, String line);
+    void seal(String pipelineId, String stepId);
+    /** Seal every step of the pipeline still open, including the ones no step service seals. */
+    void sealAll(String pipelineId);
+    List<String> read(String pipelineId, String stepId, long from, int limit);
+}
@@ -0,0 +1,21 @@
+package fr.imt.deployzilla.deployzilla.business.port;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.business.model.StepDurationStats;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public interface StepDurationStatsPort {
+
+    void record(String projectId, JobType jobType, Duration duration, Instant endedAt);
+
+    /**
+     * Percentiles of the steps that ended within {@code window}, one entry per job type.
+     *
+     * @param projectId {@code null} to aggregate over all projects
+     * @param jobType   {@code null} for every job type
+     */
+    List<StepDurationStats> query(String projectId, JobType jobType, Duration window);
+}
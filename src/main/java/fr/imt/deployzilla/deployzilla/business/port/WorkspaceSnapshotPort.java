@@ -0,0 +1,20 @@
+package fr.imt.deployzilla.deployzilla.business.port;
+
+import fr.imt.deployzilla.deployzilla.business.model.WorkspaceSnapshotKey;
+
+public interface WorkspaceSnapshotPort {
+
+    /**
+     * Give the pipeline workspace a copy-on-write view of the snapshot's {@code node_modules}.
+     *
+     * @return {@code false} if there is no snapshot for the key, in which case nothing was changed
+     */
+    boolean restore(WorkspaceSnapshotKey key, String pipelineId, String projectDir);
+
+    /**
+     * Keep the workspace's freshly installed {@code node_modules} as the read-only snapshot for the key,
+     * unless there already is one. Called right after the install, before any later step writes to
+     * {@code node_modules}; the pipeline waits for it.
+     */
+    void capture(WorkspaceSnapshotKey key, String pipelineId, String projectDir);
+}
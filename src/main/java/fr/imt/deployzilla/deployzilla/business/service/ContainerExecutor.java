@@ -3,11 +3,13 @@ package fr.imt.deployzilla.deployzilla.business.service;
 import com.github.dockerjava.api.DockerClient;
 
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.InspectImageResponse;
 import com.github.dockerjava.api.command.WaitContainerResultCallback;
 import com.github.dockerjava.api.model.*;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientBuilder;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
 
 import fr.imt.deployzilla.deployzilla.exception.ContainerExecutionException;
@@ -177,12 +179,37 @@ public class ContainerExecutor {
             List<String> volumes,
             Map<String, String> envVars,
             List<String> command) {
+        return runStep(pipelineId, stepId, image, volumes, envVars, command, true);
+    }
+
+    /**
+     * Same as {@link #executeStep(String, String, String, List, Map)}, but leaves the step's logs open,
+     * for steps made of several containers: the caller seals them once all are done.
+     */
+    @Async
+    public CompletableFuture<ProcessResult> executeStepPart(
+            String pipelineId,
+            String stepId,
+            String image,
+            List<String> volumes,
+            Map<String, String> envVars) {
+        return runStep(pipelineId, stepId, image, volumes, envVars, null, false);
+    }
+
+    private CompletableFuture<ProcessResult> runStep(
+            String pipelineId,
+            String stepId,
+            String image,
+            List<String> volumes,
+            Map<String, String> envVars,
+            List<String> command,
+            boolean sealLogs) {
 
         String containerId = null;
 
         try {
-            containerLogStreamer.publishLog(pipelineId, String.format("--- Step [%s] Starting (Local) ---", stepId));
-            containerLogStreamer.publishLog(pipelineId, String.format("Image: %s", image));
+            containerLogStreamer.publishLog(pipelineId, stepId, String.format("--- Step [%s] Starting (Local) ---", stepId));
+            containerLogStreamer.publishLog(pipelineId, stepId, String.format("Image: %s", image));
 
             // Pull image from registry if not present (LOCALLY)
             self.pullImageIfNeeded(localDockerClient, pipelineId, image);
@@ -231,30 +258,34 @@ public class ContainerExecutor {
             CreateContainerResponse container = containerCmd.exec();
 
             containerId = container.getId();
-            containerLogStreamer.publishLog(pipelineId, String.format("Container created: %s", containerId.substring(0, 12)));
+            containerLogStreamer.publishLog(pipelineId, stepId, String.format("Container created: %s", containerId.substring(0, 12)));
 
             // Start container
             localDockerClient.startContainerCmd(containerId).exec();
 
             // Stream logs
             StringBuilder capturedOutput = new StringBuilder();
-            containerLogStreamer.streamLogs(localDockerClient, pipelineId, containerId, capturedOutput);
+            containerLogStreamer.streamLogs(localDockerClient, pipelineId, stepId, containerId, capturedOutput);
 
             // Wait for completion
             Integer exitCode = localDockerClient.waitContainerCmd(containerId)
                     .exec(new WaitContainerResultCallback())
                     .awaitStatusCode(timeoutSeconds, TimeUnit.SECONDS);
 
-            containerLogStreamer.publishLog(pipelineId, String.format("--- Step [%s] Finished (Exit: %d) ---", stepId, exitCode));
+            containerLogStreamer.publishLog(pipelineId, stepId, String.format("--- Step [%s] Finished (Exit: %d) ---", stepId, exitCode));
 
             return CompletableFuture.completedFuture(new ProcessResult(exitCode, capturedOutput.toString()));
 
         } catch (Exception e) {
             log.error("Container execution failed for step {}", stepId, e);
-            containerLogStreamer.publishLog(pipelineId, String.format("ERROR: %s", e.getMessage()));
+            containerLogStreamer.publishLog(pipelineId, stepId, String.format("ERROR: %s", e.getMessage()));
             return CompletableFuture.completedFuture(new ProcessResult(1, "ERROR"));
 
         } finally {
+            if (sealLogs) {
+                containerLogStreamer.sealLogs(pipelineId, stepId);
+            }
+
             // Cleanup container
             if (containerId != null) {
                 try {
@@ -357,6 +388,25 @@ public class ContainerExecutor {
         throw new ImagePullException(image, e);
     }
 
+    /**
+     * Identity of an image available on the local daemon: its ID (digest of its configuration) and platform.
+     *
+     * @return {@code null} if the image has not been pulled yet
+     */
+    public ImageIdentity inspectLocalImage(String image) {
+        String imageToCheck = image.contains(":") ? image : image + ":latest";
+        try {
+            InspectImageResponse response = localDockerClient.inspectImageCmd(imageToCheck).exec();
+            return new ImageIdentity(response.getId(), response.getOs() + "/" + response.getArch());
+        } catch (DockerException e) {
+            log.debug("Image {} not available locally: {}", imageToCheck, e.getMessage());
+            return null;
+        }
+    }
+
+    public record ImageIdentity(String id, String platform) {
+    }
+
     /**
      * List all containers managed by Deployzilla.
      */
@@ -412,7 +462,7 @@ public class ContainerExecutor {
             Map<String, String> labels) {
         String containerId;
         try {
-            containerLogStreamer.publishLog(pipelineId, "Starting application container: " + imageName);
+            containerLogStreamer.publishLog(pipelineId, JobType.APP_RUN.getStepId(), "Starting application container: " + imageName);
 
             // Pull image on the remote server (using remote dockerClient)
             self.pullImageIfNeeded(dockerClient, pipelineId, imageName);
@@ -446,16 +496,16 @@ public class ContainerExecutor {
             
             log.info("Application container started: " + containerId.substring(0, 12));
 
-            containerLogStreamer.publishLog(pipelineId, "Application container started: " + containerId.substring(0, 12));
+            containerLogStreamer.publishLog(pipelineId, JobType.APP_RUN.getStepId(), "Application container started: " + containerId.substring(0, 12));
             
             // Monitor logs in background
-            containerLogStreamer.monitorAsync(dockerClient, pipelineId, containerId);
+            containerLogStreamer.monitorAsync(dockerClient, pipelineId, JobType.APP_RUN.getStepId(), containerId);
             
             return containerId;
 
         } catch (Exception e) {
             log.error("Failed to start application container", e);
-            containerLogStreamer.publishLog(pipelineId, "Failed to start container: " + e.getMessage());
+            containerLogStreamer.publishLog(pipelineId, JobType.APP_RUN.getStepId(), "Failed to start container: " + e.getMessage());
             throw new ContainerExecutionException(imageName, "start", e);
         }
     }
@@ -1,8 +1,14 @@
 package fr.imt.deployzilla.deployzilla.business.service;
 
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
 import fr.imt.deployzilla.deployzilla.business.port.ProjectRepositoryPort;
+import fr.imt.deployzilla.deployzilla.exception.PipelineNotFoundException;
 import fr.imt.deployzilla.deployzilla.exception.ProjectNotFoundException;
+import fr.imt.deployzilla.deployzilla.business.model.BuildOutput;
+import fr.imt.deployzilla.deployzilla.business.model.ImageBuildMode;
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
 import fr.imt.deployzilla.deployzilla.business.service.jobs.NpmInstallService;
 import fr.imt.deployzilla.deployzilla.business.service.jobs.UnitTestService;
 import fr.imt.deployzilla.deployzilla.business.service.jobs.EslintService;
@@ -11,6 +17,7 @@ import fr.imt.deployzilla.deployzilla.business.service.jobs.NpmBuildService;
 import fr.imt.deployzilla.deployzilla.business.service.jobs.ImageBuildService;
 import fr.imt.deployzilla.deployzilla.business.service.jobs.AppRunService;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.EnvVar;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Project;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +35,7 @@ import java.util.stream.Collectors;
 public class JobService {
 
     private final ProjectRepositoryPort projectRepositoryPort;
+    private final PipelineRepositoryPort pipelineRepositoryPort;
 
     private final GitCloneService gitCloneService;
     private final EslintService eslintService;
@@ -45,46 +53,56 @@ public class JobService {
         Project project = projectRepositoryPort.findById(projectId)
                 .orElseThrow(() -> new ProjectNotFoundException(projectId));
 
+        // Build the commit the pipeline was created for, when there is one
+        String commitHash = pipelineRepositoryPort.findById(pipelineId)
+                .map(Pipeline::getCommitHash)
+                .orElse(null);
+        String baseCommitHash = pipelineRepositoryPort.findLastSuccessfulCommitHash(projectId).orElse(null);
+
         ProcessResult cloneResult = executeCompletableFuture(
-                gitCloneService.execute(pipelineId, project, projectDir),
+                gitCloneService.execute(pipelineId, project, projectDir, commitHash, baseCommitHash),
                 "git clone"
         );
-
-        try {
-            if (cloneResult.getExitCode() == 0) {
-                // If clone successful, try to retrieve commit hash
-                String hash = gitCloneService.retrieveCommitHash(pipelineId, projectDir).get();
-                if (hash != null && !hash.isEmpty()) {
-                    // Return the hash as output
-                    return new ProcessResult(0, hash);
-                }
-            }
+        if (cloneResult.getExitCode() != 0) {
             return cloneResult;
-
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Error running step git clone {}", e.getMessage());
-            return new ProcessResult(1, "ERROR");
         }
 
+        RepositoryMetadata metadata = gitCloneService.readMetadata(pipelineId);
+        if (metadata == null) {
+            return cloneResult;
+        }
+        pipelineRepositoryPort.updateRepositoryMetadata(pipelineId, metadata);
+        return new ProcessResult(0, metadata.getCommitHash());
     }
 
     public ProcessResult runNpmInstall(String pipelineId) {
+        String lockfileHash = pipelineRepositoryPort.findById(pipelineId)
+                .map(JobService::lockfileHashOf)
+                .orElse(null);
         return executeCompletableFuture(
-                npmInstallService.execute(pipelineId, projectDir),
+                npmInstallService.execute(pipelineId, projectDir, lockfileHash),
                 "npm install"
         );
     }
 
     public ProcessResult runEslint(String pipelineId) {
+        Pipeline pipeline = pipelineRepositoryPort.findById(pipelineId)
+                .orElseThrow(() -> new PipelineNotFoundException(pipelineId));
+        Project project = projectRepositoryPort.findById(pipeline.getProjectId())
+                .orElseThrow(() -> new ProjectNotFoundException(pipeline.getProjectId()));
         return executeCompletableFuture(
-                eslintService.execute(pipelineId, projectDir),
+                eslintService.execute(pipelineId, projectDir, project, pipeline.getRepository()),
                 "eslint"
         );
     }
 
     public ProcessResult runUnitTests(String pipelineId) {
+        Pipeline pipeline = pipelineRepositoryPort.findById(pipelineId)
+                .orElseThrow(() -> new PipelineNotFoundException(pipelineId));
+        Project project = projectRepositoryPort.findById(pipeline.getProjectId())
+                .orElseThrow(() -> new ProjectNotFoundException(pipeline.getProjectId()));
         return executeCompletableFuture(
-                unitTestService.execute(pipelineId, projectDir),
+                unitTestService.execute(pipelineId, projectDir, project, pipeline.getRepository()),
                 "unit tests");
     }
 
@@ -96,6 +114,13 @@ public class JobService {
         );
     }
 
+    /**
+     * HEAD of the pipeline's workspace as it is now, read from its repository; {@code null} if unreadable.
+     */
+    private String workspaceCommitHash(String pipelineId) {
+        return gitCloneService.readHead(pipelineId, projectDir);
+    }
+
     private ProcessResult executeCompletableFuture(CompletableFuture<ProcessResult> completableFuture, String stepName) {
         try {
             return completableFuture.get();
@@ -107,10 +132,12 @@ public class JobService {
 
     public ProcessResult runNpmBuild(String pipelineId) {
         log.info("Running NPM build for pipeline: {}", pipelineId);
+        String commitHash = workspaceCommitHash(pipelineId);
         try {
             return npmBuildService.execute(
                     pipelineId,
-                    projectDir
+                    projectDir,
+                    commitHash
             ).get();
         } catch (InterruptedException | ExecutionException e) {
             log.error("Error {}", e.getMessage());
@@ -122,12 +149,30 @@ public class JobService {
         log.info("Creating image for pipeline: {}", pipelineId);
         Project project = projectRepositoryPort.findById(projectId)
                 .orElseThrow(() -> new ProjectNotFoundException(projectId));
-        
+        String commitHash = workspaceCommitHash(pipelineId);
+        BuildOutput buildOutput = project.getImageBuildMode() == ImageBuildMode.PREBUILT
+                ? npmBuildService.readOutput(pipelineId, projectDir)
+                : null;
+
+        // The build context is the workspace, so it needs every file, not only the sparse paths
+        if (project.getSparsePaths() != null && !project.getSparsePaths().isEmpty()) {
+            ProcessResult checkoutResult = executeCompletableFuture(
+                    gitCloneService.checkoutFull(pipelineId, project, projectDir, JobType.IMAGE_BUILD.getStepId()),
+                    "full checkout"
+            );
+            if (checkoutResult.getExitCode() != 0) {
+                return checkoutResult;
+            }
+        }
+
         try {
             return imageBuildService.execute(
+                    projectId,
                     pipelineId,
                     projectDir,
-                    project.getRepoUrl()
+                    project.getImageBuildMode(),
+                    commitHash,
+                    buildOutput
             ).get();
         } catch (InterruptedException | ExecutionException e) {
             log.error("Error {}", e.getMessage());
@@ -153,4 +198,14 @@ public class JobService {
         }
     }
 
+    /**
+     * Hash of the lockfile of the detected package manager, which identifies the dependencies to install.
+     */
+    private static String lockfileHashOf(Pipeline pipeline) {
+        RepositoryMetadata metadata = pipeline.getRepository();
+        if (metadata == null || metadata.getLockfileHashes() == null) {
+            return null;
+        }
+        return metadata.getLockfileHashes().get(metadata.getPackageManager());
+    }
 }
@@ -0,0 +1,45 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.business.model.LogSearchHit;
+import fr.imt.deployzilla.deployzilla.business.model.LogSearchQuery;
+import fr.imt.deployzilla.deployzilla.business.port.LogSearchIndexPort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class LogSearchService {
+
+    private final LogSearchIndexPort logSearchIndexPort;
+
+    @Value("${deployzilla.logs.search.max-results:1000}")
+    private int maxResults;
+
+    /**
+     * Search the step logs of every pipeline of a project for lines containing {@code text}, oldest first.
+     */
+    public List<LogSearchHit> search(String projectId, String text, JobType jobType,
+                                     Instant from, Instant to, int limit) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Search text must not be blank");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+
+        LogSearchQuery query = LogSearchQuery.builder()
+                .projectId(projectId)
+                .text(text.strip())
+                .jobType(jobType)
+                .from(from)
+                .to(to)
+                .limit(Math.clamp(limit, 1, maxResults))
+                .build();
+        return logSearchIndexPort.search(query);
+    }
+}
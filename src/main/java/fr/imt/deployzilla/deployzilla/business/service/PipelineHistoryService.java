@@ -0,0 +1,82 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.model.PipelineCursor;
+import fr.imt.deployzilla.deployzilla.business.model.PipelinePage;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineSummary;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset-paginated pipeline listings. Cursors are opaque to clients: the sort value and ID of the
+ * last pipeline returned, so a page costs the same no matter how deep the client has scrolled.
+ * Pipelines without a sort value (written before the field existed) come last, with an empty sort
+ * value in their cursors.
+ */
+@Service
+@RequiredArgsConstructor
+public class PipelineHistoryService {
+
+    private final PipelineRepositoryPort pipelineRepository;
+
+    @Value("${deployzilla.pipelines.history.max-page-size:100}")
+    private int maxPageSize;
+
+    public PipelinePage listProjectPipelines(String projectId, String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, maxPageSize);
+        // One extra row tells whether there is a next page
+        List<PipelineSummary> rows = pipelineRepository.findByProject(projectId, decode(cursor), pageSize + 1);
+        return toPage(rows, pageSize, PipelineSummary::getCreatedAt);
+    }
+
+    public PipelinePage listPipelinesByStatus(String status, String cursor, int limit) {
+        if (status == null || status.isBlank()) {
+            throw new IllegalArgumentException("Status must not be blank");
+        }
+        int pageSize = Math.clamp(limit, 1, maxPageSize);
+        List<PipelineSummary> rows = pipelineRepository.findByStatus(status, decode(cursor), pageSize + 1);
+        return toPage(rows, pageSize, PipelineSummary::getUpdatedAt);
+    }
+
+    private static PipelinePage toPage(List<PipelineSummary> rows, int pageSize,
+                                       Function<PipelineSummary, LocalDateTime> sortValue) {
+        if (rows.size() <= pageSize) {
+            return new PipelinePage(rows, null);
+        }
+        List<PipelineSummary> page = rows.subList(0, pageSize);
+        PipelineSummary last = page.getLast();
+        return new PipelinePage(List.copyOf(page), encode(new PipelineCursor(sortValue.apply(last), last.getId())));
+    }
+
+    private static String encode(PipelineCursor cursor) {
+        String sortValue = cursor.getSortValue() != null ? cursor.getSortValue().toString() : "";
+        String raw = sortValue + "|" + cursor.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static PipelineCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String sortValue = raw.substring(0, separator);
+            String id = raw.substring(separator + 1);
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new PipelineCursor(sortValue.isEmpty() ? null : LocalDateTime.parse(sortValue), id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Moves finished pipelines older than {@code retention.max-age} to the archive tier, keeping the live
+ * collection (and its indexes) small enough to stay in MongoDB's cache. Archived pipelines keep their
+ * summary and per-job outcome and duration, and still appear in listings.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PipelineRetentionService {
+
+    private final PipelineRepositoryPort pipelineRepository;
+
+    @Value("${deployzilla.pipelines.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deployzilla.pipelines.retention.max-age:90d}")
+    private Duration maxAge;
+
+    @Value("${deployzilla.pipelines.retention.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(cron = "${deployzilla.pipelines.retention.cron:0 30 3 * * *}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        int total = 0;
+        try {
+            int archived;
+            do {
+                archived = pipelineRepository.archiveFinishedBefore(cutoff, batchSize);
+                total += archived;
+            } while (archived == batchSize);
+        } catch (Exception e) {
+            log.warn("Pipeline archiving stopped after {} pipelines: {}", total, e.getMessage());
+            return;
+        }
+        if (total > 0) {
+            log.info("Archived {} pipelines finished before {}", total, cutoff);
+        }
+    }
+}
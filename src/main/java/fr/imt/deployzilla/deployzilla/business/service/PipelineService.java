@@ -2,50 +2,86 @@ package fr.imt.deployzilla.deployzilla.business.service;
 
 import fr.imt.deployzilla.deployzilla.business.command.Command;
 import fr.imt.deployzilla.deployzilla.business.command.CommandFactory;
+import fr.imt.deployzilla.deployzilla.business.model.JobProgress;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineStatusUpdate;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineStatusPublisherPort;
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogStorePort;
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.ContainerLogStreamer;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Job;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
-import fr.imt.deployzilla.deployzilla.infrastructure.persistence.repository.PipelineRepository;
-import fr.imt.deployzilla.deployzilla.configuration.RedisConfiguration;
 import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PipelineService {
 
-    private final PipelineRepository pipelineRepository;
+    private static final Pattern FULL_COMMIT_HASH = Pattern.compile("[0-9a-fA-F]{40}|[0-9a-fA-F]{64}");
+
+    private final PipelineRepositoryPort pipelineRepository;
     private final CommandFactory commandFactory;
-    private final StringRedisTemplate redisTemplate;
-    // Inject MongoTemplate for partial updates
-    private final org.springframework.data.mongodb.core.MongoTemplate mongoTemplate;
+    private final PipelineStatusPublisherPort pipelineStatusPublisher;
+    private final PipelineStateService pipelineStateService;
+    private final StepDurationService stepDurationService;
+    private final ProcessLogStorePort processLogStore;
+    private final ContainerLogStreamer containerLogStreamer;
 
     private void publishStatus(String pipelineId, String status, String currentStep) {
-        try {
-            // Simple protocol: pipelineId|status|currentStep
-            String message = String.format("%s|%s|%s", 
-                pipelineId, 
-                status, 
-                currentStep != null ? currentStep : "");
-            redisTemplate.convertAndSend(RedisConfiguration.PIPELINE_STATUS_TOPIC, message);
-        } catch (Exception e) {
-            log.error("Failed to publish pipeline status", e);
-        }
+        publishStatus(pipelineId, status, currentStep, List.of());
+    }
+
+    private void publishStatus(String pipelineId, String status, String currentStep, Job job) {
+        publishStatus(pipelineId, status, currentStep, job != null ? List.of(job) : List.of());
+    }
+
+    private void publishStatus(String pipelineId, String status, String currentStep, List<Job> jobs) {
+        PipelineStatusUpdate update = PipelineStatusUpdate.builder()
+                .pipelineId(pipelineId)
+                .status(status)
+                .currentStep(currentStep)
+                .jobs(jobs.stream().map(PipelineService::toProgress).toList())
+                .timestamp(System.currentTimeMillis())
+                .build();
+        pipelineStateService.record(update);
+        pipelineStatusPublisher.publish(update);
+    }
+
+    private static JobProgress toProgress(Job job) {
+        return JobProgress.builder()
+                .jobId(job.getId())
+                .jobType(job.getJobType().getCommandName())
+                .status(job.getStatus())
+                .startedAt(toEpochMilli(job.getStartTime()))
+                .endedAt(toEpochMilli(job.getEndTime()))
+                .build();
+    }
+
+    private static Long toEpochMilli(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null;
     }
 
     /**
      * Create the pipeline structure
      */
     public Pipeline createPipeline(String projectId, String commitHash, String author, String trigger) {
+        // The clone step fetches this exact object, which only works with a full hash
+        if (commitHash != null && !commitHash.isEmpty() && !FULL_COMMIT_HASH.matcher(commitHash).matches()) {
+            throw new IllegalArgumentException("commitHash must be a full 40 or 64 character hexadecimal hash");
+        }
+
         Pipeline pipeline = new Pipeline();
         // Clone project job
         pipeline.addJob(new Job(JobType.CLONE));
@@ -63,7 +99,7 @@ public class PipelineService {
         pipeline.setTrigger(trigger);
         
         Pipeline saved = pipelineRepository.save(pipeline);
-        publishStatus(saved.getId(), "CREATED", null);
+        publishStatus(saved.getId(), "CREATED", null, saved.getJobs());
         return saved;
     }
 
@@ -77,7 +113,7 @@ public class PipelineService {
 
         pipeline.setStatus("RUNNING");
         log.info("Pipeline {} started", pipeline.getId());
-        pipelineRepository.save(pipeline);
+        pipelineRepository.updateStatus(pipelineId, "RUNNING");
 
         boolean chainBroken = false;
 
@@ -90,8 +126,8 @@ public class PipelineService {
             job.setStartTime(LocalDateTime.now());
             job.setStatus("RUNNING");
 
-            pipelineRepository.save(pipeline);
-            publishStatus(pipelineId, "RUNNING", job.getJobType().getCommandName());
+            pipelineRepository.updateJob(pipelineId, job);
+            publishStatus(pipelineId, "RUNNING", job.getJobType().getCommandName(), job);
 
             Command command = commandFactory.create(job.getJobType().getCommandName(), pipeline.getProjectId(), pipelineId);
 
@@ -102,50 +138,29 @@ public class PipelineService {
             if (result.getExitCode() == 0) {
                 log.info("Job {} succeeded.", job.getId());
                 job.setStatus("SUCCESS");
-
-                // Update commit hash if missing and this was the clone step
-                if (JobType.CLONE.equals(job.getJobType()) &&
-                        (pipeline.getCommitHash() == null || pipeline.getCommitHash().isEmpty())) {
-                    String output = result.getOutput();
-                    // Basic validation: Hash is typically 40 chars hex
-                    if (output != null && output.length() == 40 && !output.contains(" ")) {
-                        log.info("Updating pipeline {} commit hash to {}", pipelineId, output);
-                        
-                        // Use MongoTemplate for partial update to avoid overwriting other fields
-                        mongoTemplate.updateFirst(
-                            org.springframework.data.mongodb.core.query.Query.query(
-                                org.springframework.data.mongodb.core.query.Criteria.where("_id").is(pipelineId)
-                            ),
-                            org.springframework.data.mongodb.core.query.Update.update("commitHash", output),
-                            Pipeline.class
-                        );
-                        
-                        // Update in-memory object too so subsequent saves don't revert it (though save overwrites anyway)
-                        // But strictly speaking, if we just want to persist hash without touching others, 
-                        // we've done it in DB. For the current flow, we keep the object in sync.
-                        pipeline.setCommitHash(output);
-                    }
-                }
             } else {
                 log.warn("Job {} failed. Exit code: {}", job.getId(), result.getExitCode());
                 job.setStatus("FAILED");
                 chainBroken = true;
             }
 
-            pipelineRepository.save(pipeline);
+            pipelineRepository.updateJob(pipelineId, job);
+            stepDurationService.record(pipeline.getProjectId(), job);
+            publishStatus(pipelineId, "RUNNING", job.getJobType().getCommandName(), job);
         }
 
         if (!chainBroken) {
             log.info("Pipeline {} succeeded", pipeline.getId());
             pipeline.setStatus("SUCCESS");
-            pipelineRepository.save(pipeline);
             publishStatus(pipelineId, "SUCCESS", null);
         } else {
             log.warn("Pipeline {} failed", pipeline.getId());
             pipeline.setStatus("FAILED");
             publishStatus(pipelineId, "FAILED", null);
         }
-        pipelineRepository.save(pipeline);
+        pipelineRepository.updateStatus(pipelineId, pipeline.getStatus());
+        processLogStore.sealAll(pipelineId);
+        containerLogStreamer.endPipeline(pipelineId);
     }
 
 }
@@ -0,0 +1,106 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.model.PipelineState;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineStatusUpdate;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineStatePort;
+import fr.imt.deployzilla.deployzilla.exception.PipelineNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves live pipeline snapshots without touching Mongo, including long polls that complete as
+ * soon as the snapshot changes.
+ */
+@Service
+@RequiredArgsConstructor
+public class PipelineStateService {
+
+    private final PipelineStatePort pipelineStatePort;
+
+    private final Map<String, List<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    @Value("${deployzilla.state.long-poll.max-wait:30s}")
+    private Duration maxWait;
+
+    public PipelineState record(PipelineStatusUpdate update) {
+        PipelineState state = pipelineStatePort.apply(update);
+        wake(state);
+        return state;
+    }
+
+    public PipelineState getState(String pipelineId) {
+        return pipelineStatePort.find(pipelineId)
+                .orElseThrow(() -> new PipelineNotFoundException(pipelineId));
+    }
+
+    /**
+     * Completes with the snapshot as soon as its version differs from {@code knownVersion}, or with the
+     * unchanged snapshot once {@code wait} (capped at {@code deployzilla.state.long-poll.max-wait}) elapses.
+     *
+     * @throws IllegalArgumentException if {@code wait} is negative
+     */
+    public CompletableFuture<PipelineState> awaitChange(String pipelineId, Long knownVersion, Duration wait) {
+        if (wait.isNegative()) {
+            throw new IllegalArgumentException("wait must not be negative: " + wait.toSeconds());
+        }
+        PipelineState current = getState(pipelineId);
+        if (knownVersion == null || current.getVersion() != knownVersion || !wait.isPositive()) {
+            return CompletableFuture.completedFuture(current);
+        }
+
+        Waiter waiter = new Waiter(knownVersion, new CompletableFuture<>());
+        waiters.compute(pipelineId, (id, pending) -> {
+            List<Waiter> list = pending != null ? pending : new CopyOnWriteArrayList<>();
+            list.add(waiter);
+            return list;
+        });
+        // A change may have landed between the first read and the registration
+        pipelineStatePort.find(pipelineId).ifPresent(this::wake);
+
+        // Capped before converting, as a client-supplied wait may not fit in milliseconds
+        long timeoutMs = (wait.compareTo(maxWait) > 0 ? maxWait : wait).toMillis();
+        return waiter.future()
+                .completeOnTimeout(current, timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((state, error) -> removeWaiter(pipelineId, waiter));
+    }
+
+    /**
+     * Changes recorded on other nodes only show up in the shared snapshot, so waiters re-check it periodically.
+     */
+    @Scheduled(fixedDelayString = "${deployzilla.state.long-poll.check-interval-ms:500}")
+    public void checkWaiters() {
+        waiters.keySet().forEach(pipelineId -> pipelineStatePort.find(pipelineId).ifPresent(this::wake));
+    }
+
+    private void wake(PipelineState state) {
+        List<Waiter> pending = waiters.get(state.getPipelineId());
+        if (pending == null) {
+            return;
+        }
+        for (Waiter waiter : pending) {
+            if (waiter.knownVersion() != state.getVersion()) {
+                waiter.future().complete(state);
+            }
+        }
+    }
+
+    private void removeWaiter(String pipelineId, Waiter waiter) {
+        waiters.computeIfPresent(pipelineId, (id, pending) -> {
+            pending.remove(waiter);
+            return pending.isEmpty() ? null : pending;
+        });
+    }
+
+    private record Waiter(long knownVersion, CompletableFuture<PipelineState> future) {
+    }
+}
@@ -0,0 +1,51 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.model.ProcessLogEntry;
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogHistoryPort;
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogStorePort;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+@Service
+@RequiredArgsConstructor
+public class ProcessLogService {
+
+    /** Redis Stream entry ID, {@code <millis>-<sequence>}. */
+    private static final Pattern STREAM_ID = Pattern.compile("\\d+-\\d+");
+
+    private final ProcessLogHistoryPort processLogHistoryPort;
+    private final ProcessLogStorePort processLogStorePort;
+
+    @Value("${deployzilla.logs.replay.max-page-size:1000}")
+    private int maxPageSize;
+
+    /**
+     * Replay the log history of a pipeline, starting right after the last ID seen by the client.
+     *
+     * @param limit Page size, capped at {@code deployzilla.logs.replay.max-page-size}
+     * @throws IllegalArgumentException if {@code lastSeenId} is not a stream entry ID or {@code limit} is not positive
+     */
+    public List<ProcessLogEntry> replay(String pipelineId, String lastSeenId, int limit) {
+        if (lastSeenId != null && !lastSeenId.isBlank() && !STREAM_ID.matcher(lastSeenId).matches()) {
+            throw new IllegalArgumentException("Invalid log entry ID: " + lastSeenId);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        int pageSize = Math.min(limit, maxPageSize);
+        return processLogHistoryPort.readAfter(pipelineId, lastSeenId, pageSize);
+    }
+
+    /**
+     * Read a range of stored log lines of a pipeline step, starting at line {@code from}.
+     */
+    public List<String> readStep(String pipelineId, String stepId, long from, int limit) {
+        int pageSize = Math.clamp(limit, 1, maxPageSize);
+        return processLogStorePort.read(pipelineId, stepId, Math.max(0, from), pageSize);
+    }
+
+}
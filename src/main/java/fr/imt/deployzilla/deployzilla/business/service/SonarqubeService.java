@@ -1,11 +1,12 @@
 package fr.imt.deployzilla.deployzilla.business.service;
 
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
 import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
 import fr.imt.deployzilla.deployzilla.infrastructure.client.SonarQubeClient;
 import fr.imt.deployzilla.deployzilla.business.model.SonarTokenResponse;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
-import fr.imt.deployzilla.deployzilla.infrastructure.persistence.repository.PipelineRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -43,7 +44,7 @@ public class SonarqubeService {
     @Value("${sonar.url}")
     private String sonarUrl;
 
-    private final PipelineRepository pipelineRepository;
+    private final PipelineRepositoryPort pipelineRepository;
 
     @Retryable(
         maxAttempts = 3,
@@ -64,7 +65,7 @@ public class SonarqubeService {
     }
 
     public CompletableFuture<ProcessResult> runAnalysis(String pipelineId, String projectDir, String token) {
-        String stepId = "sonar";
+        String stepId = JobType.SONAR.getStepId();
         String sanitizedDir = DirectorySanitizer.sanitizeDirectoryName(projectDir);
 
         String hostProjectPath = workspacePath + "/" + pipelineId + "/" + sanitizedDir;
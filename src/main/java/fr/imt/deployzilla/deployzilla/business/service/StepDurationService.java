@@ -0,0 +1,104 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.business.model.StepDurationStats;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import fr.imt.deployzilla.deployzilla.business.port.StepDurationStatsPort;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Job;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Step duration percentiles per project and job type. Only successful steps are counted, so a step
+ * failing fast does not hide that it is getting slower. Histograms live in memory: steps run here are
+ * recorded as they end, and the pipelines finished on any node are read back from Mongo every
+ * {@code sync-interval-ms} (the last {@code max-window} at startup), so all nodes converge on the same
+ * counts. Each job is recorded once, whichever way it arrives first.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StepDurationService {
+
+    private final StepDurationStatsPort stepDurationStatsPort;
+    private final PipelineRepositoryPort pipelineRepository;
+
+    /** Pipelines updated just before a sync may only become visible after it; they are read again next time. */
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    /** End time of each recorded job, so a job is not counted again when it comes back from Mongo. */
+    private final Map<String, LocalDateTime> recordedJobs = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastSync;
+
+    @Value("${deployzilla.analytics.step-durations.max-window:7d}")
+    private Duration maxWindow;
+
+    public void record(String projectId, Job job) {
+        if (!"SUCCESS".equals(job.getStatus()) || job.getStartTime() == null || job.getEndTime() == null) {
+            return;
+        }
+        if (job.getId() != null && recordedJobs.putIfAbsent(job.getId(), job.getEndTime()) != null) {
+            return;
+        }
+        stepDurationStatsPort.record(projectId, job.getJobType(),
+                Duration.between(job.getStartTime(), job.getEndTime()),
+                job.getEndTime().atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * @param window Validated and capped with {@link #effectiveWindow}
+     */
+    public List<StepDurationStats> getStats(String projectId, JobType jobType, Duration window) {
+        return stepDurationStatsPort.query(projectId, jobType, effectiveWindow(window));
+    }
+
+    /**
+     * @return {@code window} capped at {@code max-window}, the one stats are actually computed over
+     */
+    public Duration effectiveWindow(Duration window) {
+        if (window == null || !window.isPositive()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        return window.compareTo(maxWindow) > 0 ? maxWindow : window;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        sync();
+    }
+
+    /**
+     * Record the steps of the pipelines finished since the last sync, wherever they ran.
+     */
+    @Scheduled(initialDelayString = "${deployzilla.analytics.step-durations.sync-interval-ms:60000}",
+            fixedDelayString = "${deployzilla.analytics.step-durations.sync-interval-ms:60000}")
+    public synchronized void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = lastSync != null ? lastSync.minus(SYNC_OVERLAP) : now.minus(maxWindow);
+        try {
+            List<Pipeline> pipelines = pipelineRepository.findFinishedSince(since);
+            pipelines.forEach(pipeline -> pipeline.getJobs().forEach(job -> record(pipeline.getProjectId(), job)));
+            if (lastSync == null) {
+                log.info("Rebuilt step duration histograms from {} pipelines", pipelines.size());
+            }
+            lastSync = now;
+        } catch (Exception e) {
+            log.warn("Could not sync step duration histograms: {}", e.getMessage());
+        }
+        LocalDateTime expired = now.minus(maxWindow);
+        recordedJobs.values().removeIf(endedAt -> endedAt.isBefore(expired));
+    }
+}
@@ -1,17 +1,33 @@
 package fr.imt.deployzilla.deployzilla.business.service.jobs;
 
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
 import fr.imt.deployzilla.deployzilla.business.service.ContainerExecutor;
 import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.ContainerLogStreamer;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Project;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
+/**
+ * Pipeline step running ESLint. The ESLint cache is kept per project and branch between pipelines
+ * (copied in before and out after, so concurrent pipelines never share the file), and projects with
+ * {@code lintChangedFilesOnly} lint only the files changed since the last successful pipeline.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -20,19 +36,70 @@ public class EslintService {
     private static final String NODE_IMAGE = "deployzilla/step:npm-lint";
     private static final String CONTAINER_WORKSPACE_PATH = "/workspace";
 
+    private static final String ESLINT_CACHE_FILE = ".eslintcache";
+    private static final String LINT_FILES_LIST = ".deployzilla-lint-files";
+    private static final Set<String> LINTABLE_EXTENSIONS = Set.of(
+            "js", "jsx", "mjs", "cjs", "ts", "tsx", "mts", "cts", "vue", "svelte");
+    private static final Set<String> LOCKFILES = Set.of("package-lock.json", "yarn.lock", "pnpm-lock.yaml");
+
     private final ContainerExecutor containerExecutor;
+    private final ContainerLogStreamer containerLogStreamer;
 
     @Value("${deployzilla.workspace.path:/workspaces}")
     private String workspacePath;
 
-    public CompletableFuture<ProcessResult> execute(String pipelineId, String projectDir) {
-        String stepId = "eslint";
+    @Value("${deployzilla.workspace.local.path:/workspaces}")
+    private String workspaceLocalPath;
+
+    @Value("${deployzilla.lint.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${deployzilla.lint.cache.path:/tmp/deployzilla-lint-cache}")
+    private String cachePath;
+
+    /**
+     * @param repository What the clone step found, for the changed files; {@code null} lints everything
+     */
+    public CompletableFuture<ProcessResult> execute(String pipelineId, String projectDir, Project project,
+                                                    RepositoryMetadata repository) {
+        String stepId = JobType.NPM_LINT.getStepId();
         String sanitizedDir = DirectorySanitizer.sanitizeDirectoryName(projectDir);
 
         String hostProjectPath = workspacePath + "/" + pipelineId + "/" + sanitizedDir;
         List<String> volumes = List.of(
                 hostProjectPath + ":" + CONTAINER_WORKSPACE_PATH
         );
+        Path localProjectPath = Path.of(workspaceLocalPath, pipelineId, sanitizedDir);
+
+        Map<String, String> envVars = new HashMap<>(Map.of("NODE_OPTIONS", "--max-old-space-size=4096"));
+
+        if (project.isLintChangedFilesOnly()) {
+            List<String> files = filesToLint(repository, localProjectPath);
+            if (files != null && files.isEmpty()) {
+                log.info("No lintable file changed in pipeline {}, skipping ESLint", pipelineId);
+                containerLogStreamer.publishLog(pipelineId, stepId,
+                        "No lintable file changed since " + repository.getBaseCommitHash() + ", skipping ESLint");
+                containerLogStreamer.sealLogs(pipelineId, stepId);
+                return CompletableFuture.completedFuture(new ProcessResult(0, "SUCCESS"));
+            }
+            if (files != null) {
+                try {
+                    Files.write(localProjectPath.resolve(LINT_FILES_LIST), files);
+                    envVars.put("LINT_FILES", LINT_FILES_LIST);
+                    containerLogStreamer.publishLog(pipelineId, stepId,
+                            "Linting " + files.size() + " files changed since " + repository.getBaseCommitHash());
+                } catch (IOException e) {
+                    log.warn("Failed to write lint file list for pipeline {}, linting everything", pipelineId, e);
+                }
+            }
+        }
+
+        Path cacheFile = cacheFileOf(project);
+        Path workspaceCacheFile = localProjectPath.resolve(ESLINT_CACHE_FILE);
+        if (cacheFile != null) {
+            envVars.put("ESLINT_CACHE_STRATEGY", "content");
+            restoreCache(cacheFile, workspaceCacheFile);
+        }
 
         log.info("Running ESLint for pipeline {} in {}", pipelineId, sanitizedDir);
 
@@ -41,7 +108,75 @@ public class EslintService {
                 stepId,
                 NODE_IMAGE,
                 volumes,
-                Map.of("NODE_OPTIONS", "--max-old-space-size=4096")
-        );
+                envVars
+        ).whenComplete((result, throwable) -> {
+            if (cacheFile != null) {
+                saveCache(workspaceCacheFile, cacheFile);
+            }
+        });
+    }
+
+    /**
+     * Lintable files changed since the base commit and still present.
+     *
+     * @return {@code null} when everything has to be linted: no base to compare with, or a change to the
+     * ESLint configuration or dependencies, which can change the result for unchanged files
+     */
+    private static List<String> filesToLint(RepositoryMetadata repository, Path projectPath) {
+        if (repository == null || repository.getChangedFiles() == null) {
+            return null;
+        }
+        boolean configChanged = repository.getChangedFiles().stream()
+                .map(file -> file.substring(file.lastIndexOf('/') + 1))
+                .anyMatch(name -> name.startsWith("eslint.config.") || name.startsWith(".eslintrc")
+                        || name.equals("package.json") || LOCKFILES.contains(name));
+        if (configChanged) {
+            return null;
+        }
+        return repository.getChangedFiles().stream()
+                .filter(file -> LINTABLE_EXTENSIONS.contains(file.substring(file.lastIndexOf('.') + 1)))
+                .filter(file -> Files.isRegularFile(projectPath.resolve(file)))
+                .toList();
+    }
+
+    private Path cacheFileOf(Project project) {
+        if (!cacheEnabled || project.getProjectId() == null) {
+            return null;
+        }
+        return Path.of(cachePath,
+                DirectorySanitizer.sanitizeDirectoryName(project.getProjectId().toHexString()),
+                DirectorySanitizer.sanitizeDirectoryName(project.getBranch()),
+                ESLINT_CACHE_FILE);
+    }
+
+    private static void restoreCache(Path cacheFile, Path workspaceCacheFile) {
+        try {
+            if (Files.exists(cacheFile)) {
+                Files.copy(cacheFile, workspaceCacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to restore ESLint cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the kept cache atomically, so a pipeline starting meanwhile never reads half a file.
+     */
+    private static void saveCache(Path workspaceCacheFile, Path cacheFile) {
+        if (!Files.exists(workspaceCacheFile)) {
+            return;
+        }
+        Path staging = cacheFile.resolveSibling(ESLINT_CACHE_FILE + "-" + UUID.randomUUID());
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            Files.copy(workspaceCacheFile, staging);
+            Files.move(staging, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to keep ESLint cache {}: {}", cacheFile, e.getMessage());
+            try {
+                Files.deleteIfExists(staging);
+            } catch (IOException ignored) {
+            }
+        }
     }
 }
@@ -1,6 +1,8 @@
 package fr.imt.deployzilla.deployzilla.business.service.jobs;
 
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
 import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
 import fr.imt.deployzilla.deployzilla.business.service.ContainerExecutor;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Project;
@@ -15,13 +17,22 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * Pipeline step that clones a Git repository into a shared workspace.
+ * <p>
+ * With {@code deployzilla.git.mirror.enabled}, each project keeps a bare mirror on the build host
+ * that is brought up to date with an incremental fetch, and workspaces are cloned from it locally.
+ * {@code mirror.path} is the Docker host path bound into the clone container, {@code mirror.local.path}
+ * where this application sees the same directory.
  */
 @Component
 @RequiredArgsConstructor
@@ -33,6 +44,12 @@ public class GitCloneService {
 
     // Container mount paths
     private static final String CONTAINER_WORKSPACE_PATH = "/workspace";
+    private static final String CONTAINER_MIRROR_PATH = "/mirror";
+
+    // Written by clone.sh at the root of the pipeline workspace
+    private static final String METADATA_FILE = "clone-metadata.properties";
+    private static final String LOCKFILE_PREFIX = "lockfile.";
+    private static final String SYMBOLIC_REF_PREFIX = "ref:";
     private static final String CONTAINER_KEYS_PATH = "/keys";
     private static final String CONTAINER_DEPLOY_KEY_FILE = CONTAINER_KEYS_PATH + "/deploy_key";
     private static final String CONTAINER_KNOWN_HOSTS_FILE = CONTAINER_KEYS_PATH + "/known_hosts";
@@ -59,12 +76,23 @@ public class GitCloneService {
     @Value("${deployzilla.keys.path:/tmp/deployzilla-keys}")
     private String secureKeysPath;
 
+    @Value("${deployzilla.git.mirror.enabled:true}")
+    private boolean mirrorEnabled;
+
+    @Value("${deployzilla.git.mirror.path:/tmp/deployzilla-mirrors}")
+    private String mirrorPath;
+
+    @Value("${deployzilla.git.mirror.local.path:${deployzilla.git.mirror.path:/tmp/deployzilla-mirrors}}")
+    private String localMirrorPath;
+
     /**
      * Clone a repository from GitHub.
      *
      * @param pipelineId Unique pipeline identifier
      * @param project   Project to clone
      * @param targetDir  Directory name within workspace (relative to workspace root)
+     * @param commitHash Exact commit to check out, or {@code null} for the branch tip
+     * @param baseCommitHash Commit to list changed files against, or {@code null}
      * @return CompletableFuture with exit code (0 = success)
      */
     @Retryable(
@@ -75,19 +103,33 @@ public class GitCloneService {
     public CompletableFuture<ProcessResult> execute(
             String pipelineId,
             Project project,
-            String targetDir) {
+            String targetDir,
+            String commitHash,
+            String baseCommitHash) {
 
-        String stepId = "git-clone";
+        String stepId = JobType.CLONE.getStepId();
 
         // Sanitize target directory to prevent path traversal
         targetDir = DirectorySanitizer.sanitizeDirectoryName(targetDir);
 
         // Environment variables for the container script
-        Map<String, String> envVars = Map.of(
+        Map<String, String> envVars = new HashMap<>(Map.of(
                 "GIT_REPO", project.getRepoUrl(),
                 "GIT_BRANCH", project.getBranch(),
                 "TARGET_DIR", targetDir
-        );
+        ));
+        if (commitHash != null && !commitHash.isBlank()) {
+            envVars.put("GIT_COMMIT", commitHash);
+        }
+        if (baseCommitHash != null && !baseCommitHash.isBlank()) {
+            envVars.put("GIT_BASE_COMMIT", baseCommitHash);
+        }
+        if (project.getCloneStrategy() != null) {
+            envVars.put("GIT_CLONE_STRATEGY", project.getCloneStrategy().name());
+        }
+        if (project.getSparsePaths() != null && !project.getSparsePaths().isEmpty()) {
+            envVars.put("GIT_SPARSE_PATHS", String.join("\n", project.getSparsePaths()));
+        }
 
         // Mount shared workspace volume
         String pipelineWorkspace = workspacePath + "/" + pipelineId;
@@ -98,9 +140,14 @@ public class GitCloneService {
              return CompletableFuture.completedFuture(new ProcessResult(1, "ERROR"));
         }
 
-        List<String> volumes = List.of(
+        List<String> volumes = new ArrayList<>(List.of(
                 pipelineWorkspace + ":" + CONTAINER_WORKSPACE_PATH
-        );
+        ));
+
+        // Mount the project's mirror; the script falls back to a network clone if it cannot be used
+        if (mirrorVolume(project).map(volumes::add).isPresent()) {
+            envVars.put("GIT_MIRROR", "true");
+        }
 
         log.info("Cloning {} (branch: {}) to {} using Docker env vars", project.getRepoUrl(), project.getBranch(), pipelineWorkspace + "/" + targetDir);
 
@@ -113,6 +160,45 @@ public class GitCloneService {
         );
     }
 
+    /**
+     * Check out the whole commit in a workspace cloned with {@code sparsePaths}, for steps that need every
+     * file, like the image build. Contents the clone left out are fetched from the project's mirror when
+     * the workspace was cloned from it, else from the repository.
+     * Runs as part of {@code stepId}, whose logs are left open.
+     */
+    public CompletableFuture<ProcessResult> checkoutFull(String pipelineId, Project project, String targetDir,
+                                                         String stepId) {
+        Map<String, String> envVars = Map.of(
+                "GIT_REPO", project.getRepoUrl(),
+                "GIT_BRANCH", project.getBranch(),
+                "TARGET_DIR", DirectorySanitizer.sanitizeDirectoryName(targetDir),
+                "GIT_FULL_CHECKOUT", "true"
+        );
+        List<String> volumes = new ArrayList<>(List.of(workspacePath + "/" + pipelineId + ":" + CONTAINER_WORKSPACE_PATH));
+        mirrorVolume(project).ifPresent(volumes::add);
+
+        log.info("Checking out the whole repository in the sparse workspace of pipeline {}", pipelineId);
+        return containerExecutor.executeStepPart(pipelineId, stepId, GIT_IMAGE, volumes, envVars);
+    }
+
+    /**
+     * @return the bind of the project's mirror directory (created if needed), unless mirrors are disabled
+     */
+    private Optional<String> mirrorVolume(Project project) {
+        if (!mirrorEnabled || project.getProjectId() == null) {
+            return Optional.empty();
+        }
+        String mirrorDir = DirectorySanitizer.sanitizeDirectoryName(project.getProjectId().toHexString());
+        Path projectMirror = Path.of(localMirrorPath, mirrorDir);
+        try {
+            Files.createDirectories(projectMirror);
+            return Optional.of(Path.of(mirrorPath, mirrorDir) + ":" + CONTAINER_MIRROR_PATH);
+        } catch (IOException e) {
+            log.warn("Failed to create git mirror directory {}, cloning without it", projectMirror, e);
+            return Optional.empty();
+        }
+    }
+
     /**
      * Clone a private repository using an SSH deploy key content.
      * The deploy key content is written to a temporary file in the shared workspace,
@@ -312,42 +398,84 @@ public class GitCloneService {
     }
 
     /**
-     * Retrieve the current commit hash (HEAD) from the cloned repository.
-     * Use a lightweight git image to run "git rev-parse HEAD".
+     * Read the commit the pipeline's workspace is at now from its {@code .git} ({@code HEAD}, then the
+     * loose ref or {@code packed-refs} it points to), rather than what the clone step recorded, so a
+     * step that moved HEAD afterwards shows.
+     *
+     * @return {@code null} if the workspace has no readable HEAD
      */
-    public CompletableFuture<String> retrieveCommitHash(String pipelineId, String targetDir) {
-        String stepId = "git-rev-parse";
-        targetDir = DirectorySanitizer.sanitizeDirectoryName(targetDir);
-
-        String pipelineWorkspace = workspacePath + "/" + pipelineId;
-        // In container, the workspace is mounted at /workspace
-        String containerRepoPath = CONTAINER_WORKSPACE_PATH + "/" + targetDir;
-
-        // Use standard alpine/git image
-        String minimalGitImage = "alpine/git:latest"; 
-
-        List<String> volumes = List.of(
-                pipelineWorkspace + ":" + CONTAINER_WORKSPACE_PATH
-        );
+    public String readHead(String pipelineId, String targetDir) {
+        Path gitDir = Path.of(localWorkspacePath, pipelineId, DirectorySanitizer.sanitizeDirectoryName(targetDir), ".git");
+        try {
+            String head = Files.readString(gitDir.resolve("HEAD")).trim();
+            if (!head.startsWith(SYMBOLIC_REF_PREFIX)) {
+                return head;
+            }
+            String ref = head.substring(SYMBOLIC_REF_PREFIX.length()).trim();
+            Path looseRef = gitDir.resolve(ref).normalize();
+            if (looseRef.startsWith(gitDir) && Files.isRegularFile(looseRef)) {
+                return Files.readString(looseRef).trim();
+            }
+            Path packedRefs = gitDir.resolve("packed-refs");
+            if (Files.isRegularFile(packedRefs)) {
+                for (String line : Files.readAllLines(packedRefs)) {
+                    if (line.endsWith(" " + ref)) {
+                        return line.substring(0, line.indexOf(' '));
+                    }
+                }
+            }
+            log.warn("HEAD of the workspace of pipeline {} points to missing ref {}", pipelineId, ref);
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read the HEAD of the workspace of pipeline {}: {}", pipelineId, e.getMessage());
+            return null;
+        }
+    }
 
-        // Command: git -C /workspace/targetDir rev-parse HEAD
-        // Assuming entrypoint is "git"
-        List<String> command = List.of("-C", containerRepoPath, "rev-parse", "HEAD");
+    /**
+     * Read the metadata written by the clone script next to the checkout, as {@code key=value} lines:
+     * {@code commit}, {@code tree}, {@code packageManager}, {@code lockfile.<name>}, {@code base} and
+     * one {@code changed} line per file.
+     *
+     * @return {@code null} if the step did not write any (image predating it)
+     */
+    public RepositoryMetadata readMetadata(String pipelineId) {
+        Path metadataFile = Path.of(localWorkspacePath, pipelineId, METADATA_FILE);
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(metadataFile);
+        } catch (IOException e) {
+            log.warn("No clone metadata for pipeline {}: {}", pipelineId, e.getMessage());
+            return null;
+        }
 
-        return containerExecutor.executeStep(
-                pipelineId,
-                stepId,
-                minimalGitImage,
-                volumes,
-                null, // No env vars needed
-                command
-        ).thenApply(result -> {
-            if (result.getExitCode() == 0 && result.getOutput() != null) {
-                return result.getOutput().trim();
+        Map<String, String> values = new HashMap<>();
+        Map<String, String> lockfileHashes = new LinkedHashMap<>();
+        List<String> changedFiles = new ArrayList<>();
+        for (String line : lines) {
+            int separator = line.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            String key = line.substring(0, separator);
+            String value = line.substring(separator + 1);
+            if (key.equals("changed")) {
+                changedFiles.add(value);
+            } else if (key.startsWith(LOCKFILE_PREFIX)) {
+                lockfileHashes.put(key.substring(LOCKFILE_PREFIX.length()), value);
             } else {
-                log.warn("Failed to retrieve commit hash. Exit: {}, Output: {}", result.getExitCode(), result.getOutput());
-                return ""; // Fallback to empty or null?
+                values.put(key, value);
             }
-        });
+        }
+
+        String baseCommitHash = values.get("base");
+        return new RepositoryMetadata(
+                values.get("commit"),
+                values.get("tree"),
+                values.get("packageManager"),
+                lockfileHashes,
+                baseCommitHash,
+                baseCommitHash != null ? changedFiles : null
+        );
     }
 }
@@ -1,17 +1,21 @@
 package fr.imt.deployzilla.deployzilla.business.service.jobs;
 
+import fr.imt.deployzilla.deployzilla.business.model.BuildOutput;
+import fr.imt.deployzilla.deployzilla.business.model.ImageBuildMode;
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
-import fr.imt.deployzilla.deployzilla.business.port.ProcessLogPublisherPort;
 import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.ContainerLogStreamer;
 import fr.imt.deployzilla.deployzilla.infrastructure.docker.DockerImageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.FileSystemUtils;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 @Component
@@ -19,10 +23,13 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class ImageBuildService {
 
+    private static final String STEP_ID = JobType.IMAGE_BUILD.getStepId();
+
     private final DockerImageService dockerImageService;
-    private final ProcessLogPublisherPort logPublisher;
+    private final ContainerLogStreamer containerLogStreamer;
 
-    private final String DOCKER_FILENAME = "Dockerfile";
+    /** Distinct from the project's own Dockerfile, which the context may contain. */
+    private final String DOCKER_FILENAME = "Dockerfile.deployzilla";
 
     @Value("${deployzilla.workspace.path:/workspaces}")
     private String workspacePath;
@@ -33,7 +40,13 @@ public class ImageBuildService {
     @Value("${deployzilla.docker.registry.username:}")
     private String registryUsername;
 
-    public CompletableFuture<ProcessResult> execute(String pipelineId, String projectDir, String gitUrl) {
+    /**
+     * @param projectId   Builds of the same project share a layer cache
+     * @param commitHash  Commit checked out in the workspace, that a {@code PREBUILT} image's build output must be from
+     * @param buildOutput What {@code NPM_BUILD} produced, or {@code null}
+     */
+    public CompletableFuture<ProcessResult> execute(String projectId, String pipelineId, String projectDir,
+                                                    ImageBuildMode mode, String commitHash, BuildOutput buildOutput) {
         String sanitizedDir = DirectorySanitizer.sanitizeDirectoryName(projectDir);
         String localProjectPath = workspaceLocalPath + "/" + pipelineId + "/" + sanitizedDir;
         
@@ -49,49 +62,39 @@ public class ImageBuildService {
             String runCommand = detectRunCommand(projectPath);
             log.info("Detected run command: {}", runCommand);
 
-            // 2. Create a temporary directory for the build context
-            // This ensures a clean context without symlinks (node_modules)
-            Path buildContextPath = Files.createTempDirectory("deployzilla-build-" + pipelineId);
-            log.info("Created temporary build context at {}", buildContextPath);
-            logPublisher.publish(pipelineId, "Created clean build context at " + buildContextPath);
-
-            // 3. Generate Dockerfile Content
-            String dockerfileContent = generateDockerfileContent(gitUrl, runCommand);
+            // 2. Generate Dockerfile Content
+            BuildOutput prebuilt = mode == ImageBuildMode.PREBUILT
+                    ? usableBuildOutput(pipelineId, projectPath, commitHash, buildOutput)
+                    : null;
+            String dockerfileContent = generateDockerfileContent(runCommand, isWorkspaceProject(projectPath),
+                    dockerImageService.isBuildKitEnabled(), prebuilt != null);
             log.info("Generated Dockerfile content: {}", dockerfileContent);
-            logPublisher.publish(pipelineId, "Generated Dockerfile content:\n" + dockerfileContent);
+            containerLogStreamer.publishLog(pipelineId, STEP_ID, "Generated Dockerfile content:\n" + dockerfileContent);
 
-            // 4. Write Dockerfile to the temporary context
-            Path dockerfilePath = buildContextPath.resolve("Dockerfile");
-            log.info("Writing Dockerfile to {}", dockerfilePath);
-            logPublisher.publish(pipelineId, "Writing Dockerfile to " + dockerfilePath);
-            Files.writeString(dockerfilePath, dockerfileContent);
-            
-            // 5. Build Image LOCALLY
+            // 3. Build Image LOCALLY, with the workspace checked out by CLONE as context (without node_modules)
             String registryPrefix = (registryUsername != null && !registryUsername.isBlank()) ? registryUsername + "/" : "";
             String finalImageName = registryPrefix + imageName;
+
+            containerLogStreamer.publishLog(pipelineId, STEP_ID, "Streaming build context from " + projectPath);
+            Set<String> keptPaths = prebuilt != null ? Set.copyOf(prebuilt.getPaths()) : Set.of();
+            dockerImageService.buildImage(pipelineId, projectId, projectPath, DOCKER_FILENAME, dockerfileContent,
+                    keptPaths, finalImageName, tag);
             
-            dockerImageService.buildImage(pipelineId, buildContextPath.toString(), DOCKER_FILENAME, finalImageName, tag);
-            
-            // 6. Push Image to Registry
+            // 4. Push Image to Registry
              if (registryUsername != null && !registryUsername.isBlank()) {
                 log.info("Pushing image {} to registry", finalImageName);
                 dockerImageService.pushImage(pipelineId, finalImageName, tag);
              } else {
                  log.warn("Registry username not set, skipping push. Remote run might fail if image is not on remote host.");
-                 logPublisher.publish(pipelineId, "WARNING: Registry credentials missing. Skipping Push.");
+                 containerLogStreamer.publishLog(pipelineId, STEP_ID, "WARNING: Registry credentials missing. Skipping Push.");
              }
             
-            try {
-                FileSystemUtils.deleteRecursively(buildContextPath);
-                log.info("Cleaned up temp dir {}", buildContextPath);
-            } catch (Exception e) {
-                log.warn("Failed to cleanup temp dir", e);
-            }
-            
             return CompletableFuture.completedFuture(new ProcessResult(0, "SUCCESS"));
         } catch (Exception e) {
             log.error("Build image failed", e);
             return CompletableFuture.completedFuture(new ProcessResult(1, "ERROR"));
+        } finally {
+            containerLogStreamer.sealLogs(pipelineId, STEP_ID);
         }
     }
 
@@ -105,31 +108,88 @@ public class ImageBuildService {
         }
     }
 
-    private String generateDockerfileContent(String gitUrl, String packageManager) {
+    /**
+     * The {@code NPM_BUILD} output, if it can go in the image as is: recorded for the commit the
+     * workspace is at, with no file changed since, and still in the workspace.
+     */
+    private BuildOutput usableBuildOutput(String pipelineId, Path projectPath, String commitHash,
+                                          BuildOutput buildOutput) {
+        String reason;
+        if (buildOutput == null) {
+            reason = "no NPM_BUILD output recorded";
+        } else if (commitHash == null || !commitHash.equals(buildOutput.getCommitHash())) {
+            reason = "NPM_BUILD output is from commit " + buildOutput.getCommitHash() + ", not " + commitHash;
+        } else if (buildOutput.isSourcesModified()) {
+            reason = "workspace files changed after NPM_BUILD";
+        } else if (!buildOutput.getPaths().stream().allMatch(path -> Files.exists(projectPath.resolve(path)))) {
+            reason = "NPM_BUILD output " + buildOutput.getPaths() + " is no longer in the workspace";
+        } else {
+            containerLogStreamer.publishLog(pipelineId, STEP_ID,
+                    "Packaging NPM_BUILD output " + buildOutput.getPaths() + " of commit " + commitHash);
+            return buildOutput;
+        }
+        log.warn("Cannot reuse build output for pipeline {}: {}", pipelineId, reason);
+        containerLogStreamer.publishLog(pipelineId, STEP_ID, "WARNING: " + reason + ", building again in the image");
+        return null;
+    }
+
+    /**
+     * Monorepos, whose install needs the package.json of every workspace package, not only the root one.
+     */
+    private boolean isWorkspaceProject(Path projectPath) {
+        if (Files.exists(projectPath.resolve("pnpm-workspace.yaml"))) {
+            return true;
+        }
+        try {
+            return Files.readString(projectPath.resolve("package.json")).contains("\"workspaces\"");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Dependencies are installed from the manifest and lockfiles alone before the sources are copied,
+     * so a code-only change reuses the install layer. With BuildKit the package manager's download
+     * cache is also a cache mount, kept across builds, for when the lockfile did change.
+     * <p>
+     * {@code prebuilt} images copy the workspace with its build output instead of building, and only
+     * install production dependencies.
+     */
+    private String generateDockerfileContent(String packageManager, boolean workspaceProject, boolean buildKit,
+                                             boolean prebuilt) {
         String installCommand;
         if ("yarn".equals(packageManager)) {
-            installCommand = "RUN corepack enable && yarn install --frozen-lockfile";
+            installCommand = (buildKit ? "RUN --mount=type=cache,id=yarn,target=/yarn-cache YARN_CACHE_FOLDER=/yarn-cache " : "RUN ")
+                    + "yarn install --frozen-lockfile" + (prebuilt ? " --production" : "");
         } else if ("pnpm".equals(packageManager)) {
-            installCommand = "RUN corepack enable && pnpm install --frozen-lockfile";
+            installCommand = (buildKit
+                    ? "RUN --mount=type=cache,id=pnpm,target=/pnpm-store pnpm install --frozen-lockfile --prefer-offline --store-dir /pnpm-store"
+                    : "RUN pnpm install --frozen-lockfile")
+                    + (prebuilt ? " --prod" : "");
         } else {
-            installCommand = "RUN npm ci";
+            installCommand = (buildKit
+                    ? "RUN --mount=type=cache,id=npm,target=/root/.npm npm ci --prefer-offline"
+                    : "RUN npm ci")
+                    + (prebuilt ? " --omit=dev" : "");
         }
 
-        return """
-                # Stage 1: Clone
-                FROM --platform=linux/amd64 alpine/git:v2.47.1 AS source
-                WORKDIR /src
-                RUN git clone %s .
+        // Globs, so lockfiles the project does not have are skipped
+        String manifestCopy = workspaceProject
+                ? "COPY . ."
+                : "COPY package.json package-lock.json* yarn.lock* pnpm-lock.yaml* .npmrc* .yarnrc* ./";
+        String sourceCopy = workspaceProject ? "" : "COPY . .";
+        String buildCommand = prebuilt ? "ENV NODE_ENV=production" : "RUN " + packageManager + " build";
 
-                # Stage 2: Build
+        return """
                 FROM --platform=linux/amd64 node:24-alpine
                 WORKDIR /app
-                COPY --from=source /src .
-                
+                RUN corepack enable
+                %s
+                %s
+                %s
                 %s
-                RUN %s build
                 EXPOSE 3000
                 CMD ["%s", "start"]
-                """.formatted(gitUrl, installCommand, packageManager, packageManager);
+                """.formatted(manifestCopy, installCommand, sourceCopy, buildCommand, packageManager);
     }
 }
@@ -1,5 +1,7 @@
 package fr.imt.deployzilla.deployzilla.business.service.jobs;
 
+import fr.imt.deployzilla.deployzilla.business.model.BuildOutput;
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
 import fr.imt.deployzilla.deployzilla.business.service.ContainerExecutor;
 import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
@@ -8,10 +10,28 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Pipeline step running the project's build script in the workspace. On success it records which
+ * top-level entries the build produced and for which commit, so {@code IMAGE_BUILD} can package them
+ * instead of building again (see {@link #readOutput}).
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -20,13 +40,25 @@ public class NpmBuildService {
     private static final String NODE_IMAGE = "deployzilla/step:npm-build";
     private static final String CONTAINER_WORKSPACE_PATH = "/workspace";
 
+    private static final String BUILD_STAMP_FILE = ".deployzilla-build";
+    private static final String COMMIT_KEY = "commit=";
+    private static final String OUTPUT_KEY = "output=";
+    /** Touched by tools during the build without being build output. */
+    private static final Set<String> NOT_OUTPUT = Set.of("node_modules", ".git");
+
     private final ContainerExecutor containerExecutor;
 
     @Value("${deployzilla.workspace.path:/workspaces}")
     private String workspacePath;
 
-    public CompletableFuture<ProcessResult> execute(String pipelineId, String projectDir) {
-        String stepId = "npm-build";
+    @Value("${deployzilla.workspace.local.path:/workspaces}")
+    private String workspaceLocalPath;
+
+    /**
+     * @param commitHash HEAD of the workspace before the build, stored with the output
+     */
+    public CompletableFuture<ProcessResult> execute(String pipelineId, String projectDir, String commitHash) {
+        String stepId = JobType.NPM_BUILD.getStepId();
         String sanitizedDir = DirectorySanitizer.sanitizeDirectoryName(projectDir);
 
         String hostProjectPath = workspacePath + "/" + pipelineId + "/" + sanitizedDir;
@@ -34,6 +66,10 @@ public class NpmBuildService {
                 hostProjectPath + ":" + CONTAINER_WORKSPACE_PATH
         );
 
+        Path localProjectPath = Path.of(workspaceLocalPath, pipelineId, sanitizedDir);
+        Instant start = Instant.now();
+        Set<String> before = topLevelEntries(localProjectPath);
+
         log.info("Running NPM Build for pipeline {} in {}", pipelineId, sanitizedDir);
 
         return containerExecutor.executeStep(
@@ -42,6 +78,103 @@ public class NpmBuildService {
                 NODE_IMAGE,
                 volumes,
                 Map.of()
-        );
+        ).whenComplete((result, throwable) -> {
+            if (result != null && result.getExitCode() == 0 && commitHash != null) {
+                writeStamp(localProjectPath, commitHash, before, start);
+            }
+        });
+    }
+
+    /**
+     * @return what the last successful build of the pipeline produced, or {@code null} if it has not run
+     */
+    public BuildOutput readOutput(String pipelineId, String projectDir) {
+        Path stamp = Path.of(workspaceLocalPath, pipelineId, DirectorySanitizer.sanitizeDirectoryName(projectDir),
+                BUILD_STAMP_FILE);
+        if (!Files.isRegularFile(stamp)) {
+            return null;
+        }
+        try {
+            String commitHash = null;
+            List<String> paths = new ArrayList<>();
+            for (String line : Files.readAllLines(stamp)) {
+                if (line.startsWith(COMMIT_KEY)) {
+                    commitHash = line.substring(COMMIT_KEY.length());
+                } else if (line.startsWith(OUTPUT_KEY)) {
+                    paths.add(line.substring(OUTPUT_KEY.length()));
+                }
+            }
+            return new BuildOutput(commitHash, paths, modifiedSince(stamp, paths));
+        } catch (IOException e) {
+            log.warn("Failed to read build output of pipeline {}: {}", pipelineId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether a file of the workspace, other than the build output and what the pipeline itself writes,
+     * is newer than the stamp, which the build wrote last: edits the commit check cannot see.
+     */
+    private static boolean modifiedSince(Path stamp, List<String> outputPaths) throws IOException {
+        Path projectPath = stamp.getParent();
+        Instant builtAt = Files.getLastModifiedTime(stamp).toInstant();
+        Set<String> skipped = new HashSet<>(outputPaths);
+        skipped.addAll(NOT_OUTPUT);
+        AtomicBoolean modified = new AtomicBoolean();
+        // Walked by hand to skip node_modules and the output without listing them
+        Files.walkFileTree(projectPath, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(projectPath) || !isSkipped(projectPath, dir)
+                        ? FileVisitResult.CONTINUE
+                        : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (isSkipped(projectPath, file) || !attrs.lastModifiedTime().toInstant().isAfter(builtAt)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                modified.set(true);
+                return FileVisitResult.TERMINATE;
+            }
+
+            private boolean isSkipped(Path root, Path path) {
+                String topLevel = root.relativize(path).getName(0).toString();
+                return skipped.contains(topLevel) || topLevel.startsWith(".deployzilla-");
+            }
+        });
+        return modified.get();
+    }
+
+    /**
+     * The output is what the build created, or rewrote (a directory's modification time changes when
+     * entries are added or removed, as when a build empties {@code dist} first).
+     */
+    private static void writeStamp(Path projectPath, String commitHash, Set<String> before, Instant start) {
+        try (Stream<Path> entries = Files.list(projectPath)) {
+            List<String> lines = new ArrayList<>();
+            lines.add(COMMIT_KEY + commitHash);
+            for (Path entry : entries.toList()) {
+                String name = entry.getFileName().toString();
+                if (NOT_OUTPUT.contains(name) || name.startsWith(".deployzilla-")) {
+                    continue;
+                }
+                if (!before.contains(name) || !Files.getLastModifiedTime(entry).toInstant().isBefore(start)) {
+                    lines.add(OUTPUT_KEY + name);
+                }
+            }
+            Files.write(projectPath.resolve(BUILD_STAMP_FILE), lines);
+        } catch (IOException e) {
+            log.warn("Failed to record build output in {}: {}", projectPath, e.getMessage());
+        }
+    }
+
+    private static Set<String> topLevelEntries(Path projectPath) {
+        try (Stream<Path> entries = Files.list(projectPath)) {
+            return entries.map(entry -> entry.getFileName().toString()).collect(Collectors.toSet());
+        } catch (IOException e) {
+            return Set.of();
+        }
     }
 }
@@ -1,13 +1,19 @@
 package fr.imt.deployzilla.deployzilla.business.service.jobs;
 
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
+import fr.imt.deployzilla.deployzilla.business.model.WorkspaceSnapshotKey;
+import fr.imt.deployzilla.deployzilla.business.port.WorkspaceSnapshotPort;
 import fr.imt.deployzilla.deployzilla.business.service.ContainerExecutor;
 import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.ContainerLogStreamer;
+import fr.imt.deployzilla.deployzilla.infrastructure.workspace.PackageCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -21,18 +27,46 @@ public class NpmInstallService {
     private static final String CONTAINER_WORKSPACE_PATH = "/workspace";
 
     private final ContainerExecutor containerExecutor;
+    private final WorkspaceSnapshotPort workspaceSnapshotPort;
+    private final ContainerLogStreamer containerLogStreamer;
+    private final PackageCache packageCache;
 
     @Value("${deployzilla.workspace.path:/workspaces}")
     private String workspacePath;
 
-    public CompletableFuture<ProcessResult> execute(String pipelineId, String projectDir) {
-        String stepId = "npm-install";
+    /**
+     * Install dependencies, or give the workspace those of an earlier install of the same lockfile by the
+     * same image, skipping the install container.
+     *
+     * @param lockfileHash Hash of the lockfile to install from, or {@code null} if there is none (no snapshot)
+     */
+    public CompletableFuture<ProcessResult> execute(String pipelineId, String projectDir, String lockfileHash) {
+        String stepId = JobType.NPM_INSTALL.getStepId();
         String sanitizedDir = DirectorySanitizer.sanitizeDirectoryName(projectDir);
 
+        WorkspaceSnapshotKey snapshotKey = snapshotKeyOf(lockfileHash);
+        if (snapshotKey != null && workspaceSnapshotPort.restore(snapshotKey, pipelineId, projectDir)) {
+            log.info("Restored dependencies of pipeline {} from snapshot {}", pipelineId, snapshotKey.getLockfileHash());
+            containerLogStreamer.publishLog(pipelineId, stepId,
+                    "Dependencies restored from snapshot of lockfile " + snapshotKey.getLockfileHash());
+            containerLogStreamer.sealLogs(pipelineId, stepId);
+            return CompletableFuture.completedFuture(new ProcessResult(0, "SUCCESS"));
+        }
+
         String hostProjectPath = workspacePath + "/" + pipelineId + "/" + sanitizedDir;
-        List<String> volumes = List.of(
+        List<String> volumes = new ArrayList<>(List.of(
                 hostProjectPath + ":" + CONTAINER_WORKSPACE_PATH
-        );
+        ));
+        Map<String, String> envVars = Map.of();
+
+        // Shared per-host package cache, held for the whole install so pruning cannot run underneath it
+        long cacheStamp = 0;
+        if (packageCache.isEnabled()) {
+            volumes.add(packageCache.volume());
+            envVars = packageCache.environment();
+            cacheStamp = packageCache.acquire();
+        }
+        long heldStamp = cacheStamp;
 
         log.info("Running NPM Install for pipeline {} in {}", pipelineId, sanitizedDir);
 
@@ -41,7 +75,26 @@ public class NpmInstallService {
                 stepId,
                 NODE_IMAGE,
                 volumes,
-                Map.of()
-        );
+                envVars
+        ).whenComplete((result, throwable) -> {
+            if (heldStamp != 0) {
+                packageCache.release(heldStamp);
+            }
+        }).thenApply(result -> {
+            // The image may only have been pulled by this install
+            WorkspaceSnapshotKey installedKey = snapshotKey != null ? snapshotKey : snapshotKeyOf(lockfileHash);
+            if (result.getExitCode() == 0 && installedKey != null) {
+                workspaceSnapshotPort.capture(installedKey, pipelineId, projectDir);
+            }
+            return result;
+        });
+    }
+
+    private WorkspaceSnapshotKey snapshotKeyOf(String lockfileHash) {
+        if (lockfileHash == null) {
+            return null;
+        }
+        ContainerExecutor.ImageIdentity image = containerExecutor.inspectLocalImage(NODE_IMAGE);
+        return image != null ? new WorkspaceSnapshotKey(lockfileHash, image.id(), image.platform()) : null;
     }
 }
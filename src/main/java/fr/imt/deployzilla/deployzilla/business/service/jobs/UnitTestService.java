@@ -1,17 +1,45 @@
 package fr.imt.deployzilla.deployzilla.business.service.jobs;
 
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
 import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
 import fr.imt.deployzilla.deployzilla.business.service.ContainerExecutor;
 import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
+import fr.imt.deployzilla.deployzilla.business.utils.LcovMerger;
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.ContainerLogStreamer;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Project;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
+/**
+ * Pipeline step running the project's tests. Projects with {@code testShards} above one run them as
+ * that many Jest/Vitest shards ({@code --shard=i/N}) in parallel containers on the same workspace;
+ * each shard writes its coverage under {@code coverage/shard-i}, merged afterwards into the
+ * {@code coverage/lcov.info} read by the Sonar step.
+ * <p>
+ * Projects with {@code testImpactSelection} run only the tests related to the files changed since the
+ * last successful pipeline ({@code jest --findRelatedTests}, {@code vitest related}), except on the
+ * branches in {@code full-suite-branches}, when the last full run is older than
+ * {@code full-suite-interval}, when a change can affect any test (configuration, dependencies), when
+ * a changed file is neither source nor documentation (snapshots, fixtures, styles... are read by tests
+ * without being found as related), or when a changed source file was deleted or renamed (its importers
+ * cannot be found any more). Coverage of such a run only covers the selected tests.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -20,28 +48,215 @@ public class UnitTestService {
     private static final String NODE_IMAGE = "deployzilla/step:npm-test";
     private static final String CONTAINER_WORKSPACE_PATH = "/workspace";
 
+    private static final String COVERAGE_DIR = "coverage";
+    private static final String LCOV_FILE = "lcov.info";
+
+    private static final String TEST_FILES_LIST = ".deployzilla-test-files";
+    private static final Set<String> SOURCE_EXTENSIONS = Set.of(
+            "js", "jsx", "mjs", "cjs", "ts", "tsx", "mts", "cts", "vue", "svelte", "json");
+    /** Files no test reads, whose change needs no test at all. */
+    private static final Set<String> DOC_EXTENSIONS = Set.of("md", "mdx", "markdown", "txt", "rst", "adoc");
+    private static final Set<String> DOC_FILES = Set.of("LICENSE", "CODEOWNERS", ".gitignore", ".gitattributes", ".editorconfig");
+    /** Files whose change can affect any test, forcing the full suite. */
+    private static final List<String> GLOBAL_FILE_PREFIXES = List.of(
+            "package.json", "package-lock.json", "yarn.lock", "pnpm-lock.yaml", "tsconfig", "babel.config",
+            ".babelrc", "jest.config", "jest.setup", "vitest.config", "vitest.setup", "vite.config", ".env");
+
+    /** Last full run per project; after a restart the first pipeline of each project runs everything. */
+    private final Map<String, Instant> lastFullRuns = new ConcurrentHashMap<>();
+
     private final ContainerExecutor containerExecutor;
+    private final ContainerLogStreamer containerLogStreamer;
 
     @Value("${deployzilla.workspace.path:/workspaces}")
     private String workspacePath;
 
-    public CompletableFuture<ProcessResult> execute(String pipelineId, String projectDir) {
-        String stepId = "unit-test";
+    @Value("${deployzilla.workspace.local.path:/workspaces}")
+    private String workspaceLocalPath;
+
+    @Value("${deployzilla.tests.max-shards:8}")
+    private int maxShards;
+
+    @Value("${deployzilla.tests.impact.full-suite-branches:main,master}")
+    private Set<String> fullSuiteBranches;
+
+    @Value("${deployzilla.tests.impact.full-suite-interval:24h}")
+    private Duration fullSuiteInterval;
+
+    /**
+     * @param repository What the clone step found, for the changed files; {@code null} runs everything
+     */
+    public CompletableFuture<ProcessResult> execute(String pipelineId, String projectDir, Project project,
+                                                    RepositoryMetadata repository) {
+        String stepId = JobType.NPM_TEST.getStepId();
         String sanitizedDir = DirectorySanitizer.sanitizeDirectoryName(projectDir);
 
         String hostProjectPath = workspacePath + "/" + pipelineId + "/" + sanitizedDir;
         List<String> volumes = List.of(
                 hostProjectPath + ":" + CONTAINER_WORKSPACE_PATH
         );
+        Path localProjectPath = Path.of(workspaceLocalPath, pipelineId, sanitizedDir);
 
-        log.info("Running Unit Tests for pipeline {} in {}", pipelineId, sanitizedDir);
+        if (project.isTestImpactSelection()) {
+            List<String> files = testImpactFiles(project, repository, localProjectPath);
+            if (files != null) {
+                return executeSelected(pipelineId, stepId, localProjectPath, volumes, repository, files);
+            }
+            String projectId = project.getProjectId().toHexString();
+            return executeAll(pipelineId, stepId, sanitizedDir, localProjectPath, volumes, project)
+                    .whenComplete((result, throwable) -> {
+                        if (result != null && result.getExitCode() == 0) {
+                            lastFullRuns.put(projectId, Instant.now());
+                        }
+                    });
+        }
+        return executeAll(pipelineId, stepId, sanitizedDir, localProjectPath, volumes, project);
+    }
+
+    private CompletableFuture<ProcessResult> executeAll(String pipelineId, String stepId, String sanitizedDir,
+                                                        Path localProjectPath, List<String> volumes,
+                                                        Project project) {
+        int shards = Math.clamp(project.getTestShards(), 1, Math.max(1, maxShards));
+        if (shards == 1) {
+            log.info("Running Unit Tests for pipeline {} in {}", pipelineId, sanitizedDir);
+
+            return containerExecutor.executeStep(
+                    pipelineId,
+                    stepId,
+                    NODE_IMAGE,
+                    volumes,
+                    Map.of()
+            );
+        }
+
+        log.info("Running Unit Tests for pipeline {} in {} as {} shards", pipelineId, sanitizedDir, shards);
+
+        List<CompletableFuture<ProcessResult>> results = IntStream.rangeClosed(1, shards)
+                .mapToObj(shard -> containerExecutor.executeStepPart(
+                        pipelineId,
+                        stepId,
+                        NODE_IMAGE,
+                        volumes,
+                        Map.of("TEST_SHARD", String.valueOf(shard), "TEST_SHARD_COUNT", String.valueOf(shards))
+                ))
+                .toList();
+
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(done -> aggregate(pipelineId, stepId, localProjectPath, shards,
+                        results.stream().map(CompletableFuture::join).toList()))
+                .whenComplete((result, throwable) -> containerLogStreamer.sealLogs(pipelineId, stepId));
+    }
 
+    private CompletableFuture<ProcessResult> executeSelected(String pipelineId, String stepId, Path projectPath,
+                                                             List<String> volumes, RepositoryMetadata repository,
+                                                             List<String> files) {
+        if (files.isEmpty()) {
+            log.info("No source file changed in pipeline {}, skipping tests", pipelineId);
+            containerLogStreamer.publishLog(pipelineId, stepId,
+                    "No source file changed since " + repository.getBaseCommitHash() + ", skipping tests");
+            containerLogStreamer.sealLogs(pipelineId, stepId);
+            return CompletableFuture.completedFuture(new ProcessResult(0, "SUCCESS"));
+        }
+        try {
+            Files.write(projectPath.resolve(TEST_FILES_LIST), files);
+        } catch (IOException e) {
+            log.warn("Failed to write changed file list for pipeline {}, running all tests", pipelineId, e);
+            return containerExecutor.executeStep(pipelineId, stepId, NODE_IMAGE, volumes, Map.of());
+        }
+
+        log.info("Running tests related to {} changed files for pipeline {}", files.size(), pipelineId);
+        containerLogStreamer.publishLog(pipelineId, stepId, String.format(
+                "Running tests related to %d files changed since %s", files.size(), repository.getBaseCommitHash()));
         return containerExecutor.executeStep(
                 pipelineId,
                 stepId,
                 NODE_IMAGE,
                 volumes,
-                Map.of()
+                Map.of("TEST_FILES", TEST_FILES_LIST)
         );
     }
+
+    /**
+     * Changed source files, to run the related tests of.
+     *
+     * @return {@code null} when the full suite has to run
+     */
+    private List<String> testImpactFiles(Project project, RepositoryMetadata repository, Path projectPath) {
+        if (fullSuiteBranches.contains(project.getBranch())) {
+            return null;
+        }
+        Instant lastFullRun = lastFullRuns.get(project.getProjectId().toHexString());
+        if (lastFullRun == null || lastFullRun.plus(fullSuiteInterval).isBefore(Instant.now())) {
+            return null;
+        }
+        if (repository == null || repository.getChangedFiles() == null) {
+            return null;
+        }
+        boolean globalChange = repository.getChangedFiles().stream()
+                .map(file -> file.substring(file.lastIndexOf('/') + 1))
+                .anyMatch(name -> GLOBAL_FILE_PREFIXES.stream().anyMatch(name::startsWith));
+        if (globalChange) {
+            return null;
+        }
+        // Related tests are only found through imports of sources
+        boolean otherChange = repository.getChangedFiles().stream()
+                .anyMatch(file -> !SOURCE_EXTENSIONS.contains(extensionOf(file)) && !isDocumentation(file));
+        if (otherChange) {
+            return null;
+        }
+        List<String> sources = repository.getChangedFiles().stream()
+                .filter(file -> SOURCE_EXTENSIONS.contains(extensionOf(file)))
+                .toList();
+        // Tests importing a deleted or renamed file are not related to anything that still exists
+        if (sources.stream().anyMatch(file -> !Files.isRegularFile(projectPath.resolve(file)))) {
+            return null;
+        }
+        return sources;
+    }
+
+    private static boolean isDocumentation(String file) {
+        String name = file.substring(file.lastIndexOf('/') + 1);
+        return DOC_EXTENSIONS.contains(extensionOf(file)) || DOC_FILES.contains(name);
+    }
+
+    private static String extensionOf(String file) {
+        String name = file.substring(file.lastIndexOf('/') + 1);
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private ProcessResult aggregate(String pipelineId, String stepId, Path projectPath, int shards,
+                                    List<ProcessResult> results) {
+        int failed = (int) results.stream().filter(result -> result.getExitCode() != 0).count();
+        containerLogStreamer.publishLog(pipelineId, stepId,
+                String.format("--- %d/%d test shards passed ---", shards - failed, shards));
+
+        mergeCoverage(pipelineId, stepId, projectPath, shards);
+
+        int exitCode = results.stream()
+                .mapToInt(ProcessResult::getExitCode)
+                .filter(code -> code != 0)
+                .findFirst()
+                .orElse(0);
+        StringBuilder output = new StringBuilder();
+        results.forEach(result -> output.append(result.getOutput()));
+        return new ProcessResult(exitCode, output.toString());
+    }
+
+    private void mergeCoverage(String pipelineId, String stepId, Path projectPath, int shards) {
+        List<Path> reports = IntStream.rangeClosed(1, shards)
+                .mapToObj(shard -> projectPath.resolve(COVERAGE_DIR).resolve("shard-" + shard).resolve(LCOV_FILE))
+                .filter(Files::isRegularFile)
+                .toList();
+        if (reports.isEmpty()) {
+            return;
+        }
+        try {
+            int files = LcovMerger.merge(reports, projectPath.resolve(COVERAGE_DIR).resolve(LCOV_FILE));
+            containerLogStreamer.publishLog(pipelineId, stepId,
+                    String.format("Merged coverage of %d shards (%d source files)", reports.size(), files));
+        } catch (IOException e) {
+            log.warn("Failed to merge coverage for pipeline {}: {}", pipelineId, e.getMessage());
+            containerLogStreamer.publishLog(pipelineId, stepId, "WARNING: failed to merge coverage: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package fr.imt.deployzilla.deployzilla.business.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Merges LCOV reports of the same sources, as written by test shards: hit counts are summed per
+ * line, function and branch, and the totals recomputed, so a line covered by any shard is covered.
+ */
+public final class LcovMerger {
+
+    private LcovMerger() {
+    }
+
+    /**
+     * @return the number of source files in the merged report
+     */
+    public static int merge(List<Path> reports, Path output) throws IOException {
+        Map<String, SourceFile> files = new LinkedHashMap<>();
+        for (Path report : reports) {
+            read(report, files);
+        }
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            for (SourceFile file : files.values()) {
+                file.write(writer);
+            }
+        }
+        return files.size();
+    }
+
+    private static void read(Path report, Map<String, SourceFile> files) throws IOException {
+        SourceFile current = null;
+        for (String line : Files.readAllLines(report)) {
+            int colon = line.indexOf(':');
+            String tag = colon < 0 ? line.trim() : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            switch (tag) {
+                case "SF" -> current = files.computeIfAbsent(value, SourceFile::new);
+                case "end_of_record" -> current = null;
+                default -> {
+                    if (current != null) {
+                        current.add(tag, value);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class SourceFile {
+        private final String path;
+        private final Map<String, Integer> functionLines = new LinkedHashMap<>();
+        private final Map<String, Long> functionHits = new LinkedHashMap<>();
+        private final Map<Integer, Long> lineHits = new TreeMap<>();
+        /** By {@code line,block,branch}; {@code null} while no shard evaluated the branch ({@code -}). */
+        private final Map<String, Long> branchHits = new LinkedHashMap<>();
+
+        SourceFile(String path) {
+            this.path = path;
+        }
+
+        void add(String tag, String value) {
+            String[] fields = value.split(",");
+            try {
+                switch (tag) {
+                    case "FN" -> functionLines.putIfAbsent(value.substring(value.indexOf(',') + 1),
+                            Integer.parseInt(fields[0]));
+                    case "FNDA" -> functionHits.merge(value.substring(value.indexOf(',') + 1),
+                            Long.parseLong(fields[0]), Long::sum);
+                    case "DA" -> lineHits.merge(Integer.parseInt(fields[0]), Long.parseLong(fields[1]), Long::sum);
+                    case "BRDA" -> {
+                        if (fields.length == 4) {
+                            String key = fields[0] + "," + fields[1] + "," + fields[2];
+                            if (fields[3].equals("-")) {
+                                branchHits.putIfAbsent(key, null);
+                            } else {
+                                // merge() treats a null value as absent
+                                branchHits.merge(key, Long.parseLong(fields[3]), Long::sum);
+                            }
+                        }
+                    }
+                    default -> {
+                        // TN and the FNF/FNH/LF/LH/BRF/BRH totals, recomputed on write
+                    }
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException ignored) {
+                // Malformed record: skip it rather than the whole report
+            }
+        }
+
+        void write(BufferedWriter writer) throws IOException {
+            writer.write("TN:\n");
+            writer.write("SF:" + path + "\n");
+            for (Map.Entry<String, Integer> function : functionLines.entrySet()) {
+                writer.write("FN:" + function.getValue() + "," + function.getKey() + "\n");
+            }
+            for (Map.Entry<String, Long> function : functionHits.entrySet()) {
+                writer.write("FNDA:" + function.getValue() + "," + function.getKey() + "\n");
+            }
+            writer.write("FNF:" + functionLines.size() + "\n");
+            writer.write("FNH:" + functionHits.values().stream().filter(hits -> hits > 0).count() + "\n");
+            for (Map.Entry<String, Long> branch : branchHits.entrySet()) {
+                writer.write("BRDA:" + branch.getKey() + ","
+                        + (branch.getValue() == null ? "-" : branch.getValue()) + "\n");
+            }
+            writer.write("BRF:" + branchHits.size() + "\n");
+            writer.write("BRH:" + branchHits.values().stream().filter(hits -> hits != null && hits > 0).count() + "\n");
+            for (Map.Entry<Integer, Long> line : lineHits.entrySet()) {
+                writer.write("DA:" + line.getKey() + "," + line.getValue() + "\n");
+            }
+            writer.write("LF:" + lineHits.size() + "\n");
+            writer.write("LH:" + lineHits.values().stream().filter(hits -> hits > 0).count() + "\n");
+            writer.write("end_of_record\n");
+        }
+    }
+}
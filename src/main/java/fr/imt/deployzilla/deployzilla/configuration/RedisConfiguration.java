@@ -1,37 +1,50 @@
 package fr.imt.deployzilla.deployzilla.configuration;
 
-import fr.imt.deployzilla.deployzilla.infrastructure.websocket.RedisPipelineStatusSubscriber;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.PipelineTopic;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
-import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
 
 @Configuration
 public class RedisConfiguration {
 
     public static final String LOGS_TOPIC = "pipeline-logs";
     public static final String PIPELINE_STATUS_TOPIC = "pipeline-status";
+    public static final String CACHE_INVALIDATION_TOPIC = "cache-invalidation";
+    public static final String INTEREST_TOPIC = "pipeline-interest";
+
+    public static final String LOG_MODE_STREAM = "stream";
+    public static final String LOG_STREAM_MESSAGE_FIELD = "msg";
+    public static final String LOG_STREAM_STEP_FIELD = "step";
+    public static final String LOG_STREAM_STREAM_FIELD = "stream";
+    public static final String LOG_STREAM_SEQUENCE_FIELD = "seq";
+    public static final String LOG_STREAM_TIMESTAMP_FIELD = "ts";
+
+    public static String logStreamKey(String pipelineId) {
+        return LOGS_TOPIC + ":" + pipelineId;
+    }
+
+    public static String pipelineStateKey(String pipelineId) {
+        return "pipeline-state:" + pipelineId;
+    }
+
+    /**
+     * Pub/sub channel carrying one pipeline's events between nodes.
+     */
+    public static String channel(PipelineTopic topic, String pipelineId) {
+        return (topic == PipelineTopic.LOGS ? LOGS_TOPIC : PIPELINE_STATUS_TOPIC) + "." + pipelineId;
+    }
 
     @Bean
-    RedisMessageListenerContainer container(RedisConnectionFactory connectionFactory,
-                                            MessageListenerAdapter logListenerAdapter,
-                                            MessageListenerAdapter statusListenerAdapter) {
+    RedisMessageListenerContainer container(RedisConnectionFactory connectionFactory) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
-        // Subscribe to topics
-        container.addMessageListener(logListenerAdapter, new ChannelTopic(LOGS_TOPIC));
-        container.addMessageListener(statusListenerAdapter, new ChannelTopic(PIPELINE_STATUS_TOPIC));
+        // Per-pipeline channels are subscribed on demand by RedisEventRelay
         return container;
     }
 
-    @Bean
-    MessageListenerAdapter statusListenerAdapter(RedisPipelineStatusSubscriber subscriber) {
-        return new MessageListenerAdapter(subscriber, "onMessage");
-    }
-
     @Bean
     StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
         return new StringRedisTemplate(connectionFactory);
@@ -1,15 +1,50 @@
 package fr.imt.deployzilla.deployzilla.configuration;
 
+import fr.imt.deployzilla.deployzilla.infrastructure.websocket.LogBackpressureInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer {
 
+    private final LogBackpressureInterceptor logBackpressureInterceptor;
+
+    @Value("${deployzilla.websocket.inbound-channel.core-pool-size:4}")
+    private int inboundCorePoolSize;
+
+    @Value("${deployzilla.websocket.inbound-channel.max-pool-size:8}")
+    private int inboundMaxPoolSize;
+
+    @Value("${deployzilla.websocket.outbound-channel.core-pool-size:16}")
+    private int outboundCorePoolSize;
+
+    @Value("${deployzilla.websocket.outbound-channel.max-pool-size:64}")
+    private int outboundMaxPoolSize;
+
+    @Value("${deployzilla.websocket.outbound-channel.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${deployzilla.websocket.broker-channel.core-pool-size:4}")
+    private int brokerCorePoolSize;
+
+    @Value("${deployzilla.websocket.broker-channel.max-pool-size:8}")
+    private int brokerMaxPoolSize;
+
+    @Value("${deployzilla.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Value("${deployzilla.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // 1. For Postman / External Tools (Raw WebSockets)
@@ -23,6 +58,33 @@ public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.enableSimpleBroker("/topic");
         registry.setApplicationDestinationPrefixes("/app");
+        registry.configureBrokerChannel().taskExecutor()
+                .corePoolSize(brokerCorePoolSize)
+                .maxPoolSize(brokerMaxPoolSize);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Bounded queue so a burst shows up in executor.queued metrics instead of growing the heap silently
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+        registration.interceptors(logBackpressureInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A session that cannot take a frame within these limits is closed rather than left to stall its thread
+        registration.setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+package fr.imt.deployzilla.deployzilla.exception;
+
+/**
+ * Exception thrown when a requested pipeline is not found.
+ */
+public class PipelineNotFoundException extends DeployzillaException {
+
+    private static final String ERROR_CODE = "NOT_FOUND";
+
+    public PipelineNotFoundException(String pipelineId) {
+        super(ERROR_CODE, "Pipeline not found: " + pipelineId);
+    }
+}
@@ -0,0 +1,89 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.analytics;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.business.model.StepDurationStats;
+import fr.imt.deployzilla.deployzilla.business.port.StepDurationStatsPort;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory HdrHistograms of step durations per (project, job type), sliced by end time
+ * ({@code deployzilla.analytics.step-durations.slice}) so windows slide by whole slices.
+ */
+@Component
+public class HdrStepDurationStats implements StepDurationStatsPort {
+
+    private static final long HIGHEST_TRACKABLE_MILLIS = Duration.ofDays(1).toMillis();
+
+    private final Map<Key, SlicedHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Value("${deployzilla.analytics.step-durations.slice:1h}")
+    private Duration slice;
+
+    @Value("${deployzilla.analytics.step-durations.max-window:7d}")
+    private Duration maxWindow;
+
+    @Value("${deployzilla.analytics.step-durations.significant-digits:2}")
+    private int significantDigits;
+
+    @Override
+    public void record(String projectId, JobType jobType, Duration duration, Instant endedAt) {
+        if (endedAt.isBefore(Instant.now().minus(maxWindow))) {
+            return;
+        }
+        // Recorded inside compute so prune() cannot drop the histogram in between
+        histograms.compute(new Key(projectId, jobType), (key, histogram) -> {
+            SlicedHistogram target = histogram != null
+                    ? histogram
+                    : new SlicedHistogram(slice.toMillis(), HIGHEST_TRACKABLE_MILLIS, significantDigits);
+            target.record(endedAt.toEpochMilli(), duration.toMillis());
+            return target;
+        });
+    }
+
+    @Override
+    public List<StepDurationStats> query(String projectId, JobType jobType, Duration window) {
+        long from = System.currentTimeMillis() - window.toMillis();
+
+        Map<JobType, Histogram> merged = new LinkedHashMap<>();
+        histograms.forEach((key, histogram) -> {
+            if ((projectId == null || projectId.equals(key.projectId()))
+                    && (jobType == null || jobType == key.jobType())) {
+                histogram.addTo(merged.computeIfAbsent(key.jobType(),
+                        type -> new Histogram(HIGHEST_TRACKABLE_MILLIS, significantDigits)), from);
+            }
+        });
+
+        List<StepDurationStats> stats = new ArrayList<>();
+        merged.forEach((type, histogram) -> {
+            if (histogram.getTotalCount() > 0) {
+                stats.add(new StepDurationStats(projectId, type, histogram.getTotalCount(),
+                        histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(95),
+                        histogram.getValueAtPercentile(99), histogram.getMaxValue()));
+            }
+        });
+        stats.sort(Comparator.comparing(StepDurationStats::getJobType));
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${deployzilla.analytics.step-durations.prune-interval-ms:600000}")
+    public void prune() {
+        long before = System.currentTimeMillis() - maxWindow.toMillis();
+        histograms.keySet().forEach(key ->
+                histograms.computeIfPresent(key, (k, histogram) -> histogram.prune(before) ? null : histogram));
+    }
+
+    private record Key(String projectId, JobType jobType) {
+    }
+}
@@ -0,0 +1,50 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.analytics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Durations of one (project, job type) split into fixed time slices, so any window that is a whole
+ * number of slices can be answered by adding up the slices it covers. Slices are allocated on first use.
+ */
+class SlicedHistogram {
+
+    private final long sliceMillis;
+    private final long highestTrackableMillis;
+    private final int significantDigits;
+    private final TreeMap<Long, Histogram> slices = new TreeMap<>();
+
+    SlicedHistogram(long sliceMillis, long highestTrackableMillis, int significantDigits) {
+        this.sliceMillis = sliceMillis;
+        this.highestTrackableMillis = highestTrackableMillis;
+        this.significantDigits = significantDigits;
+    }
+
+    synchronized void record(long endedAtMillis, long durationMillis) {
+        slices.computeIfAbsent(endedAtMillis / sliceMillis,
+                        slice -> new Histogram(highestTrackableMillis, significantDigits))
+                .recordValue(Math.clamp(durationMillis, 0, highestTrackableMillis));
+    }
+
+    /**
+     * Add every slice overlapping {@code [fromMillis, now]} to {@code target}.
+     */
+    synchronized void addTo(Histogram target, long fromMillis) {
+        for (Histogram slice : slices.tailMap(fromMillis / sliceMillis, true).values()) {
+            target.add(slice);
+        }
+    }
+
+    /**
+     * Drop slices that ended before {@code beforeMillis}.
+     *
+     * @return whether nothing is left
+     */
+    synchronized boolean prune(long beforeMillis) {
+        Map<Long, Histogram> expired = slices.headMap(beforeMillis / sliceMillis);
+        expired.clear();
+        return slices.isEmpty();
+    }
+}
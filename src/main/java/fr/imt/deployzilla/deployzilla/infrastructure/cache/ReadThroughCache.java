@@ -0,0 +1,143 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded LRU cache with a time-to-live, filled on read from a loader. Absent values are not cached.
+ * Values go in and come out through {@code copier}, so callers get their own instance to modify and
+ * the cached one only changes through {@link #update}. A loaded value is not cached if the key was
+ * written or invalidated while it was loading, as it may predate that change.
+ * Hits, misses and evictions are exposed as {@code deployzilla.cache.*} meters tagged with the cache name.
+ */
+public class ReadThroughCache<K, V> {
+
+    private final long ttlMillis;
+    private final UnaryOperator<V> copier;
+    private final Map<K, Entry<V>> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    /** Loads in flight per key, and when each such key last changed; guarded by {@code entries}. */
+    private final Map<K, Integer> loading = new HashMap<>();
+    private final Map<K, Long> changedAt = new HashMap<>();
+    private long clock;
+
+    /**
+     * @param copier Deep copy of a value; {@link UnaryOperator#identity()} only for values nobody modifies
+     */
+    public ReadThroughCache(String name, int maxSize, Duration ttl, UnaryOperator<V> copier,
+                            MeterRegistry meterRegistry) {
+        this.ttlMillis = ttl.toMillis();
+        this.copier = copier;
+        this.hits = Counter.builder("deployzilla.cache.gets").tag("cache", name).tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("deployzilla.cache.gets").tag("cache", name).tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("deployzilla.cache.evictions").tag("cache", name)
+                .register(meterRegistry);
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean evict = size() > maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        });
+        Gauge.builder("deployzilla.cache.size", entries, Map::size).tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        // Copied under the lock, as update() may be modifying the cached value
+        Optional<V> cached;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            cached = entry != null && entry.expiresAt() > System.currentTimeMillis()
+                    ? Optional.of(copier.apply(entry.value()))
+                    : Optional.empty();
+        }
+        if (cached.isPresent()) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        long loadStart;
+        synchronized (entries) {
+            loadStart = ++clock;
+            loading.merge(key, 1, Integer::sum);
+        }
+        // Loaded outside the lock: two concurrent misses may both load, the last one wins
+        Optional<V> loaded = Optional.empty();
+        try {
+            loaded = loader.apply(key);
+        } finally {
+            synchronized (entries) {
+                Long changed = changedAt.get(key);
+                if (loading.merge(key, -1, Integer::sum) == 0) {
+                    loading.remove(key);
+                    changedAt.remove(key);
+                }
+                if (changed == null || changed < loadStart) {
+                    loaded.ifPresentOrElse(value -> store(key, value), () -> entries.remove(key));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            markChanged(key);
+            store(key, value);
+        }
+    }
+
+    /**
+     * Apply a change to the cached value, if any, so it matches what was just written.
+     */
+    public void update(K key, Consumer<V> change) {
+        synchronized (entries) {
+            markChanged(key);
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                change.accept(entry.value());
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            markChanged(key);
+            entries.remove(key);
+        }
+    }
+
+    private void store(K key, V value) {
+        entries.put(key, new Entry<>(copier.apply(value), System.currentTimeMillis() + ttlMillis));
+    }
+
+    private void markChanged(K key) {
+        if (loading.containsKey(key)) {
+            changedAt.put(key, ++clock);
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
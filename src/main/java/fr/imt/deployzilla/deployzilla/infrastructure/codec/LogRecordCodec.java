@@ -0,0 +1,189 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.codec;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogRecord;
+import fr.imt.deployzilla.deployzilla.business.model.LogStream;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static fr.imt.deployzilla.deployzilla.infrastructure.codec.VarInts.readVarLong;
+import static fr.imt.deployzilla.deployzilla.infrastructure.codec.VarInts.writeVarLong;
+
+/**
+ * Wire encodings of {@link LogRecord}, shared by the Redis and WebSocket transports.
+ * <p>
+ * The binary form is self-delimiting, so a batch is just concatenated records:
+ * <pre>
+ * u8 magic 0xD7 | u8 version | u8 stream | varlong sequence | varlong epochSecond | varint nano
+ * | str pipelineId | str stepId | str payload          (str = varint length + UTF-8, empty stepId = none)
+ * </pre>
+ * The JSON form is one object per record; batches are newline-delimited.
+ */
+@Component
+@RequiredArgsConstructor
+public class LogRecordCodec {
+
+    private static final byte MAGIC = (byte) 0xD7;
+    private static final byte VERSION = 1;
+
+    private final JsonMapper jsonMapper;
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Format {
+        BINARY(MimeTypeUtils.APPLICATION_OCTET_STREAM),
+        JSON(MimeTypeUtils.APPLICATION_JSON);
+
+        private final MimeType mimeType;
+
+        /**
+         * @return the format carried under this content type, or {@code null} for anything else
+         */
+        public static Format of(MimeType contentType) {
+            for (Format format : values()) {
+                if (contentType != null && format.mimeType.isCompatibleWith(contentType)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    public byte[] encode(LogRecord record, Format format) {
+        return format == Format.BINARY ? encodeBinary(record) : encodeJson(record);
+    }
+
+    /**
+     * Decode a single record in either format. Plain {@code pipelineId|message} strings from older
+     * publishers are accepted as system lines without sequence.
+     */
+    public LogRecord decode(byte[] bytes) {
+        if (bytes.length > 0 && bytes[0] == MAGIC) {
+            return decodeBinary(ByteBuffer.wrap(bytes));
+        }
+        if (bytes.length > 0 && bytes[0] == '{') {
+            return jsonMapper.readValue(bytes, JsonLogRecord.class).toRecord();
+        }
+        String legacy = new String(bytes, StandardCharsets.UTF_8);
+        int separator = legacy.indexOf('|');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Unrecognised log record encoding");
+        }
+        return LogRecord.builder()
+                .pipelineId(legacy.substring(0, separator))
+                .stream(LogStream.SYSTEM)
+                .sequence(-1)
+                .timestamp(Instant.now())
+                .payload(legacy.substring(separator + 1))
+                .build();
+    }
+
+    /**
+     * Detect the format of an encoded record, as produced by {@link #encode}.
+     */
+    public Format formatOf(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == MAGIC ? Format.BINARY
+                : bytes.length > 0 && bytes[0] == '{' ? Format.JSON
+                : null;
+    }
+
+    private byte[] encodeBinary(LogRecord record) {
+        byte[] pipelineId = utf8(record.getPipelineId());
+        byte[] stepId = utf8(record.getStepId());
+        byte[] payload = utf8(record.getPayload());
+        Instant timestamp = record.getTimestamp() != null ? record.getTimestamp() : Instant.EPOCH;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + pipelineId.length + stepId.length + payload.length);
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(record.getStream().ordinal());
+        writeVarLong(out, zigZag(record.getSequence()));
+        writeVarLong(out, zigZag(timestamp.getEpochSecond()));
+        writeVarLong(out, timestamp.getNano());
+        writeBytes(out, pipelineId);
+        writeBytes(out, stepId);
+        writeBytes(out, payload);
+        return out.toByteArray();
+    }
+
+    private LogRecord decodeBinary(ByteBuffer in) {
+        in.get();
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported log record version " + version);
+        }
+        LogStream stream = LogStream.values()[in.get()];
+        long sequence = unZigZag(readVarLong(in));
+        long epochSecond = unZigZag(readVarLong(in));
+        int nano = (int) readVarLong(in);
+        String pipelineId = readString(in);
+        String stepId = readString(in);
+        return LogRecord.builder()
+                .pipelineId(pipelineId)
+                .stepId(stepId.isEmpty() ? null : stepId)
+                .stream(stream)
+                .sequence(sequence)
+                .timestamp(Instant.ofEpochSecond(epochSecond, nano))
+                .payload(readString(in))
+                .build();
+    }
+
+    private byte[] encodeJson(LogRecord record) {
+        return jsonMapper.writeValueAsBytes(JsonLogRecord.of(record));
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        writeVarLong(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * JSON shape with short field names; {@code ts} is in epoch microseconds so it stays exact in JavaScript.
+     */
+    record JsonLogRecord(String pipelineId, String stepId, LogStream stream, long seq, long ts, String msg) {
+
+        static JsonLogRecord of(LogRecord record) {
+            Instant timestamp = record.getTimestamp() != null ? record.getTimestamp() : Instant.EPOCH;
+            long micros = Math.addExact(Math.multiplyExact(timestamp.getEpochSecond(), 1_000_000L), timestamp.getNano() / 1_000);
+            return new JsonLogRecord(record.getPipelineId(), record.getStepId(), record.getStream(),
+                    record.getSequence(), micros, record.getPayload());
+        }
+
+        LogRecord toRecord() {
+            return LogRecord.builder()
+                    .pipelineId(pipelineId)
+                    .stepId(stepId)
+                    .stream(stream != null ? stream : LogStream.SYSTEM)
+                    .sequence(seq)
+                    .timestamp(Instant.ofEpochSecond(Math.floorDiv(ts, 1_000_000L), Math.floorMod(ts, 1_000_000L) * 1_000))
+                    .payload(msg)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.codec;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobProgress;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineStatusUpdate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fr.imt.deployzilla.deployzilla.infrastructure.codec.VarInts.readVarLong;
+import static fr.imt.deployzilla.deployzilla.infrastructure.codec.VarInts.writeVarLong;
+
+/**
+ * Compact binary encoding of {@link PipelineStatusUpdate} for the Redis status topic:
+ * <pre>
+ * u8 magic 0xD8 | u8 version | varlong timestamp | str pipelineId | str status | str currentStep
+ * | varint jobCount | per job: str jobId | str jobType | str status | varlong startedAt+1 | varlong endedAt+1
+ * </pre>
+ * Strings are varint length + UTF-8 (empty = none); times are epoch milliseconds, 0 meaning none.
+ */
+@Component
+public class PipelineStatusCodec {
+
+    private static final byte MAGIC = (byte) 0xD8;
+    private static final byte VERSION = 1;
+
+    public byte[] encode(PipelineStatusUpdate update) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarLong(out, update.getTimestamp());
+        writeString(out, update.getPipelineId());
+        writeString(out, update.getStatus());
+        writeString(out, update.getCurrentStep());
+
+        List<JobProgress> jobs = update.getJobs() != null ? update.getJobs() : List.of();
+        writeVarLong(out, jobs.size());
+        for (JobProgress job : jobs) {
+            writeString(out, job.getJobId());
+            writeString(out, job.getJobType());
+            writeString(out, job.getStatus());
+            writeVarLong(out, job.getStartedAt() != null ? job.getStartedAt() + 1 : 0);
+            writeVarLong(out, job.getEndedAt() != null ? job.getEndedAt() + 1 : 0);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode an update; plain {@code pipelineId|status|currentStep} strings from older publishers are accepted.
+     */
+    public PipelineStatusUpdate decode(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != MAGIC) {
+            return decodeLegacy(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        in.get();
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported status update version " + version);
+        }
+        long timestamp = readVarLong(in);
+        String pipelineId = readString(in);
+        String status = readString(in);
+        String currentStep = readString(in);
+
+        int jobCount = (int) readVarLong(in);
+        List<JobProgress> jobs = new ArrayList<>(jobCount);
+        for (int i = 0; i < jobCount; i++) {
+            jobs.add(JobProgress.builder()
+                    .jobId(readString(in))
+                    .jobType(readString(in))
+                    .status(readString(in))
+                    .startedAt(readOptionalTime(in))
+                    .endedAt(readOptionalTime(in))
+                    .build());
+        }
+
+        return PipelineStatusUpdate.builder()
+                .pipelineId(pipelineId)
+                .status(status)
+                .currentStep(currentStep)
+                .jobs(jobs)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private static PipelineStatusUpdate decodeLegacy(String message) {
+        String[] parts = message.split("\\|");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Unrecognised status update encoding");
+        }
+        return PipelineStatusUpdate.builder()
+                .pipelineId(parts[0])
+                .status(parts[1])
+                .currentStep(parts.length > 2 && !parts[2].isEmpty() ? parts[2] : null)
+                .jobs(List.of())
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
+    private static Long readOptionalTime(ByteBuffer in) {
+        long value = readVarLong(in);
+        return value == 0 ? null : value - 1;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        writeVarLong(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.get(bytes);
+        return bytes.length == 0 ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
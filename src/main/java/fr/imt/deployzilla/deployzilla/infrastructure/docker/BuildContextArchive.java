@@ -0,0 +1,235 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.docker;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Docker build context of a workspace, tarred on the fly into a pipe read by the build request, so the
+ * context is never copied to disk. {@code .dockerignore} is honoured and dependencies are never sent,
+ * as the Dockerfile installs its own.
+ */
+@Slf4j
+final class BuildContextArchive {
+
+    private static final String DOCKERIGNORE = ".dockerignore";
+    private static final Set<String> ALWAYS_EXCLUDED = Set.of("node_modules", ".eslintcache");
+    /** Files the pipeline steps write into the workspace, e.g. the lint and test file lists. */
+    private static final String PIPELINE_FILE_PREFIX = ".deployzilla-";
+    private static final int PIPE_BUFFER_SIZE = 1 << 16;
+
+    private BuildContextArchive() {
+    }
+
+    /**
+     * Start streaming the context of {@code root}, plus a generated Dockerfile under
+     * {@code dockerfileName}. {@code keptPaths} (relative to the root) are sent even if
+     * {@code .dockerignore} excludes them, as for build output the image packages. A failure while reading the workspace surfaces as an
+     * {@link IOException} on the returned stream, failing the build rather than sending a partial context.
+     */
+    static InputStream open(Path root, String dockerfileName, String dockerfileContent, Set<String> keptPaths)
+            throws IOException {
+        DockerIgnore ignore = DockerIgnore.read(root.resolve(DOCKERIGNORE), keptPaths);
+        PipedInputStream in = new PipedInputStream(PIPE_BUFFER_SIZE);
+        PipedOutputStream pipe = new PipedOutputStream(in);
+
+        Thread.ofVirtual().name("build-context-" + root.getFileName()).start(() -> {
+            TarArchiveOutputStream tar = new TarArchiveOutputStream(new BufferedOutputStream(pipe, PIPE_BUFFER_SIZE));
+            try {
+                tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+                tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+                writeWorkspace(root, ignore, dockerfileName, tar);
+
+                byte[] dockerfile = dockerfileContent.getBytes(StandardCharsets.UTF_8);
+                TarArchiveEntry entry = new TarArchiveEntry(dockerfileName);
+                entry.setSize(dockerfile.length);
+                tar.putArchiveEntry(entry);
+                tar.write(dockerfile);
+                tar.closeArchiveEntry();
+                tar.close();
+            } catch (IOException | RuntimeException e) {
+                // Not closing the pipe: the reader then fails once this thread is gone, instead of
+                // seeing a clean end of a truncated archive
+                log.warn("Failed to stream build context of {}: {}", root, e.getMessage());
+            }
+        });
+        return in;
+    }
+
+    private static void writeWorkspace(Path root, DockerIgnore ignore, String dockerfileName,
+                                       TarArchiveOutputStream tar) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (dir.equals(root)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String name = contextPath(root, dir);
+                if (isAlwaysExcluded(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (ignore.excludes(name)) {
+                    // A later '!' pattern may still bring back something below
+                    return ignore.hasExceptions() ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+                }
+                TarArchiveEntry entry = new TarArchiveEntry(dir.toFile(), name);
+                tar.putArchiveEntry(entry);
+                tar.closeArchiveEntry();
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String name = contextPath(root, file);
+                if (isAlwaysExcluded(file) || ignore.excludes(name) || name.equals(dockerfileName)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (attrs.isSymbolicLink()) {
+                    TarArchiveEntry entry = new TarArchiveEntry(name, TarConstants.LF_SYMLINK);
+                    entry.setLinkName(Files.readSymbolicLink(file).toString());
+                    tar.putArchiveEntry(entry);
+                    tar.closeArchiveEntry();
+                } else if (attrs.isRegularFile()) {
+                    TarArchiveEntry entry = new TarArchiveEntry(file.toFile(), name);
+                    if (Files.getPosixFilePermissions(file).contains(PosixFilePermission.OWNER_EXECUTE)) {
+                        entry.setMode(0100755);
+                    }
+                    tar.putArchiveEntry(entry);
+                    Files.copy(file, tar);
+                    tar.closeArchiveEntry();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static boolean isAlwaysExcluded(Path path) {
+        String name = path.getFileName().toString();
+        return ALWAYS_EXCLUDED.contains(name) || name.startsWith(PIPELINE_FILE_PREFIX);
+    }
+
+    private static String contextPath(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    /**
+     * {@code .dockerignore} rules: {@code *}, {@code ?} and {@code **} globs on paths relative to the
+     * context root, a match on a directory excluding everything below, and {@code !} re-including;
+     * the last matching rule wins.
+     */
+    record DockerIgnore(List<Rule> rules) {
+
+        static DockerIgnore read(Path file, Set<String> keptPaths) throws IOException {
+            List<Rule> rules = new ArrayList<>();
+            if (Files.isRegularFile(file)) {
+                for (String line : Files.readAllLines(file)) {
+                    String pattern = line.trim();
+                    if (pattern.isEmpty() || pattern.startsWith("#")) {
+                        continue;
+                    }
+                    boolean exception = pattern.startsWith("!");
+                    if (exception) {
+                        pattern = pattern.substring(1).trim();
+                    }
+                    pattern = Path.of("/" + pattern).normalize().toString().substring(1);
+                    if (!pattern.isEmpty()) {
+                        rules.add(new Rule(toRegex(pattern), exception));
+                    }
+                }
+            }
+            // Last, so they win over everything above
+            for (String kept : keptPaths) {
+                rules.add(new Rule(Pattern.compile(Pattern.quote(kept)), true));
+            }
+            return new DockerIgnore(rules);
+        }
+
+        boolean hasExceptions() {
+            return rules.stream().anyMatch(Rule::exception);
+        }
+
+        boolean excludes(String path) {
+            boolean excluded = false;
+            for (Rule rule : rules) {
+                if (matchesOrParentMatches(rule.pattern(), path)) {
+                    excluded = !rule.exception();
+                }
+            }
+            return excluded;
+        }
+
+        private static boolean matchesOrParentMatches(Pattern pattern, String path) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+            for (int slash = path.indexOf('/'); slash > 0; slash = path.indexOf('/', slash + 1)) {
+                if (pattern.matcher(path.substring(0, slash)).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static Pattern toRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                switch (c) {
+                    case '*' -> {
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                            i++;
+                            // "**/" also matches no directory at all
+                            if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                                i++;
+                                regex.append("(?:.*/)?");
+                            } else {
+                                regex.append(".*");
+                            }
+                        } else {
+                            regex.append("[^/]*");
+                        }
+                    }
+                    case '?' -> regex.append("[^/]");
+                    case '[' -> {
+                        int end = glob.indexOf(']', i + 1);
+                        if (end < 0) {
+                            regex.append("\\[");
+                        } else {
+                            String set = glob.substring(i + 1, end).replace("\\", "\\\\");
+                            regex.append('[').append(set).append(']');
+                            i = end;
+                        }
+                    }
+                    case '\\' -> {
+                        if (i + 1 < glob.length()) {
+                            regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                        }
+                    }
+                    default -> regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            return Pattern.compile(regex.toString());
+        }
+    }
+
+    private record Rule(Pattern pattern, boolean exception) {
+    }
+}
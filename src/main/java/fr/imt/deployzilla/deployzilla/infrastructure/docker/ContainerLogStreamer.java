@@ -4,45 +4,79 @@ import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.model.Frame;
 import com.github.dockerjava.api.model.StreamType;
+import fr.imt.deployzilla.deployzilla.business.model.LogRecord;
+import fr.imt.deployzilla.deployzilla.business.model.LogStream;
+import fr.imt.deployzilla.deployzilla.business.port.LogSearchIndexPort;
 import fr.imt.deployzilla.deployzilla.business.port.ProcessLogPublisherPort;
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogStorePort;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ContainerLogStreamer {
 
+    private static final int SEQUENCE_CACHE_SIZE = 10_000;
+
     private final ProcessLogPublisherPort logPublisher;
+    private final ProcessLogStorePort logStore;
+    private final LogSearchIndexPort logSearchIndex;
 
     @Value("${docker.timeout.seconds:600}")
     private int timeoutSeconds;
 
+    /**
+     * Next sequence number per running pipeline, removed when it ends. The size bound is only a safety
+     * net for pipelines that never report their end.
+     */
+    private final Map<String, AtomicLong> sequences = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AtomicLong> eldest) {
+                    return size() > SEQUENCE_CACHE_SIZE;
+                }
+            });
+
+    /**
+     * Sequences of pipelines whose application logs are still monitored, which outlive the pipeline:
+     * kept until the last monitor stops, so its lines never restart at 0.
+     */
+    private final Map<String, MonitoredSequence> monitoredSequences = new ConcurrentHashMap<>();
+
     /**
      * Stream container logs synchronously, capturing output.
      */
-    public void streamLogs(DockerClient client, String pipelineId,
+    public void streamLogs(DockerClient client, String pipelineId, String stepId,
                            String containerId, StringBuilder outputBuffer) {
         try {
             client.logContainerCmd(containerId)
                     .withStdOut(true)
                     .withStdErr(true)
                     .withFollowStream(true)
+                    .withTimestamps(true)
                     .exec(new ResultCallback.Adapter<Frame>() {
                         @Override
                         public void onNext(Frame frame) {
-                            String logLine = new String(frame.getPayload()).trim();
-                            if (!logLine.isEmpty()) {
-                                logPublisher.publish(pipelineId, logLine);
+                            publishFrame(pipelineId, stepId, frame, "", logLine -> {
                                 if (StreamType.STDOUT.equals(frame.getStreamType())) {
                                     outputBuffer.append(logLine).append("\n");
                                 }
-                            }
+                            });
                         }
                     })
                     .awaitCompletion(timeoutSeconds, TimeUnit.SECONDS);
@@ -55,30 +89,106 @@ public class ContainerLogStreamer {
     /**
      * Monitor container logs asynchronously (non-blocking).
      */
-    public void monitorAsync(DockerClient client, String pipelineId, String containerId) {
+    public void monitorAsync(DockerClient client, String pipelineId, String stepId, String containerId) {
+        monitoredSequences.compute(pipelineId, (id, monitored) -> monitored != null
+                ? new MonitoredSequence(monitored.next(), monitored.monitors() + 1)
+                : new MonitoredSequence(sequences.computeIfAbsent(id, key -> new AtomicLong()), 1));
         CompletableFuture.runAsync(() -> {
             try {
                 client.logContainerCmd(containerId)
                         .withStdOut(true)
                         .withStdErr(true)
                         .withFollowStream(true)
+                        .withTimestamps(true)
                         .exec(new ResultCallback.Adapter<Frame>() {
                             @Override
                             public void onNext(Frame frame) {
-                                String logLine = new String(frame.getPayload()).trim();
-                                if (!logLine.isEmpty()) {
-                                    logPublisher.publish(pipelineId,
-                                            "[" + containerId.substring(0, 8) + "] " + logLine);
-                                }
+                                publishFrame(pipelineId, stepId, frame,
+                                        "[" + containerId.substring(0, 8) + "] ", logLine -> { });
                             }
                         })
                         .awaitCompletion();
             } catch (Exception e) {
                 log.warn("Stopped monitoring logs for container {}", containerId);
+            } finally {
+                monitoredSequences.computeIfPresent(pipelineId, (id, monitored) -> monitored.monitors() > 1
+                        ? new MonitoredSequence(monitored.next(), monitored.monitors() - 1)
+                        : null);
             }
         });
     }
+
     public void publishLog(String pipelineId, String message) {
-        logPublisher.publish(pipelineId, message);
+        publishLog(pipelineId, null, message);
+    }
+
+    /**
+     * Publish a message emitted by Deployzilla itself for a pipeline step.
+     */
+    public void publishLog(String pipelineId, String stepId, String message) {
+        publish(pipelineId, stepId, LogStream.SYSTEM, Instant.now(), message);
+    }
+
+    /**
+     * Mark the logs of a step as complete so its segments can be compressed.
+     */
+    public void sealLogs(String pipelineId, String stepId) {
+        logStore.seal(pipelineId, stepId);
+    }
+
+    /**
+     * Forget the sequence counter of a finished pipeline; monitored application logs keep theirs.
+     */
+    public void endPipeline(String pipelineId) {
+        sequences.remove(pipelineId);
+    }
+
+    /**
+     * Publish every line of a Docker frame; with timestamps enabled each line starts with an RFC 3339 time.
+     */
+    private void publishFrame(String pipelineId, String stepId, Frame frame, String prefix, Consumer<String> onLine) {
+        LogStream stream = StreamType.STDERR.equals(frame.getStreamType()) ? LogStream.STDERR : LogStream.STDOUT;
+        for (String rawLine : new String(frame.getPayload(), StandardCharsets.UTF_8).split("\n")) {
+            Instant timestamp = Instant.now();
+            String logLine = rawLine;
+            int space = rawLine.indexOf(' ');
+            if (space > 0) {
+                try {
+                    timestamp = Instant.parse(rawLine.substring(0, space));
+                    logLine = rawLine.substring(space + 1);
+                } catch (DateTimeParseException e) {
+                    // Not a timestamped line, keep it whole
+                }
+            }
+            logLine = logLine.trim();
+            if (!logLine.isEmpty()) {
+                publish(pipelineId, stepId, stream, timestamp, prefix + logLine);
+                onLine.accept(logLine);
+            }
+        }
+    }
+
+    /**
+     * Publish a log line to live subscribers, keep it in the local log store and index it for search.
+     */
+    private void publish(String pipelineId, String stepId, LogStream stream, Instant timestamp, String message) {
+        MonitoredSequence monitored = monitoredSequences.get(pipelineId);
+        AtomicLong next = monitored != null
+                ? monitored.next()
+                : sequences.computeIfAbsent(pipelineId, id -> new AtomicLong());
+        long sequence = next.getAndIncrement();
+        logPublisher.publish(LogRecord.builder()
+                .pipelineId(pipelineId)
+                .stepId(stepId)
+                .stream(stream)
+                .sequence(sequence)
+                .timestamp(timestamp)
+                .payload(message)
+                .build());
+        logStore.append(pipelineId, stepId, message);
+        logSearchIndex.index(pipelineId, stepId, message);
+    }
+
+    private record MonitoredSequence(AtomicLong next, int monitors) {
     }
 }
@@ -8,6 +8,8 @@ import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientBuilder;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
 import fr.imt.deployzilla.deployzilla.exception.ImageBuildException;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -17,12 +19,26 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
+import org.springframework.util.FileSystemUtils;
 import com.github.dockerjava.api.exception.DockerException;
 
-import java.io.File;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service responsible for Docker image build and push operations.
@@ -33,6 +49,8 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class DockerImageService {
 
+    private static final String IMAGE_BUILD_STEP = JobType.IMAGE_BUILD.getStepId();
+
     private final ContainerLogStreamer containerLogStreamer;
 
     @Value("${docker.host:unix:///var/run/docker.sock}")
@@ -50,8 +68,34 @@ public class DockerImageService {
     @Value("${docker.timeout.seconds:600}")
     private int timeoutSeconds;
 
+    @Value("${deployzilla.docker.build.buildkit.enabled:false}")
+    private boolean buildKitEnabled;
+
+    /** buildx builder to use; created with the docker-container driver, which can export caches. */
+    @Value("${deployzilla.docker.build.builder:deployzilla}")
+    private String builderName;
+
+    @Value("${deployzilla.docker.build.cache.type:LOCAL}")
+    private BuildCacheType cacheType;
+
+    @Value("${deployzilla.docker.build.cache.path:/tmp/deployzilla-build-cache}")
+    private String cachePath;
+
+    /** Repository the REGISTRY cache is pushed to, one tag per project, e.g. {@code registry.example.com/me/deployzilla-cache}. */
+    @Value("${deployzilla.docker.build.cache.ref:}")
+    private String cacheRef;
+
+    private final AtomicBoolean builderReady = new AtomicBoolean();
+
     private DockerClient dockerClient;
 
+    /**
+     * Where BuildKit keeps layer caches between builds; {@code NONE} keeps only what the builder itself retains.
+     */
+    public enum BuildCacheType {
+        LOCAL, REGISTRY, NONE
+    }
+
     @PostConstruct
     public void init() {
         DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
@@ -83,12 +127,25 @@ public class DockerImageService {
     }
 
     /**
-     * Build a Docker image from a directory.
+     * Whether images are built with BuildKit ({@code docker buildx}), so Dockerfiles may use its syntax
+     * such as cache mounts.
+     */
+    public boolean isBuildKitEnabled() {
+        return buildKitEnabled;
+    }
+
+    /**
+     * Build a Docker image from a workspace, streamed as the build context (see {@link BuildContextArchive}):
+     * with BuildKit through {@code docker buildx}, importing and exporting the layer cache of
+     * {@code cacheKey}, or else with the daemon's classic builder.
      *
-     * @param pipelineId       Pipeline identifier for logging
-     * @param buildContextPath Path to the build context directory
-     * @param dockerfileName   Name of the Dockerfile
-     * @param imageName        Image name (e.g., "myuser/myapp")
+     * @param pipelineId        Pipeline identifier for logging
+     * @param cacheKey          Builds sharing a layer cache, typically one project
+     * @param workspace         Checked-out project, used as the build context
+     * @param dockerfileName    Name the Dockerfile is added to the context under
+     * @param dockerfileContent Dockerfile to build with
+     * @param keptPaths         Workspace paths sent even if {@code .dockerignore} excludes them
+     * @param imageName         Image name (e.g., "myuser/myapp")
      * @param tag              Image tag (e.g., "latest")
      * @return The built image ID
      */
@@ -97,13 +154,19 @@ public class DockerImageService {
         maxAttempts = 3,
         backoff = @Backoff(delay = 2000, multiplier = 2)
     )
-    public String buildImage(String pipelineId, String buildContextPath, String dockerfileName, String imageName, String tag) {
+    public String buildImage(String pipelineId, String cacheKey, Path workspace, String dockerfileName,
+                             String dockerfileContent, Set<String> keptPaths, String imageName, String tag) {
         String fullImageName = imageName + ":" + tag;
-        containerLogStreamer.publishLog(pipelineId, "Starting LOCAL image build: " + fullImageName);
+        if (buildKitEnabled) {
+            return buildWithBuildKit(pipelineId, cacheKey, workspace, dockerfileName, dockerfileContent, keptPaths,
+                    fullImageName);
+        }
+        containerLogStreamer.publishLog(pipelineId, IMAGE_BUILD_STEP, "Starting LOCAL image build: " + fullImageName);
 
-        try {
-            var buildCmd = dockerClient.buildImageCmd(new File(buildContextPath))
-                    .withDockerfile(new File(buildContextPath, dockerfileName))
+        // Opened per attempt, as a retry needs the context from the start
+        try (InputStream context = BuildContextArchive.open(workspace, dockerfileName, dockerfileContent, keptPaths)) {
+            var buildCmd = dockerClient.buildImageCmd(context)
+                    .withDockerfilePath(dockerfileName)
                     .withTags(Set.of(fullImageName))
                     .withPlatform("linux/amd64");
 
@@ -111,7 +174,7 @@ public class DockerImageService {
                         @Override
                         public void onNext(BuildResponseItem item) {
                             if (item.getStream() != null) {
-                                containerLogStreamer.publishLog(pipelineId, item.getStream().trim());
+                                containerLogStreamer.publishLog(pipelineId, IMAGE_BUILD_STEP, item.getStream().trim());
                             }
                             super.onNext(item);
                         }
@@ -119,11 +182,201 @@ public class DockerImageService {
                     .awaitImageId();
         } catch (Exception e) {
             log.error("[DockerImageService] Image build failed", e);
-            containerLogStreamer.publishLog(pipelineId, "Image build failed: " + e.getMessage());
+            containerLogStreamer.publishLog(pipelineId, IMAGE_BUILD_STEP, "Image build failed: " + e.getMessage());
             throw new ImageBuildException(fullImageName, "build", e);
         }
     }
 
+    private String buildWithBuildKit(String pipelineId, String cacheKey, Path workspace, String dockerfileName,
+                                     String dockerfileContent, Set<String> keptPaths, String fullImageName) {
+        containerLogStreamer.publishLog(pipelineId, IMAGE_BUILD_STEP, "Starting LOCAL BuildKit image build: " + fullImageName);
+
+        Path iidFile = null;
+        Path cacheDir = null;
+        Path newCacheDir = null;
+        try {
+            ensureBuilder();
+            iidFile = Files.createTempFile("deployzilla-iid-", ".txt");
+
+            List<String> command = new ArrayList<>(List.of(
+                    "docker", "buildx", "build",
+                    "--builder", builderName,
+                    "--platform", "linux/amd64",
+                    "--progress", "plain",
+                    "--file", dockerfileName,
+                    "--tag", fullImageName,
+                    "--iidfile", iidFile.toString(),
+                    "--load"));
+            String key = DirectorySanitizer.sanitizeDirectoryName(cacheKey);
+            switch (cacheType) {
+                case LOCAL -> {
+                    // Exported next to the current cache and swapped in afterwards: the local exporter
+                    // never drops blobs, so exporting in place would grow the cache forever
+                    cacheDir = Path.of(cachePath, key);
+                    newCacheDir = Path.of(cachePath, key + ".new-" + UUID.randomUUID());
+                    if (Files.isDirectory(cacheDir)) {
+                        command.addAll(List.of("--cache-from", "type=local,src=" + cacheDir));
+                    }
+                    command.addAll(List.of("--cache-to", "type=local,mode=max,dest=" + newCacheDir));
+                }
+                case REGISTRY -> {
+                    if (cacheRef == null || cacheRef.isBlank()) {
+                        log.warn("[DockerImageService] REGISTRY build cache without deployzilla.docker.build.cache.ref, building uncached");
+                    } else {
+                        String ref = cacheRef + ":" + key;
+                        command.addAll(List.of(
+                                "--cache-from", "type=registry,ref=" + ref,
+                                "--cache-to", "type=registry,mode=max,ref=" + ref));
+                    }
+                }
+                case NONE -> {
+                }
+            }
+            // Build context read from stdin as a tar
+            command.add("-");
+
+            int exitCode = runBuildx(pipelineId, command, workspace, dockerfileName, dockerfileContent, keptPaths);
+            if (exitCode != 0) {
+                throw new IOException("docker buildx exited with " + exitCode);
+            }
+            if (newCacheDir != null && Files.isDirectory(newCacheDir)) {
+                replaceCache(cacheDir, newCacheDir);
+            }
+            return Files.readString(iidFile).trim();
+        } catch (Exception e) {
+            log.error("[DockerImageService] Image build failed", e);
+            containerLogStreamer.publishLog(pipelineId, IMAGE_BUILD_STEP, "Image build failed: " + e.getMessage());
+            throw new ImageBuildException(fullImageName, "build", e);
+        } finally {
+            deleteQuietly(iidFile);
+            deleteQuietly(newCacheDir);
+        }
+    }
+
+    /**
+     * Run buildx with the build context on its stdin and its output in the step logs. Output is read on
+     * its own thread, so a build that hangs without closing it is still stopped after the timeout.
+     */
+    int runBuildx(String pipelineId, List<String> command, Path workspace, String dockerfileName,
+                  String dockerfileContent, Set<String> keptPaths) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true);
+        processBuilder.environment().put("DOCKER_HOST", dockerHost);
+        Process process = processBuilder.start();
+
+        Thread.ofVirtual().name("buildx-context-" + pipelineId).start(() -> {
+            try (InputStream context = BuildContextArchive.open(workspace, dockerfileName, dockerfileContent, keptPaths);
+                 OutputStream stdin = process.getOutputStream()) {
+                context.transferTo(stdin);
+            } catch (IOException e) {
+                // buildx fails on the truncated context; the cause is in the log
+                log.warn("[DockerImageService] Failed to send build context: {}", e.getMessage());
+                process.destroy();
+            }
+        });
+
+        Thread outputReader = Thread.ofVirtual().name("buildx-output-" + pipelineId).start(() -> {
+            try (BufferedReader output = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    containerLogStreamer.publishLog(pipelineId, IMAGE_BUILD_STEP, line);
+                }
+            } catch (IOException e) {
+                // Closed under us when the process is killed
+            }
+        });
+        if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("docker buildx timed out after " + timeoutSeconds + "s");
+        }
+        // Let the last lines through, without waiting on a child process that kept the output open
+        outputReader.join(Duration.ofSeconds(5));
+        return process.exitValue();
+    }
+
+    /**
+     * Create the buildx builder on first use. The default {@code docker} driver cannot export caches.
+     */
+    private void ensureBuilder() throws IOException, InterruptedException {
+        if (builderReady.get()) {
+            return;
+        }
+        synchronized (builderReady) {
+            if (builderReady.get()) {
+                return;
+            }
+            if (runDocker(List.of("docker", "buildx", "inspect", builderName)) != 0) {
+                log.info("[DockerImageService] Creating buildx builder {}", builderName);
+                int exitCode = runDocker(List.of(
+                        "docker", "buildx", "create", "--name", builderName, "--driver", "docker-container"));
+                if (exitCode != 0) {
+                    throw new IOException("Failed to create buildx builder " + builderName);
+                }
+            }
+            builderReady.set(true);
+        }
+    }
+
+    private int runDocker(List<String> command) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true);
+        processBuilder.environment().put("DOCKER_HOST", dockerHost);
+        Process process = processBuilder.start();
+        CompletableFuture<String> output = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            } catch (IOException e) {
+                return e.getMessage();
+            }
+        }, Thread::startVirtualThread);
+        if (!process.waitFor(60, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            return -1;
+        }
+        if (process.exitValue() != 0) {
+            log.debug("[DockerImageService] {} failed: {}", command, output.completeOnTimeout("", 5, TimeUnit.SECONDS).join());
+        }
+        return process.exitValue();
+    }
+
+    /**
+     * Swap the exported cache in. The image is already built by then, so a failure only costs the
+     * next build its cache: it is logged, and the previous cache kept if it can be put back.
+     */
+    static void replaceCache(Path cacheDir, Path newCacheDir) {
+        Path oldCacheDir = cacheDir.resolveSibling(cacheDir.getFileName() + ".old-" + UUID.randomUUID());
+        boolean movedAway = false;
+        try {
+            if (Files.exists(cacheDir)) {
+                Files.move(cacheDir, oldCacheDir, StandardCopyOption.ATOMIC_MOVE);
+                movedAway = true;
+            }
+            Files.move(newCacheDir, cacheDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("[DockerImageService] Failed to replace build cache {}: {}", cacheDir, e.getMessage());
+            if (movedAway) {
+                try {
+                    Files.move(oldCacheDir, cacheDir, StandardCopyOption.ATOMIC_MOVE);
+                    return;
+                } catch (IOException restoreFailure) {
+                    log.warn("[DockerImageService] Failed to restore build cache {}: {}", cacheDir,
+                            restoreFailure.getMessage());
+                }
+            }
+        }
+        deleteQuietly(oldCacheDir);
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            FileSystemUtils.deleteRecursively(path);
+        } catch (IOException e) {
+            log.warn("[DockerImageService] Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
     /**
      * Push an image to the configured registry.
      *
@@ -138,7 +391,7 @@ public class DockerImageService {
     )
     public void pushImage(String pipelineId, String imageName, String tag) {
         String fullImageName = imageName + ":" + tag;
-        containerLogStreamer.publishLog(pipelineId, "Pushing image to registry: " + fullImageName);
+        containerLogStreamer.publishLog(pipelineId, IMAGE_BUILD_STEP, "Pushing image to registry: " + fullImageName);
 
         try {
             var pushCmd = dockerClient.pushImageCmd(fullImageName);
@@ -152,11 +405,11 @@ public class DockerImageService {
             }
 
             pushCmd.start().awaitCompletion(timeoutSeconds, TimeUnit.SECONDS);
-            containerLogStreamer.publishLog(pipelineId, "Image pushed successfully");
+            containerLogStreamer.publishLog(pipelineId, IMAGE_BUILD_STEP, "Image pushed successfully");
 
         } catch (Exception e) {
             log.error("[DockerImageService] Image push failed", e);
-            containerLogStreamer.publishLog(pipelineId, "Image push failed: " + e.getMessage());
+            containerLogStreamer.publishLog(pipelineId, IMAGE_BUILD_STEP, "Image push failed: " + e.getMessage());
             throw new ImageBuildException(fullImageName, "push", e);
         }
     }
@@ -0,0 +1,41 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.eventbus;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe for events that used to make a round trip through Redis just to
+ * reach subscribers on the same node. Listeners are keyed by the exact event class and called on
+ * the publisher's thread; publishing takes no lock, so listeners must be quick and must not block.
+ */
+@Component
+@Slf4j
+public class LocalEventBus {
+
+    private final Map<Class<?>, List<Consumer<Object>>> listeners = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> void subscribe(Class<T> type, Consumer<? super T> listener) {
+        listeners.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add((Consumer<Object>) listener);
+    }
+
+    public void publish(Object event) {
+        List<Consumer<Object>> subscribers = listeners.get(event.getClass());
+        if (subscribers == null) {
+            return;
+        }
+        for (Consumer<Object> subscriber : subscribers) {
+            try {
+                subscriber.accept(event);
+            } catch (Exception e) {
+                log.error("Event listener failed for {}", event.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
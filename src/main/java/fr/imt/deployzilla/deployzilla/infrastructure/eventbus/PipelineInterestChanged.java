@@ -0,0 +1,8 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.eventbus;
+
+/**
+ * Published when the first local client subscribes to a pipeline topic ({@code active}) or the
+ * last one goes away, so remote transports only carry what this node actually needs.
+ */
+public record PipelineInterestChanged(PipelineTopic topic, String pipelineId, boolean active) {
+}
@@ -0,0 +1,9 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.eventbus;
+
+/**
+ * Per-pipeline event streams that clients can subscribe to.
+ */
+public enum PipelineTopic {
+    LOGS,
+    STATUS
+}
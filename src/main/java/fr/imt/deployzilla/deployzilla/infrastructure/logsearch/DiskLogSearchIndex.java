@@ -0,0 +1,251 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogSearchHit;
+import fr.imt.deployzilla.deployzilla.business.model.LogSearchQuery;
+import fr.imt.deployzilla.deployzilla.business.port.LogSearchIndexPort;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded inverted index over published step log lines, one {@link ProjectLogIndex} per project
+ * under {@code deployzilla.logs.search.path}. Lines are indexed by word; a query looks up its words,
+ * intersects their postings and then checks the full phrase on the candidate lines only, so a query
+ * word only matches a whole word of the line ({@code error} does not find {@code TypeError}).
+ * <p>
+ * Published lines are queued and indexed on a dedicated thread, so publishing never waits for the
+ * pipeline lookup or the index lock; lines are dropped when the queue is full.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DiskLogSearchIndex implements LogSearchIndexPort {
+
+    private static final String DEFAULT_STEP = "pipeline";
+    private static final int PROJECT_CACHE_SIZE = 1024;
+    /** How long a pipeline whose project could not be resolved is not looked up again. */
+    private static final long MISS_RETRY_MS = Duration.ofMinutes(1).toMillis();
+
+    private final PipelineRepositoryPort pipelineRepository;
+
+    @Value("${deployzilla.logs.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deployzilla.logs.search.path:/tmp/deployzilla-search}")
+    private String indexPath;
+
+    @Value("${deployzilla.logs.search.flush-lines:10000}")
+    private int flushLines;
+
+    @Value("${deployzilla.logs.search.merge-factor:10}")
+    private int mergeFactor;
+
+    @Value("${deployzilla.logs.search.max-segment-lines:2000000}")
+    private long maxSegmentLines;
+
+    @Value("${deployzilla.logs.search.queue-capacity:100000}")
+    private int queueCapacity;
+
+    private final Map<String, ProjectLogIndex> projects = new ConcurrentHashMap<>();
+
+    private final Map<String, String> projectByPipeline = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > PROJECT_CACHE_SIZE;
+                }
+            });
+
+    /** Time of the failed lookup, by pipeline; only touched by the indexer thread. */
+    private final Map<String, Long> unresolvedPipelines = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > PROJECT_CACHE_SIZE;
+        }
+    };
+
+    private BlockingQueue<PendingLine> pending;
+    private final AtomicLong droppedLines = new AtomicLong();
+
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService indexWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-search-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void startIndexer() {
+        pending = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        if (enabled) {
+            indexer.execute(this::drain);
+        }
+    }
+
+    @Override
+    public void index(String pipelineId, String stepId, String line) {
+        if (!enabled) {
+            return;
+        }
+        if (!pending.offer(new PendingLine(pipelineId, stepId, System.currentTimeMillis(), line))) {
+            droppedLines.incrementAndGet();
+        }
+    }
+
+    @Override
+    public List<LogSearchHit> search(LogSearchQuery query) {
+        if (!enabled) {
+            return List.of();
+        }
+        ProjectLogIndex index = project(query.getProjectId(), false);
+        if (index == null) {
+            return List.of();
+        }
+
+        String stepId = query.getJobType() != null ? query.getJobType().getStepId() : null;
+        long from = query.getFrom() != null ? query.getFrom().toEpochMilli() : Long.MIN_VALUE;
+        long to = query.getTo() != null ? query.getTo().toEpochMilli() : Long.MAX_VALUE;
+
+        return index.search(LogTokenizer.tokens(query.getText()),
+                        query.getText().toLowerCase(Locale.ROOT), stepId, from, to, query.getLimit())
+                .stream()
+                .map(line -> new LogSearchHit(line.pipelineId(), line.stepId(), line.timestamp(), line.line()))
+                .toList();
+    }
+
+    /**
+     * Write idle buffers out so recent lines survive a restart and searches stay index-backed.
+     */
+    @Scheduled(fixedDelayString = "${deployzilla.logs.search.flush-interval-ms:30000}")
+    public void flushBuffers() {
+        long dropped = droppedLines.getAndSet(0);
+        if (dropped > 0) {
+            log.warn("Log search indexing queue full, {} lines were not indexed", dropped);
+        }
+        projects.values().forEach(ProjectLogIndex::flush);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+        try {
+            indexer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lines still queued are indexed here, before the final flush
+        for (PendingLine line; (line = pending.poll()) != null; ) {
+            add(line);
+        }
+        flushBuffers();
+        indexWriter.shutdown();
+        try {
+            if (!indexWriter.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Log search index writer did not finish before shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                add(pending.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void add(PendingLine pendingLine) {
+        String projectId = resolveProject(pendingLine.pipelineId());
+        if (projectId == null) {
+            return;
+        }
+        ProjectLogIndex index = project(projectId, true);
+        if (index == null) {
+            return;
+        }
+
+        String step = pendingLine.stepId() != null ? pendingLine.stepId() : DEFAULT_STEP;
+        try {
+            for (String physicalLine : pendingLine.line().split("\\R")) {
+                if (!physicalLine.isBlank()) {
+                    index.add(new IndexedLine(pendingLine.pipelineId(), step, pendingLine.timestamp(), physicalLine));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to index log line for pipeline {} step {}", pendingLine.pipelineId(), step, e);
+        }
+    }
+
+    private String resolveProject(String pipelineId) {
+        String cached = projectByPipeline.get(pipelineId);
+        if (cached != null) {
+            return cached;
+        }
+        Long missedAt = unresolvedPipelines.get(pipelineId);
+        if (missedAt != null && System.currentTimeMillis() - missedAt < MISS_RETRY_MS) {
+            return null;
+        }
+        String projectId = null;
+        try {
+            projectId = pipelineRepository.findById(pipelineId)
+                    .map(Pipeline::getProjectId)
+                    .orElse(null);
+        } catch (Exception e) {
+            log.debug("Could not resolve project of pipeline {} for log indexing", pipelineId, e);
+        }
+        if (projectId != null) {
+            projectByPipeline.put(pipelineId, projectId);
+            unresolvedPipelines.remove(pipelineId);
+        } else {
+            unresolvedPipelines.put(pipelineId, System.currentTimeMillis());
+        }
+        return projectId;
+    }
+
+    private ProjectLogIndex project(String projectId, boolean create) {
+        Path directory = Path.of(indexPath, DirectorySanitizer.sanitizeDirectoryName(projectId));
+        if (!create && !projects.containsKey(projectId) && !Files.isDirectory(directory)) {
+            return null;
+        }
+        return projects.computeIfAbsent(projectId, id -> {
+            try {
+                return ProjectLogIndex.open(directory, indexWriter, flushLines, mergeFactor, maxSegmentLines);
+            } catch (IOException e) {
+                log.warn("Failed to open log search index for project {}", projectId, e);
+                return null;
+            }
+        });
+    }
+
+    private record PendingLine(String pipelineId, String stepId, long timestamp, String line) {
+    }
+}
@@ -0,0 +1,239 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Read-only, memory-mapped index segment covering documents {@code firstSeq..lastSeq} of a project.
+ * <pre>
+ * docs        : [u16 len, pipelineId][u16 len, stepId][i64 timestamp][i32 len, line]...
+ * doc offsets : i64 per doc
+ * postings    : per term, ascending doc ids as varint deltas
+ * terms       : per term in ascending order, [u16 len, term][i64 postings offset][i32 count]
+ * term index  : i64 position of every {@value #TERM_INDEX_INTERVAL}th term entry
+ * footer      : docCount, minTs, maxTs, stepMask, docOffsetsPos, termsPos, termCount, termIndexPos, magic
+ * </pre>
+ * Only the sampled terms are kept on heap; a lookup binary-searches them and scans at most
+ * {@value #TERM_INDEX_INTERVAL} entries of the mapped dictionary. Positions are 64-bit, so a merged
+ * segment may grow past 2 GB.
+ */
+final class IndexSegment {
+
+    static final int MAGIC = 0x445A4C49;
+    static final int TERM_INDEX_INTERVAL = 64;
+    private static final int FOOTER_BYTES = 56;
+    private static final int OTHER_STEP_BIT = 1 << 31;
+
+    private final Path file;
+    private final long firstSeq;
+    private final long lastSeq;
+    private final MappedFile buffer;
+
+    private final int docCount;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final int stepMask;
+    private final long docOffsetsPosition;
+    private final long termsPosition;
+    private final long termIndexPosition;
+
+    private final String[] sampledTerms;
+    private final long[] sampledPositions;
+
+    private IndexSegment(Path file, long firstSeq, long lastSeq, MappedFile buffer) throws IOException {
+        this.file = file;
+        this.firstSeq = firstSeq;
+        this.lastSeq = lastSeq;
+        this.buffer = buffer;
+
+        long footer = buffer.size() - FOOTER_BYTES;
+        if (footer < 0 || buffer.getInt(buffer.size() - 4) != MAGIC) {
+            throw new IOException("Corrupt index segment " + file);
+        }
+        this.docCount = buffer.getInt(footer);
+        this.minTimestamp = buffer.getLong(footer + 4);
+        this.maxTimestamp = buffer.getLong(footer + 12);
+        this.stepMask = buffer.getInt(footer + 20);
+        this.docOffsetsPosition = buffer.getLong(footer + 24);
+        this.termsPosition = buffer.getLong(footer + 32);
+        int termCount = buffer.getInt(footer + 40);
+        this.termIndexPosition = buffer.getLong(footer + 44);
+
+        int samples = (termCount + TERM_INDEX_INTERVAL - 1) / TERM_INDEX_INTERVAL;
+        this.sampledTerms = new String[samples];
+        this.sampledPositions = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            sampledPositions[i] = buffer.getLong(termIndexPosition + i * 8L);
+            sampledTerms[i] = readShortString(sampledPositions[i]);
+        }
+    }
+
+    static IndexSegment open(Path file, long firstSeq, long lastSeq) throws IOException {
+        return new IndexSegment(file, firstSeq, lastSeq, MappedFile.map(file));
+    }
+
+    static int stepBit(String stepId) {
+        return JobType.fromStepId(stepId)
+                .map(jobType -> 1 << jobType.ordinal())
+                .orElse(OTHER_STEP_BIT);
+    }
+
+    boolean overlaps(long from, long to) {
+        return docCount > 0 && maxTimestamp >= from && minTimestamp <= to;
+    }
+
+    boolean mayContainStep(String stepId) {
+        return stepId == null || (stepMask & stepBit(stepId)) != 0;
+    }
+
+    IndexedLine doc(int docId) {
+        long position = docOffset(docId);
+        int pipelineLength = Short.toUnsignedInt(buffer.getShort(position));
+        String pipelineId = readString(position + 2, pipelineLength);
+        position += 2 + pipelineLength;
+        int stepLength = Short.toUnsignedInt(buffer.getShort(position));
+        String stepId = readString(position + 2, stepLength);
+        position += 2 + stepLength;
+        long timestamp = buffer.getLong(position);
+        int lineLength = buffer.getInt(position + 8);
+        return new IndexedLine(pipelineId, stepId, timestamp, readString(position + 12, lineLength));
+    }
+
+    /**
+     * @return ascending doc ids containing the term, or {@code null} if the term is absent
+     */
+    int[] postings(String term) {
+        int sample = Arrays.binarySearch(sampledTerms, term);
+        if (sample == -1) {
+            return null;
+        }
+        long position = sampledPositions[sample >= 0 ? sample : -sample - 2];
+        for (int i = 0; i < TERM_INDEX_INTERVAL && position < termIndexPosition; i++) {
+            int termLength = Short.toUnsignedInt(buffer.getShort(position));
+            int comparison = readString(position + 2, termLength).compareTo(term);
+            if (comparison == 0) {
+                long entry = position + 2 + termLength;
+                return decodePostings(buffer.getLong(entry), buffer.getInt(entry + 8));
+            }
+            if (comparison > 0) {
+                return null;
+            }
+            position += 2 + termLength + 12;
+        }
+        return null;
+    }
+
+    /**
+     * Iterates the term dictionary in ascending order, for merges.
+     */
+    TermCursor terms() {
+        return new TermCursor();
+    }
+
+    /**
+     * Size of the document section, which starts the file.
+     */
+    long docsSize() {
+        return docOffsetsPosition;
+    }
+
+    void readDocs(long position, byte[] target, int length) {
+        buffer.get(position, target, 0, length);
+    }
+
+    long docOffset(int docId) {
+        return buffer.getLong(docOffsetsPosition + docId * 8L);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long firstSeq() {
+        return firstSeq;
+    }
+
+    long lastSeq() {
+        return lastSeq;
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    long minTimestamp() {
+        return minTimestamp;
+    }
+
+    long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    int stepMask() {
+        return stepMask;
+    }
+
+    private int[] decodePostings(long position, int count) {
+        int[] docIds = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += value;
+            docIds[i] = previous;
+        }
+        return docIds;
+    }
+
+    private String readShortString(long position) {
+        return readString(position + 2, Short.toUnsignedInt(buffer.getShort(position)));
+    }
+
+    private String readString(long position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    final class TermCursor {
+
+        private long position = termsPosition;
+        private String term;
+        private long postingsPosition;
+        private int postingsCount;
+
+        boolean next() {
+            if (position >= termIndexPosition) {
+                return false;
+            }
+            int termLength = Short.toUnsignedInt(buffer.getShort(position));
+            term = readString(position + 2, termLength);
+            postingsPosition = buffer.getLong(position + 2 + termLength);
+            postingsCount = buffer.getInt(position + 2 + termLength + 8);
+            position += 2 + termLength + 12;
+            return true;
+        }
+
+        String term() {
+            return term;
+        }
+
+        int[] postings() {
+            return decodePostings(postingsPosition, postingsCount);
+        }
+
+        IndexSegment segment() {
+            return IndexSegment.this;
+        }
+    }
+}
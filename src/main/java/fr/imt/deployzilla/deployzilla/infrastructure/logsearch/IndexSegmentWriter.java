@@ -0,0 +1,190 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes an immutable index segment in a single pass: documents first, then the doc offset
+ * table, postings (delta-encoded varints) and finally the sorted term dictionary.
+ * Terms must be added in ascending order.
+ *
+ * @see IndexSegment for the file layout
+ */
+final class IndexSegmentWriter implements Closeable {
+
+    private static final int COPY_CHUNK = 64 * 1024;
+
+    private final PositionOutputStream counter;
+    private final DataOutputStream out;
+
+    private long[] docOffsets = new long[1024];
+    private int docCount;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private int stepMask;
+
+    private long docOffsetsPosition = -1;
+    private final List<String> terms = new ArrayList<>();
+    private long[] postingsOffsets = new long[1024];
+    private int[] postingsCounts = new int[1024];
+
+    IndexSegmentWriter(Path file) throws IOException {
+        // DataOutputStream.size() saturates at 2 GB, so positions are counted below it
+        this.counter = new PositionOutputStream(new BufferedOutputStream(Files.newOutputStream(file), COPY_CHUNK));
+        this.out = new DataOutputStream(counter);
+    }
+
+    void addDoc(IndexedLine doc) throws IOException {
+        recordOffset(counter.position());
+        minTimestamp = Math.min(minTimestamp, doc.timestamp());
+        maxTimestamp = Math.max(maxTimestamp, doc.timestamp());
+        stepMask |= IndexSegment.stepBit(doc.stepId());
+        writeShortString(doc.pipelineId());
+        writeShortString(doc.stepId());
+        out.writeLong(doc.timestamp());
+        byte[] line = doc.line().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(line.length);
+        out.write(line);
+    }
+
+    /**
+     * Copy all documents of an existing segment verbatim, keeping their relative order.
+     */
+    void copyDocs(IndexSegment segment) throws IOException {
+        long base = counter.position();
+        for (int i = 0; i < segment.docCount(); i++) {
+            recordOffset(base + segment.docOffset(i));
+        }
+        minTimestamp = Math.min(minTimestamp, segment.minTimestamp());
+        maxTimestamp = Math.max(maxTimestamp, segment.maxTimestamp());
+        stepMask |= segment.stepMask();
+
+        byte[] chunk = new byte[COPY_CHUNK];
+        for (long copied = 0; copied < segment.docsSize(); ) {
+            int length = (int) Math.min(chunk.length, segment.docsSize() - copied);
+            segment.readDocs(copied, chunk, length);
+            out.write(chunk, 0, length);
+            copied += length;
+        }
+    }
+
+    /**
+     * Ends the document section; terms may be added afterwards.
+     */
+    void startPostings() throws IOException {
+        docOffsetsPosition = counter.position();
+        for (int i = 0; i < docCount; i++) {
+            out.writeLong(docOffsets[i]);
+        }
+    }
+
+    void addTerm(String term, int[] docIds) throws IOException {
+        if (terms.size() == postingsOffsets.length) {
+            postingsOffsets = Arrays.copyOf(postingsOffsets, terms.size() * 2);
+            postingsCounts = Arrays.copyOf(postingsCounts, terms.size() * 2);
+        }
+        postingsOffsets[terms.size()] = counter.position();
+        postingsCounts[terms.size()] = docIds.length;
+        terms.add(term);
+
+        int previous = 0;
+        for (int i = 0; i < docIds.length; i++) {
+            writeVarInt(docIds[i] - previous);
+            previous = docIds[i];
+        }
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            if (docOffsetsPosition < 0) {
+                startPostings();
+            }
+            long termsPosition = counter.position();
+            List<Long> sampledPositions = new ArrayList<>();
+            for (int i = 0; i < terms.size(); i++) {
+                if (i % IndexSegment.TERM_INDEX_INTERVAL == 0) {
+                    sampledPositions.add(counter.position());
+                }
+                writeShortString(terms.get(i));
+                out.writeLong(postingsOffsets[i]);
+                out.writeInt(postingsCounts[i]);
+            }
+
+            long termIndexPosition = counter.position();
+            for (long position : sampledPositions) {
+                out.writeLong(position);
+            }
+
+            out.writeInt(docCount);
+            out.writeLong(docCount == 0 ? 0 : minTimestamp);
+            out.writeLong(docCount == 0 ? 0 : maxTimestamp);
+            out.writeInt(stepMask);
+            out.writeLong(docOffsetsPosition);
+            out.writeLong(termsPosition);
+            out.writeInt(terms.size());
+            out.writeLong(termIndexPosition);
+            out.writeInt(IndexSegment.MAGIC);
+        }
+    }
+
+    private void recordOffset(long offset) {
+        if (docCount == docOffsets.length) {
+            docOffsets = Arrays.copyOf(docOffsets, docCount * 2);
+        }
+        docOffsets[docCount++] = offset;
+    }
+
+    private void writeShortString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static final class PositionOutputStream extends FilterOutputStream {
+
+        private long position;
+
+        PositionOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        long position() {
+            return position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            position += length;
+        }
+    }
+}
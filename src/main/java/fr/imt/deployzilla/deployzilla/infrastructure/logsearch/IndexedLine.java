@@ -0,0 +1,7 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+/**
+ * A log line as stored in the search index.
+ */
+record IndexedLine(String pipelineId, String stepId, long timestamp, String line) {
+}
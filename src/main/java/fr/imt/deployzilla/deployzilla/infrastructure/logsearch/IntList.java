@@ -0,0 +1,23 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for postings while building segments.
+ */
+final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,87 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only mapping of a file of any size with {@code long} positions, as consecutive regions of
+ * at most {@value #REGION_SIZE} bytes (a single mapping cannot exceed 2 GB). Big-endian like
+ * {@link java.io.DataOutputStream}; values straddling two regions are read byte by byte.
+ */
+final class MappedFile {
+
+    private static final int REGION_BITS = 30;
+    static final int REGION_SIZE = 1 << REGION_BITS;
+    private static final long REGION_MASK = REGION_SIZE - 1;
+
+    private final MappedByteBuffer[] regions;
+    private final long size;
+
+    private MappedFile(MappedByteBuffer[] regions, long size) {
+        this.regions = regions;
+        this.size = size;
+    }
+
+    static MappedFile map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) >>> REGION_BITS)];
+            for (int i = 0; i < regions.length; i++) {
+                long position = (long) i << REGION_BITS;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_SIZE, size - position));
+            }
+            return new MappedFile(regions, size);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    byte get(long position) {
+        return regions[(int) (position >>> REGION_BITS)].get((int) (position & REGION_MASK));
+    }
+
+    short getShort(long position) {
+        MappedByteBuffer region = regionHolding(position, Short.BYTES);
+        return region != null ? region.getShort((int) (position & REGION_MASK)) : (short) getBigEndian(position, Short.BYTES);
+    }
+
+    int getInt(long position) {
+        MappedByteBuffer region = regionHolding(position, Integer.BYTES);
+        return region != null ? region.getInt((int) (position & REGION_MASK)) : (int) getBigEndian(position, Integer.BYTES);
+    }
+
+    long getLong(long position) {
+        MappedByteBuffer region = regionHolding(position, Long.BYTES);
+        return region != null ? region.getLong((int) (position & REGION_MASK)) : getBigEndian(position, Long.BYTES);
+    }
+
+    void get(long position, byte[] target, int offset, int length) {
+        while (length > 0) {
+            MappedByteBuffer region = regions[(int) (position >>> REGION_BITS)];
+            int index = (int) (position & REGION_MASK);
+            int count = Math.min(length, region.capacity() - index);
+            region.get(index, target, offset, count);
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private MappedByteBuffer regionHolding(long position, int bytes) {
+        MappedByteBuffer region = regions[(int) (position >>> REGION_BITS)];
+        return (position & REGION_MASK) + bytes <= region.capacity() ? region : null;
+    }
+
+    private long getBigEndian(long position, int bytes) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | (get(position + i) & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,347 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index of one project's log lines: an in-memory buffer of recent lines plus immutable
+ * on-disk segments named {@code <firstSeq>-<lastSeq>.seg}. Full or idle buffers are written as
+ * new segments, and runs of similarly sized segments are merged so their count stays logarithmic.
+ * All writes happen on the shared writer executor; searches read a consistent snapshot.
+ */
+@Slf4j
+class ProjectLogIndex {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("^(\\d{20})-(\\d{20})\\.seg$");
+
+    private final Path directory;
+    private final Executor writer;
+    private final int flushLines;
+    private final int mergeFactor;
+    private final long maxSegmentLines;
+
+    private final Object lock = new Object();
+    private List<IndexedLine> buffer = new ArrayList<>();
+    private final List<List<IndexedLine>> flushing = new ArrayList<>();
+    private List<IndexSegment> segments;
+    private long nextSeq;
+
+    private ProjectLogIndex(Path directory, Executor writer, int flushLines, int mergeFactor,
+                            long maxSegmentLines, List<IndexSegment> segments) {
+        this.directory = directory;
+        this.writer = writer;
+        this.flushLines = flushLines;
+        this.mergeFactor = mergeFactor;
+        this.maxSegmentLines = maxSegmentLines;
+        this.segments = segments;
+        this.nextSeq = segments.isEmpty() ? 0 : segments.getLast().lastSeq() + 1;
+    }
+
+    static ProjectLogIndex open(Path directory, Executor writer, int flushLines, int mergeFactor,
+                                long maxSegmentLines) throws IOException {
+        Files.createDirectories(directory);
+        List<IndexSegment> segments = new ArrayList<>();
+        for (Path file : listSegmentFiles(directory)) {
+            Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+            matcher.matches();
+            long firstSeq = Long.parseLong(matcher.group(1));
+            long lastSeq = Long.parseLong(matcher.group(2));
+            // A merge interrupted before deleting its inputs leaves segments covered by the merged one
+            if (!segments.isEmpty() && lastSeq <= segments.getLast().lastSeq()) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            try {
+                segments.add(IndexSegment.open(file, firstSeq, lastSeq));
+            } catch (IOException e) {
+                log.warn("Skipping unreadable log index segment {}", file, e);
+            }
+        }
+        return new ProjectLogIndex(directory, writer, flushLines, mergeFactor, maxSegmentLines, segments);
+    }
+
+    void add(IndexedLine line) {
+        synchronized (lock) {
+            buffer.add(line);
+            nextSeq++;
+            if (buffer.size() >= flushLines) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Hand the buffered lines to the writer executor; they stay searchable until their segment is visible.
+     */
+    void flush() {
+        synchronized (lock) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            List<IndexedLine> docs = buffer;
+            long firstSeq = nextSeq - docs.size();
+            buffer = new ArrayList<>();
+            flushing.add(docs);
+            writer.execute(() -> writeSegment(docs, firstSeq));
+        }
+    }
+
+    List<IndexedLine> search(Set<String> tokens, String phrase, String stepId, long from, long to, int limit) {
+        List<IndexSegment> segmentSnapshot;
+        List<IndexedLine> pending = new ArrayList<>();
+        synchronized (lock) {
+            segmentSnapshot = segments;
+            flushing.forEach(pending::addAll);
+            pending.addAll(buffer);
+        }
+
+        LineFilter filter = new LineFilter(phrase, stepId, from, to);
+        List<IndexedLine> hits = new ArrayList<>();
+        for (IndexSegment segment : segmentSnapshot) {
+            if (!segment.overlaps(from, to) || !segment.mayContainStep(stepId)) {
+                continue;
+            }
+            for (int docId : candidates(segment, tokens)) {
+                IndexedLine line = segment.doc(docId);
+                if (filter.test(line)) {
+                    hits.add(line);
+                    if (hits.size() >= limit) {
+                        return hits;
+                    }
+                }
+            }
+        }
+
+        // Lines not yet in a segment are few enough to scan, with the same whole-word matching as the postings
+        for (IndexedLine line : pending) {
+            if (filter.test(line) && LogTokenizer.tokens(line.line()).containsAll(tokens)) {
+                hits.add(line);
+                if (hits.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    private static int[] candidates(IndexSegment segment, Set<String> tokens) {
+        if (tokens.isEmpty()) {
+            // Nothing indexable in the query (e.g. a single character): fall back to a scan
+            return IntStream.range(0, segment.docCount()).toArray();
+        }
+        List<int[]> postings = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            int[] docIds = segment.postings(token);
+            if (docIds == null) {
+                return new int[0];
+            }
+            postings.add(docIds);
+        }
+        // Intersect starting from the rarest term so the working set only shrinks
+        postings.sort(Comparator.comparingInt(docIds -> docIds.length));
+        int[] result = postings.getFirst();
+        for (int i = 1; i < postings.size() && result.length > 0; i++) {
+            result = intersect(result, postings.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] left, int[] right) {
+        int[] result = new int[Math.min(left.length, right.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] == right[j]) {
+                result[count++] = left[i];
+                i++;
+                j++;
+            } else if (left[i] < right[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void writeSegment(List<IndexedLine> docs, long firstSeq) {
+        try {
+            Path file = segmentFile(firstSeq, firstSeq + docs.size() - 1);
+            Path temporary = temporaryFile(file);
+            try (IndexSegmentWriter segmentWriter = new IndexSegmentWriter(temporary)) {
+                SortedMap<String, IntList> postings = new TreeMap<>();
+                for (int docId = 0; docId < docs.size(); docId++) {
+                    IndexedLine doc = docs.get(docId);
+                    segmentWriter.addDoc(doc);
+                    for (String token : LogTokenizer.tokens(doc.line())) {
+                        postings.computeIfAbsent(token, key -> new IntList()).add(docId);
+                    }
+                }
+                segmentWriter.startPostings();
+                for (Map.Entry<String, IntList> entry : postings.entrySet()) {
+                    segmentWriter.addTerm(entry.getKey(), entry.getValue().toArray());
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            IndexSegment segment = IndexSegment.open(file, firstSeq, firstSeq + docs.size() - 1);
+
+            synchronized (lock) {
+                List<IndexSegment> updated = new ArrayList<>(segments);
+                updated.add(segment);
+                segments = List.copyOf(updated);
+                flushing.remove(docs);
+            }
+            mergeTail();
+        } catch (IOException | UncheckedIOException e) {
+            // Keep the lines searchable from memory rather than losing them
+            log.warn("Failed to write log index segment in {}", directory, e);
+        }
+    }
+
+    /**
+     * Merge the newest run of {@code mergeFactor} segments of the same size class, repeatedly,
+     * so a project ends up with O(log n) segments.
+     */
+    private void mergeTail() throws IOException {
+        while (true) {
+            List<IndexSegment> current = segments;
+            int end = current.size();
+            if (end < mergeFactor) {
+                return;
+            }
+            int level = level(current.getLast());
+            int start = end - mergeFactor;
+            long mergedDocs = 0;
+            for (int i = start; i < end; i++) {
+                if (level(current.get(i)) != level) {
+                    return;
+                }
+                mergedDocs += current.get(i).docCount();
+            }
+            if (mergedDocs > maxSegmentLines) {
+                return;
+            }
+            merge(current.subList(start, end));
+        }
+    }
+
+    private int level(IndexSegment segment) {
+        long ratio = segment.docCount() / flushLines;
+        int level = 0;
+        while (ratio > 0) {
+            ratio /= mergeFactor;
+            level++;
+        }
+        return level;
+    }
+
+    private void merge(List<IndexSegment> inputs) throws IOException {
+        long firstSeq = inputs.getFirst().firstSeq();
+        long lastSeq = inputs.getLast().lastSeq();
+        Path file = segmentFile(firstSeq, lastSeq);
+        Path temporary = temporaryFile(file);
+
+        try (IndexSegmentWriter segmentWriter = new IndexSegmentWriter(temporary)) {
+            int[] docBases = new int[inputs.size()];
+            for (int i = 0; i < inputs.size(); i++) {
+                docBases[i] = segmentWriter.docCount();
+                segmentWriter.copyDocs(inputs.get(i));
+            }
+            segmentWriter.startPostings();
+            mergeTerms(inputs, docBases, segmentWriter);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        IndexSegment merged = IndexSegment.open(file, firstSeq, lastSeq);
+
+        synchronized (lock) {
+            List<IndexSegment> updated = new ArrayList<>(segments);
+            int position = updated.indexOf(inputs.getFirst());
+            updated.removeAll(inputs);
+            updated.add(position, merged);
+            segments = List.copyOf(updated);
+        }
+        // Searches still holding the old segments keep their mappings after the files are gone
+        for (IndexSegment input : inputs) {
+            Files.deleteIfExists(input.file());
+        }
+    }
+
+    private static void mergeTerms(List<IndexSegment> inputs, int[] docBases,
+                                   IndexSegmentWriter segmentWriter) throws IOException {
+        Map<IndexSegment, Integer> baseBySegment = new IdentityHashMap<>();
+        PriorityQueue<IndexSegment.TermCursor> cursors = new PriorityQueue<>(
+                Comparator.comparing(IndexSegment.TermCursor::term)
+                        .thenComparingLong(cursor -> cursor.segment().firstSeq()));
+        for (int i = 0; i < inputs.size(); i++) {
+            baseBySegment.put(inputs.get(i), docBases[i]);
+            IndexSegment.TermCursor cursor = inputs.get(i).terms();
+            if (cursor.next()) {
+                cursors.add(cursor);
+            }
+        }
+
+        while (!cursors.isEmpty()) {
+            String term = cursors.peek().term();
+            IntList docIds = new IntList();
+            // Equal terms come out in segment order, so the concatenated postings stay sorted
+            while (!cursors.isEmpty() && cursors.peek().term().equals(term)) {
+                IndexSegment.TermCursor cursor = cursors.poll();
+                int base = baseBySegment.get(cursor.segment());
+                for (int docId : cursor.postings()) {
+                    docIds.add(base + docId);
+                }
+                if (cursor.next()) {
+                    cursors.add(cursor);
+                }
+            }
+            segmentWriter.addTerm(term, docIds.toArray());
+        }
+    }
+
+    private Path segmentFile(long firstSeq, long lastSeq) {
+        return directory.resolve(String.format("%020d-%020d.seg", firstSeq, lastSeq));
+    }
+
+    private static Path temporaryFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    private static List<Path> listSegmentFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> all = files.toList();
+            for (Path file : all) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            // Oldest first; for the same first sequence, the widest (merged) segment first
+            return all.stream()
+                    .filter(file -> SEGMENT_FILE.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing((Path file) -> file.getFileName().toString().substring(0, 20))
+                            .thenComparing(file -> file.getFileName().toString(), Comparator.reverseOrder()))
+                    .toList();
+        }
+    }
+
+    private record LineFilter(String phrase, String stepId, long from, long to) {
+
+        boolean test(IndexedLine line) {
+            return line.timestamp() >= from
+                    && line.timestamp() <= to
+                    && (stepId == null || stepId.equals(line.stepId()))
+                    && line.line().toLowerCase(Locale.ROOT).contains(phrase);
+        }
+    }
+}
@@ -0,0 +1,567 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logstore;
+
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogStorePort;
+import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only log store on local disk, one directory per pipeline step.
+ * <p>
+ * Lines go to an active segment ({@code <firstLine>.log}) with a sparse index
+ * ({@code <firstLine>.idx}) holding the byte offset of every block of lines.
+ * A full or finished segment is renamed to {@code .sealing.*} and compressed in the
+ * background into independent gzip members, one per block ({@code .log.gz} + {@code .gz.idx}),
+ * so a range read only decompresses the blocks it returns.
+ * <p>
+ * Appending and sealing a step run under the writer map's per-key lock, so a line is never
+ * appended to a writer being closed. A line arriving after the seal opens a new segment.
+ * Segments left in {@code .sealing.*} by a stop mid-compression are compressed again on startup.
+ */
+@Component
+@Slf4j
+public class SegmentedProcessLogStore implements ProcessLogStorePort {
+
+    private static final String DEFAULT_STEP = "pipeline";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("^(\\d{20})\\.(log|sealing\\.log|log\\.gz)$");
+
+    @Value("${deployzilla.logs.store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deployzilla.logs.store.path:/tmp/deployzilla-logs}")
+    private String storePath;
+
+    @Value("${deployzilla.logs.store.lines-per-segment:65536}")
+    private long linesPerSegment;
+
+    @Value("${deployzilla.logs.store.block-lines:256}")
+    private int blockLines;
+
+    @Value("${deployzilla.logs.store.idle-seal-ms:600000}")
+    private long idleSealMs;
+
+    private final Map<String, SegmentWriter> writers = new ConcurrentHashMap<>();
+
+    private final ExecutorService sealExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-store-sealer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Resubmit the segments a previous run renamed for sealing but did not finish compressing.
+     */
+    @PostConstruct
+    public void resumeSealing() {
+        Path root = Path.of(storePath);
+        if (!enabled || !Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (!matcher.matches() || !matcher.group(2).equals("sealing.log")) {
+                    return;
+                }
+                Segment sealing = new Segment(file.getParent(), Long.parseLong(matcher.group(1)), SegmentKind.SEALING);
+                if (Files.exists(sealing.sealed().path())) {
+                    // Compressed, but stopped before the source was deleted
+                    try {
+                        Files.deleteIfExists(sealing.path());
+                        Files.deleteIfExists(sealing.indexPath());
+                    } catch (IOException e) {
+                        log.warn("Failed to delete sealed log segment {}", file, e);
+                    }
+                } else {
+                    sealExecutor.execute(() -> compress(sealing));
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to look for unsealed log segments in {}", root, e);
+        }
+    }
+
+    @Override
+    public void append(String pipelineId, String stepId, String line) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            writers.compute(writerKey(pipelineId, stepId), (key, existing) -> {
+                SegmentWriter writer = existing != null ? existing : new SegmentWriter(stepDirectory(pipelineId, stepId));
+                try {
+                    // One stored line per physical line, so line numbers stay meaningful for range reads
+                    for (String physicalLine : line.split("\\R", -1)) {
+                        writer.append(physicalLine);
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to store log line for pipeline {} step {}", pipelineId, stepId, e);
+                }
+                return writer;
+            });
+        } catch (UncheckedIOException e) {
+            log.warn("Failed to open log segment for pipeline {} step {}", pipelineId, stepId, e);
+        }
+    }
+
+    @Override
+    public void seal(String pipelineId, String stepId) {
+        writers.computeIfPresent(writerKey(pipelineId, stepId), SegmentedProcessLogStore::sealWriter);
+    }
+
+    @Override
+    public void sealAll(String pipelineId) {
+        String prefix = pipelineId + "/";
+        for (String key : writers.keySet()) {
+            if (key.startsWith(prefix)) {
+                writers.computeIfPresent(key, SegmentedProcessLogStore::sealWriter);
+            }
+        }
+    }
+
+    /**
+     * Seal the steps no line was appended to for {@code idle-seal-ms}, such as the running
+     * application's logs, so their file handles do not stay open for as long as it runs.
+     */
+    @Scheduled(fixedDelayString = "${deployzilla.logs.store.idle-seal-check-ms:60000}")
+    public void sealIdleWriters() {
+        long idleSince = System.currentTimeMillis() - idleSealMs;
+        for (String key : writers.keySet()) {
+            writers.computeIfPresent(key, (k, writer) -> writer.lastAppend() < idleSince ? sealWriter(k, writer) : writer);
+        }
+    }
+
+    @Override
+    public List<String> read(String pipelineId, String stepId, long from, int limit) {
+        Path directory = stepDirectory(pipelineId, stepId);
+        if (!Files.isDirectory(directory) || limit <= 0) {
+            return List.of();
+        }
+
+        List<String> lines = new ArrayList<>(limit);
+        try {
+            List<Segment> segments = listSegments(directory);
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                if (i + 1 < segments.size() && segments.get(i + 1).firstLine() <= from) {
+                    continue;
+                }
+                long skip = Math.max(0, from - segment.firstLine());
+                if (segment.kind() == SegmentKind.SEALED) {
+                    readSealed(segment, skip, limit - lines.size(), lines);
+                } else {
+                    try {
+                        readActive(segment, skip, limit - lines.size(), lines);
+                    } catch (NoSuchFileException e) {
+                        if (segment.kind() != SegmentKind.SEALING) {
+                            throw e;
+                        }
+                        // Compressed since it was listed
+                        readSealed(segment.sealed(), skip, limit - lines.size(), lines);
+                    }
+                }
+                if (lines.size() >= limit) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read stored logs for pipeline {} step {}", pipelineId, stepId, e);
+        }
+        return lines;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Active segments are left as-is and resumed on the next append
+        writers.values().forEach(writer -> writer.close(false));
+        writers.clear();
+        sealExecutor.shutdown();
+        try {
+            // Let the segment being compressed finish rather than leave its temporary files behind
+            sealExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static SegmentWriter sealWriter(String key, SegmentWriter writer) {
+        writer.close(true);
+        return null;
+    }
+
+    private void readActive(Segment segment, long skip, int max, List<String> out) throws IOException {
+        Path indexPath = segment.indexPath();
+        if (segment.kind() == SegmentKind.ACTIVE && (!Files.exists(indexPath) || !Files.exists(segment.path()))) {
+            return;
+        }
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ);
+             FileChannel data = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+            long block = skip / blockLines;
+            if ((block + 1) * Long.BYTES > index.size()) {
+                return;
+            }
+            long offset = readLong(index, block * Long.BYTES);
+            long size = data.size();
+            if (offset >= size) {
+                return;
+            }
+
+            MappedByteBuffer buffer = data.map(FileChannel.MapMode.READ_ONLY, offset, size - offset);
+            long toSkip = skip % blockLines;
+            int start = 0;
+            for (int i = 0; i < buffer.limit() && max > 0; i++) {
+                if (buffer.get(i) != '\n') {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                } else {
+                    byte[] bytes = new byte[i - start];
+                    buffer.get(start, bytes);
+                    out.add(new String(bytes, StandardCharsets.UTF_8));
+                    max--;
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    private void readSealed(Segment segment, long skip, int max, List<String> out) throws IOException {
+        try (FileChannel index = FileChannel.open(segment.indexPath(), StandardOpenOption.READ);
+             FileChannel data = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+            // Sealed index: one offset per block, followed by the total line count
+            long blocks = index.size() / Long.BYTES - 1;
+            long block = skip / blockLines;
+            if (block >= blocks) {
+                return;
+            }
+            data.position(readLong(index, block * Long.BYTES));
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Channels.newInputStream(data)), StandardCharsets.UTF_8))) {
+                long toSkip = skip % blockLines;
+                String line;
+                while (max > 0 && (line = reader.readLine()) != null) {
+                    if (toSkip > 0) {
+                        toSkip--;
+                        continue;
+                    }
+                    out.add(line);
+                    max--;
+                }
+            }
+        }
+    }
+
+    private void compress(Segment segment) {
+        Path source = segment.path();
+        if (!Files.exists(source)) {
+            return;
+        }
+        Path directory = source.getParent();
+        String name = segmentName(segment.firstLine());
+        Path gzTemp = directory.resolve(name + ".log.gz.tmp");
+        Path indexTemp = directory.resolve(name + ".gz.idx.tmp");
+
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+             FileChannel target = FileChannel.open(gzTemp, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexTemp)))) {
+
+            OutputStream sink = new NonClosingOutputStream(Channels.newOutputStream(target));
+            GZIPOutputStream block = null;
+            long lines = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (lines % blockLines == 0) {
+                    if (block != null) {
+                        block.close();
+                    }
+                    index.writeLong(target.position());
+                    block = new GZIPOutputStream(sink, 8192);
+                }
+                block.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                lines++;
+            }
+            if (block != null) {
+                block.close();
+            }
+            index.writeLong(lines);
+        } catch (IOException e) {
+            log.warn("Failed to compress log segment {}", source, e);
+            return;
+        }
+
+        try {
+            Files.move(indexTemp, directory.resolve(name + ".gz.idx"), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(gzTemp, directory.resolve(name + ".log.gz"), StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(segment.indexPath());
+        } catch (IOException e) {
+            log.warn("Failed to finalize sealed log segment {}", source, e);
+        }
+    }
+
+    private List<Segment> listSegments(Path directory) throws IOException {
+        // Keyed by first line: a sealed segment wins over its in-flight ".sealing" twin
+        TreeMap<Long, Segment> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    return;
+                }
+                long firstLine = Long.parseLong(matcher.group(1));
+                SegmentKind kind = switch (matcher.group(2)) {
+                    case "log" -> SegmentKind.ACTIVE;
+                    case "sealing.log" -> SegmentKind.SEALING;
+                    default -> SegmentKind.SEALED;
+                };
+                segments.merge(firstLine, new Segment(directory, firstLine, kind),
+                        (a, b) -> a.kind().ordinal() >= b.kind().ordinal() ? a : b);
+            });
+        }
+        return new ArrayList<>(segments.values());
+    }
+
+    private long lineCount(Segment segment) throws IOException {
+        try {
+            return countLines(segment);
+        } catch (NoSuchFileException e) {
+            if (segment.kind() != SegmentKind.SEALING) {
+                throw e;
+            }
+            // Compressed since it was listed
+            return countLines(segment.sealed());
+        }
+    }
+
+    private long countLines(Segment segment) throws IOException {
+        if (segment.kind() == SegmentKind.SEALED) {
+            try (FileChannel index = FileChannel.open(segment.indexPath(), StandardOpenOption.READ)) {
+                return readLong(index, index.size() - Long.BYTES);
+            }
+        }
+        if (segment.kind() == SegmentKind.ACTIVE && !Files.exists(segment.indexPath())) {
+            return 0;
+        }
+        try (FileChannel index = FileChannel.open(segment.indexPath(), StandardOpenOption.READ);
+             FileChannel data = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+            long blocks = index.size() / Long.BYTES;
+            if (blocks == 0) {
+                return 0;
+            }
+            long lastBlockOffset = readLong(index, (blocks - 1) * Long.BYTES);
+            MappedByteBuffer tail = data.map(FileChannel.MapMode.READ_ONLY, lastBlockOffset, data.size() - lastBlockOffset);
+            long linesInLastBlock = 0;
+            for (int i = 0; i < tail.limit(); i++) {
+                if (tail.get(i) == '\n') {
+                    linesInLastBlock++;
+                }
+            }
+            return (blocks - 1) * blockLines + linesInLastBlock;
+        }
+    }
+
+    private static long readLong(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated log index");
+            }
+        }
+        return buffer.flip().getLong();
+    }
+
+    private Path stepDirectory(String pipelineId, String stepId) {
+        return Path.of(storePath,
+                DirectorySanitizer.sanitizeDirectoryName(pipelineId),
+                DirectorySanitizer.sanitizeDirectoryName(stepId != null ? stepId : DEFAULT_STEP));
+    }
+
+    private static String writerKey(String pipelineId, String stepId) {
+        return pipelineId + "/" + (stepId != null ? stepId : DEFAULT_STEP);
+    }
+
+    private static String segmentName(long firstLine) {
+        return String.format("%020d", firstLine);
+    }
+
+    private enum SegmentKind { ACTIVE, SEALING, SEALED }
+
+    private record Segment(Path directory, long firstLine, SegmentKind kind) {
+
+        Path path() {
+            return directory.resolve(segmentName(firstLine) + switch (kind) {
+                case ACTIVE -> ".log";
+                case SEALING -> ".sealing.log";
+                case SEALED -> ".log.gz";
+            });
+        }
+
+        Segment sealed() {
+            return new Segment(directory, firstLine, SegmentKind.SEALED);
+        }
+
+        Path indexPath() {
+            return directory.resolve(segmentName(firstLine) + switch (kind) {
+                case ACTIVE -> ".idx";
+                case SEALING -> ".sealing.idx";
+                case SEALED -> ".gz.idx";
+            });
+        }
+    }
+
+    /**
+     * Appends to the active segment of one pipeline step, rotating it when full.
+     */
+    private final class SegmentWriter {
+
+        private final Path directory;
+        private long firstLine;
+        private long linesInSegment;
+        private FileChannel data;
+        private FileChannel index;
+        private volatile long lastAppend = System.currentTimeMillis();
+
+        SegmentWriter(Path directory) {
+            this.directory = directory;
+            try {
+                Files.createDirectories(directory);
+                List<Segment> segments = listSegments(directory);
+                if (segments.isEmpty()) {
+                    open(0, 0);
+                } else {
+                    Segment last = segments.getLast();
+                    long lines = lineCount(last);
+                    if (last.kind() == SegmentKind.ACTIVE) {
+                        open(last.firstLine(), lines);
+                    } else {
+                        open(last.firstLine() + lines, 0);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized void append(String line) throws IOException {
+            if (data == null) {
+                throw new IOException("Log segment writer already closed");
+            }
+            if (linesInSegment >= linesPerSegment) {
+                rotate();
+            }
+            if (linesInSegment % blockLines == 0) {
+                index.write(ByteBuffer.allocate(Long.BYTES).putLong(data.size()).flip());
+            }
+            data.write(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)));
+            linesInSegment++;
+            lastAppend = System.currentTimeMillis();
+        }
+
+        long lastAppend() {
+            return lastAppend;
+        }
+
+        synchronized void close(boolean sealSegment) {
+            try {
+                closeChannels();
+                if (sealSegment) {
+                    scheduleSeal();
+                }
+            } catch (IOException e) {
+                log.warn("Failed to close log segment in {}", directory, e);
+            }
+        }
+
+        private void rotate() throws IOException {
+            closeChannels();
+            scheduleSeal();
+            open(firstLine + linesInSegment, 0);
+        }
+
+        private void open(long segmentFirstLine, long existingLines) throws IOException {
+            this.firstLine = segmentFirstLine;
+            this.linesInSegment = existingLines;
+            Segment segment = new Segment(directory, segmentFirstLine, SegmentKind.ACTIVE);
+            this.data = FileChannel.open(segment.path(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.index = FileChannel.open(segment.indexPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        private void closeChannels() throws IOException {
+            if (data != null) {
+                data.close();
+                index.close();
+                data = null;
+                index = null;
+            }
+        }
+
+        private void scheduleSeal() throws IOException {
+            Segment active = new Segment(directory, firstLine, SegmentKind.ACTIVE);
+            if (!Files.exists(active.path())) {
+                return;
+            }
+            if (linesInSegment == 0) {
+                // Nothing to seal, and the next segment starts at the same line
+                Files.deleteIfExists(active.indexPath());
+                Files.delete(active.path());
+                return;
+            }
+            // Rename synchronously so a new writer never reopens a segment being compressed
+            Segment sealing = new Segment(directory, firstLine, SegmentKind.SEALING);
+            Files.move(active.indexPath(), sealing.indexPath(), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(active.path(), sealing.path(), StandardCopyOption.ATOMIC_MOVE);
+            sealExecutor.execute(() -> compress(sealing));
+        }
+    }
+
+    /**
+     * Lets each gzip member be closed (releasing its deflater) without closing the segment file.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
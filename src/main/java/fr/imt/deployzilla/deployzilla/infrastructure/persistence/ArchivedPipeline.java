@@ -0,0 +1,68 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.persistence;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Compact form of a pipeline past its retention period: the summary fields plus the outcome and
+ * duration of each job, without timestamps or anything else the live document carries.
+ */
+@Document(collection = "pipeline_archive")
+@CompoundIndex(name = "project_created", def = "{'projectId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "status_updated", def = "{'status': 1, 'updatedAt': -1, '_id': -1}")
+@Data
+@NoArgsConstructor
+public class ArchivedPipeline {
+
+    @Id
+    private String id;
+
+    private String projectId;
+
+    private String status;
+
+    private String commitHash;
+
+    private String author;
+
+    private String trigger;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private List<ArchivedJob> jobs;
+
+    public static ArchivedPipeline of(Pipeline pipeline) {
+        ArchivedPipeline archived = new ArchivedPipeline();
+        archived.setId(pipeline.getId());
+        archived.setProjectId(pipeline.getProjectId());
+        archived.setStatus(pipeline.getStatus());
+        archived.setCommitHash(pipeline.getCommitHash());
+        archived.setAuthor(pipeline.getAuthor());
+        archived.setTrigger(pipeline.getTrigger());
+        archived.setCreatedAt(pipeline.getCreatedAt());
+        archived.setUpdatedAt(pipeline.getUpdatedAt());
+        archived.setJobs(pipeline.getJobs().stream()
+                .map(job -> new ArchivedJob(job.getJobType(), job.getStatus(),
+                        job.getStartTime() != null && job.getEndTime() != null
+                                ? Duration.between(job.getStartTime(), job.getEndTime()).toMillis()
+                                : null))
+                .toList());
+        return archived;
+    }
+
+    /**
+     * @param durationMs {@code null} when the job never ran
+     */
+    public record ArchivedJob(JobType jobType, String status, Long durationMs) {
+    }
+}
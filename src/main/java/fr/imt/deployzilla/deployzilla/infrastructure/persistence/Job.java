@@ -25,4 +25,14 @@ public class Job {
         this.jobType = jobType;
     }
 
+    public Job copy() {
+        Job copy = new Job();
+        copy.setId(id);
+        copy.setStatus(status);
+        copy.setStartTime(startTime);
+        copy.setEndTime(endTime);
+        copy.setJobType(jobType);
+        return copy;
+    }
+
 }
@@ -1,9 +1,11 @@
 package fr.imt.deployzilla.deployzilla.infrastructure.persistence;
 
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
 import lombok.Data;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -12,6 +14,8 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Document(collection = "pipelines")
+@CompoundIndex(name = "project_created", def = "{'projectId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "status_updated", def = "{'status': 1, 'updatedAt': -1, '_id': -1}")
 @Data
 public class Pipeline {
 
@@ -30,6 +34,8 @@ public class Pipeline {
 
     private String triggerAuthor;
 
+    private RepositoryMetadata repository;
+
     private List<Job> jobs = new ArrayList<>();
 
     @CreatedDate
@@ -48,4 +54,23 @@ public class Pipeline {
         this.jobs.add(job);
     }
 
+    /**
+     * @return a copy that can be modified without affecting this pipeline or its jobs
+     */
+    public Pipeline copy() {
+        Pipeline copy = new Pipeline();
+        copy.setId(id);
+        copy.setProjectId(projectId);
+        copy.setStatus(status);
+        copy.setCommitHash(commitHash);
+        copy.setAuthor(author);
+        copy.setTrigger(trigger);
+        copy.setTriggerAuthor(triggerAuthor);
+        copy.setRepository(repository);
+        copy.setJobs(new ArrayList<>(jobs.stream().map(Job::copy).toList()));
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        return copy;
+    }
+
 }
@@ -1,5 +1,7 @@
 package fr.imt.deployzilla.deployzilla.infrastructure.persistence;
 
+import fr.imt.deployzilla.deployzilla.business.model.CloneStrategy;
+import fr.imt.deployzilla.deployzilla.business.model.ImageBuildMode;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -31,6 +33,37 @@ public class Project {
 
     private String repoUrl;
 
+    @Builder.Default
+    private CloneStrategy cloneStrategy = CloneStrategy.SHALLOW;
+
+    /**
+     * Directories to check out (cone-mode sparse checkout); empty for the whole repository.
+     */
+    @Builder.Default
+    private List<String> sparsePaths = new ArrayList<>();
+
+    /**
+     * Lint only the files changed since the last successful pipeline instead of the whole project.
+     */
+    @Builder.Default
+    private boolean lintChangedFilesOnly = false;
+
+    /**
+     * Number of parallel containers the tests are split across (Jest/Vitest {@code --shard}).
+     */
+    @Builder.Default
+    private int testShards = 1;
+
+    /**
+     * Run only the tests related to the files changed since the last successful pipeline, as found by
+     * the test runner's dependency graph, with a periodic full run.
+     */
+    @Builder.Default
+    private boolean testImpactSelection = false;
+
+    @Builder.Default
+    private ImageBuildMode imageBuildMode = ImageBuildMode.REBUILD;
+
     @Builder.Default
     private boolean autoDeploy = true;
 
@@ -1,37 +1,219 @@
 package fr.imt.deployzilla.deployzilla.infrastructure.persistence.repository;
 
+import fr.imt.deployzilla.deployzilla.business.model.PipelineCursor;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineSummary;
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
 import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import fr.imt.deployzilla.deployzilla.infrastructure.cache.ReadThroughCache;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.ArchivedPipeline;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Job;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
-import lombok.RequiredArgsConstructor;
+import fr.imt.deployzilla.deployzilla.infrastructure.redis.RedisCacheInvalidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
+/**
+ * Pipeline persistence with a read-through cache. Writes keep the cached copy in line with what was
+ * written (job and status changes reach Mongo through the write-behind buffer, so the cache is the
+ * more recent of the two) and invalidate the copies held by other nodes.
+ * <p>
+ * Finished pipelines past retention move to the {@code pipeline_archive} collection as
+ * {@link ArchivedPipeline}s; listings read both tiers and merge them.
+ */
 @Component
-@RequiredArgsConstructor
 public class MongoPipelineRepositoryAdapter implements PipelineRepositoryPort {
 
+    private static final String CACHE_NAME = "pipeline";
+
     private final PipelineRepository pipelineRepository;
     private final MongoTemplate mongoTemplate;
+    private final PipelineWriteBuffer writeBuffer;
+    private final RedisCacheInvalidator cacheInvalidator;
+    private final ReadThroughCache<String, Pipeline> cache;
+
+    public MongoPipelineRepositoryAdapter(PipelineRepository pipelineRepository,
+                                          MongoTemplate mongoTemplate,
+                                          PipelineWriteBuffer writeBuffer,
+                                          RedisCacheInvalidator cacheInvalidator,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${deployzilla.cache.pipeline.max-size:5000}") int maxSize,
+                                          @Value("${deployzilla.cache.pipeline.ttl:2m}") Duration ttl) {
+        this.pipelineRepository = pipelineRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.writeBuffer = writeBuffer;
+        this.cacheInvalidator = cacheInvalidator;
+        this.cache = new ReadThroughCache<>(CACHE_NAME, maxSize, ttl, Pipeline::copy, meterRegistry);
+        cacheInvalidator.register(CACHE_NAME, cache::invalidate);
+    }
 
     @Override
     public Pipeline save(Pipeline pipeline) {
-        return pipelineRepository.save(pipeline);
+        pipeline.setUpdatedAt(LocalDateTime.now());
+        Pipeline saved = pipelineRepository.save(pipeline);
+        cache.put(saved.getId(), saved);
+        cacheInvalidator.publish(CACHE_NAME, saved.getId());
+        return saved;
     }
 
     @Override
     public Optional<Pipeline> findById(String pipelineId) {
-        return pipelineRepository.findById(pipelineId);
+        // Buffered changes not yet in Mongo are applied on load, so a reload never caches older state
+        return cache.get(pipelineId, id -> pipelineRepository.findById(id).map(writeBuffer::overlay));
     }
 
     @Override
-    public void updateCommitHash(String pipelineId, String commitHash) {
+    public void updateRepositoryMetadata(String pipelineId, RepositoryMetadata metadata) {
         Query query = Query.query(Criteria.where("_id").is(pipelineId));
-        Update update = Update.update("commitHash", commitHash);
+        Update update = Update.update("commitHash", metadata.getCommitHash())
+                .set("repository", metadata)
+                .set("updatedAt", LocalDateTime.now());
         mongoTemplate.updateFirst(query, update, Pipeline.class);
+        cache.update(pipelineId, pipeline -> {
+            pipeline.setCommitHash(metadata.getCommitHash());
+            pipeline.setRepository(metadata);
+        });
+        cacheInvalidator.publish(CACHE_NAME, pipelineId);
+    }
+
+    @Override
+    public Optional<String> findLastSuccessfulCommitHash(String projectId) {
+        Query query = Query.query(Criteria.where("projectId").is(projectId)
+                        .and("status").is("SUCCESS")
+                        .and("commitHash").ne(null))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(1);
+        query.fields().include("commitHash");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Pipeline.class))
+                .map(Pipeline::getCommitHash);
+    }
+
+    @Override
+    public void updateStatus(String pipelineId, String status) {
+        writeBuffer.setPipelineField(pipelineId, "status", status);
+        cache.update(pipelineId, pipeline -> pipeline.setStatus(status));
+        cacheInvalidator.publish(CACHE_NAME, pipelineId);
+    }
+
+    @Override
+    public void updateJob(String pipelineId, Job job) {
+        writeBuffer.setJobField(pipelineId, job.getId(), "status", job.getStatus());
+        writeBuffer.setJobField(pipelineId, job.getId(), "startTime", job.getStartTime());
+        writeBuffer.setJobField(pipelineId, job.getId(), "endTime", job.getEndTime());
+        cache.update(pipelineId, pipeline -> pipeline.getJobs().stream()
+                .filter(cached -> cached.getId().equals(job.getId()))
+                .forEach(cached -> {
+                    cached.setStatus(job.getStatus());
+                    cached.setStartTime(job.getStartTime());
+                    cached.setEndTime(job.getEndTime());
+                }));
+        cacheInvalidator.publish(CACHE_NAME, pipelineId);
+    }
+
+    @Override
+    public List<PipelineSummary> findByProject(String projectId, PipelineCursor after, int limit) {
+        return findPage(Criteria.where("projectId").is(projectId), "createdAt", PipelineSummary::getCreatedAt, after, limit);
+    }
+
+    @Override
+    public List<PipelineSummary> findByStatus(String status, PipelineCursor after, int limit) {
+        return findPage(Criteria.where("status").is(status), "updatedAt", PipelineSummary::getUpdatedAt, after, limit);
+    }
+
+    @Override
+    public int archiveFinishedBefore(LocalDateTime cutoff, int limit) {
+        Query query = Query.query(finished(time -> time.lt(cutoff))).limit(limit);
+        List<Pipeline> pipelines = mongoTemplate.find(query, Pipeline.class);
+        if (pipelines.isEmpty()) {
+            return 0;
+        }
+
+        // Upserts keep a rerun after a crash between the two steps harmless
+        BulkOperations archive = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ArchivedPipeline.class);
+        pipelines.forEach(pipeline -> archive.replaceOne(
+                Query.query(Criteria.where("_id").is(pipeline.getId())),
+                ArchivedPipeline.of(pipeline),
+                FindAndReplaceOptions.options().upsert()));
+        archive.execute();
+
+        List<String> ids = pipelines.stream().map(Pipeline::getId).toList();
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), Pipeline.class);
+        ids.forEach(cache::invalidate);
+        return pipelines.size();
+    }
+
+    @Override
+    public List<Pipeline> findFinishedSince(LocalDateTime since) {
+        Query query = Query.query(finished(time -> time.gte(since)));
+        query.fields().include("projectId", "jobs");
+        return mongoTemplate.find(query, Pipeline.class);
+    }
+
+    /**
+     * Finished pipelines whose last update matches {@code bound}. Pipelines written before updatedAt was
+     * tracked have none, and are matched on their creation instead.
+     */
+    private static Criteria finished(UnaryOperator<Criteria> bound) {
+        return Criteria.where("status").in("SUCCESS", "FAILED").orOperator(
+                bound.apply(Criteria.where("updatedAt")),
+                new Criteria().andOperator(
+                        Criteria.where("updatedAt").is(null),
+                        bound.apply(Criteria.where("createdAt"))));
+    }
+
+    /**
+     * Keyset page on {@code (sortField desc, _id desc)} over both tiers. Each tier is read through its
+     * matching compound index and only the summary fields are loaded, never the jobs. Documents written
+     * before the sort field existed have none: Mongo sorts them last, and a cursor without a sort value
+     * continues among them by ID.
+     */
+    private List<PipelineSummary> findPage(Criteria filter, String sortField,
+                                           Function<PipelineSummary, LocalDateTime> sortValue,
+                                           PipelineCursor after, int limit) {
+        Query query = Query.query(filter);
+        if (after != null && after.getSortValue() != null) {
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where(sortField).lt(after.getSortValue()),
+                    new Criteria().andOperator(
+                            Criteria.where(sortField).is(after.getSortValue()),
+                            Criteria.where("_id").lt(after.getId())),
+                    Criteria.where(sortField).is(null)));
+        } else if (after != null) {
+            query.addCriteria(Criteria.where(sortField).is(null).and("_id").lt(after.getId()));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, sortField, "_id")).limit(limit);
+
+        List<PipelineSummary> live = mongoTemplate.query(Pipeline.class)
+                .as(PipelineSummary.class)
+                .matching(query)
+                .all();
+        List<PipelineSummary> archived = mongoTemplate.query(ArchivedPipeline.class)
+                .as(PipelineSummary.class)
+                .matching(query)
+                .all();
+
+        return Stream.concat(live.stream(), archived.stream())
+                .sorted(Comparator.comparing(sortValue, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                        .thenComparing(PipelineSummary::getId)
+                        .reversed())
+                .distinct()
+                .limit(limit)
+                .toList();
     }
 }
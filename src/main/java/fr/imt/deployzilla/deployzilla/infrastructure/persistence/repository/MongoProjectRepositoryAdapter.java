@@ -1,24 +1,46 @@
 package fr.imt.deployzilla.deployzilla.infrastructure.persistence.repository;
 
 import fr.imt.deployzilla.deployzilla.business.port.ProjectRepositoryPort;
+import fr.imt.deployzilla.deployzilla.infrastructure.cache.ReadThroughCache;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Project;
-import lombok.RequiredArgsConstructor;
+import fr.imt.deployzilla.deployzilla.infrastructure.redis.RedisCacheInvalidator;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
+/**
+ * Project lookups with a read-through cache. Projects are written outside this service, and no
+ * invalidation reaches us from there, so entries only live for a short TTL.
+ */
 @Component
-@RequiredArgsConstructor
 public class MongoProjectRepositoryAdapter implements ProjectRepositoryPort {
 
+    private static final String CACHE_NAME = "project";
+
     private final ProjectRepository projectRepository;
+    private final ReadThroughCache<String, Project> cache;
+
+    public MongoProjectRepositoryAdapter(ProjectRepository projectRepository,
+                                         RedisCacheInvalidator cacheInvalidator,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${deployzilla.cache.project.max-size:1000}") int maxSize,
+                                         @Value("${deployzilla.cache.project.ttl:10s}") Duration ttl) {
+        this.projectRepository = projectRepository;
+        // Projects are only read by the pipeline steps, never modified
+        this.cache = new ReadThroughCache<>(CACHE_NAME, maxSize, ttl, UnaryOperator.identity(), meterRegistry);
+        cacheInvalidator.register(CACHE_NAME, cache::invalidate);
+    }
 
     @Override
     public Optional<Project> findById(String projectId) {
         if (!ObjectId.isValid(projectId)) {
             return Optional.empty();
         }
-        return projectRepository.findById(new ObjectId(projectId));
+        return cache.get(projectId, id -> projectRepository.findById(new ObjectId(id)));
     }
 }
@@ -0,0 +1,157 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.persistence.repository;
+
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for pipeline and job field changes. Changes are coalesced per pipeline (the last
+ * value of a field wins) and flushed periodically as one unordered bulk write, with a single targeted
+ * {@code $set} per pipeline: job fields are addressed as {@code jobs.$[jN].field} with an array filter
+ * on the job ID, so concurrent writers of other fields are never overwritten. Until a change is
+ * written, {@link #overlay} applies it to pipelines read from Mongo.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PipelineWriteBuffer {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+    /** Changes taken by a flush whose bulk write has not completed yet. */
+    private final Map<String, PendingWrite> writing = new ConcurrentHashMap<>();
+
+    @Value("${deployzilla.persistence.write-behind.max-batch-size:500}")
+    private int maxBatchSize;
+
+    public void setPipelineField(String pipelineId, String field, Object value) {
+        // Mutations happen inside compute so they cannot race with flush() taking the entry
+        pending.compute(pipelineId, (id, write) -> {
+            PendingWrite target = write != null ? write : new PendingWrite();
+            target.pipelineFields.put(field, value);
+            return target;
+        });
+    }
+
+    public void setJobField(String pipelineId, String jobId, String field, Object value) {
+        pending.compute(pipelineId, (id, write) -> {
+            PendingWrite target = write != null ? write : new PendingWrite();
+            target.jobFields.computeIfAbsent(jobId, j -> new LinkedHashMap<>()).put(field, value);
+            return target;
+        });
+    }
+
+    /**
+     * Apply the changes not written yet to a pipeline just read from Mongo, oldest first.
+     * Field names are the document's, which are also the entity's.
+     */
+    public Pipeline overlay(Pipeline pipeline) {
+        PendingWrite inFlight = writing.get(pipeline.getId());
+        if (inFlight != null) {
+            inFlight.applyTo(pipeline);
+        }
+        // Read inside compute so a concurrent change is not seen half-applied
+        pending.computeIfPresent(pipeline.getId(), (id, write) -> {
+            write.applyTo(pipeline);
+            return write;
+        });
+        return pipeline;
+    }
+
+    @Scheduled(fixedDelayString = "${deployzilla.persistence.write-behind.flush-interval-ms:250}")
+    public void flush() {
+        List<Map.Entry<String, PendingWrite>> batch = new ArrayList<>();
+        for (String pipelineId : pending.keySet()) {
+            PendingWrite write = pending.remove(pipelineId);
+            if (write == null) {
+                continue;
+            }
+            batch.add(Map.entry(pipelineId, write));
+            if (batch.size() >= maxBatchSize) {
+                write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void write(List<Map.Entry<String, PendingWrite>> batch) {
+        batch.forEach(entry -> writing.put(entry.getKey(), entry.getValue()));
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Pipeline.class);
+        batch.forEach(entry -> bulk.updateOne(
+                Query.query(Criteria.where("_id").is(entry.getKey())), entry.getValue().toUpdate()));
+        try {
+            bulk.execute();
+        } catch (Exception e) {
+            log.error("Failed to write {} pipeline updates, retrying on next flush", batch.size(), e);
+            // Changes made since this batch was taken are newer and take precedence
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), (newer, failed) -> failed.overriddenBy(newer)));
+        } finally {
+            batch.forEach(entry -> writing.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final Map<String, Object> pipelineFields = new LinkedHashMap<>();
+        private final Map<String, Map<String, Object>> jobFields = new LinkedHashMap<>();
+
+        Update toUpdate() {
+            Update update = new Update();
+            pipelineFields.forEach(update::set);
+            update.set("updatedAt", LocalDateTime.now());
+            int index = 0;
+            for (Map.Entry<String, Map<String, Object>> job : jobFields.entrySet()) {
+                String identifier = "j" + index++;
+                job.getValue().forEach((field, value) -> update.set("jobs.$[" + identifier + "]." + field, value));
+                update.filterArray(Criteria.where(identifier + "._id").is(job.getKey()));
+            }
+            return update;
+        }
+
+        void applyTo(Pipeline pipeline) {
+            BeanWrapper target = PropertyAccessorFactory.forBeanPropertyAccess(pipeline);
+            pipelineFields.forEach(target::setPropertyValue);
+            jobFields.forEach((jobId, fields) -> pipeline.getJobs().stream()
+                    .filter(job -> jobId.equals(job.getId()))
+                    .map(PropertyAccessorFactory::forBeanPropertyAccess)
+                    .forEach(job -> fields.forEach(job::setPropertyValue)));
+        }
+
+        /**
+         * @return this write (the older one) with {@code newer}'s values applied on top
+         */
+        PendingWrite overriddenBy(PendingWrite newer) {
+            pipelineFields.putAll(newer.pipelineFields);
+            newer.jobFields.forEach((jobId, fields) ->
+                    jobFields.computeIfAbsent(jobId, j -> new LinkedHashMap<>()).putAll(fields));
+            return this;
+        }
+    }
+}
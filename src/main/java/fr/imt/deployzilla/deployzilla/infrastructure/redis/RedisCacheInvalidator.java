@@ -0,0 +1,70 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.redis;
+
+import fr.imt.deployzilla.deployzilla.configuration.RedisConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Tells other nodes to drop cached entries this node has written. Messages are {@code nodeId|cache|key}
+ * on a single channel; nothing is published or subscribed unless {@code deployzilla.cache.redis-invalidation.enabled}.
+ */
+@Component
+@Slf4j
+public class RedisCacheInvalidator implements MessageListener {
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<String>> caches = new ConcurrentHashMap<>();
+
+    public RedisCacheInvalidator(StringRedisTemplate redisTemplate, RedisMessageListenerContainer container,
+                                 @Value("${deployzilla.cache.redis-invalidation.enabled:false}") boolean enabled) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        if (enabled) {
+            container.addMessageListener(this, new ChannelTopic(RedisConfiguration.CACHE_INVALIDATION_TOPIC));
+        }
+    }
+
+    /**
+     * Register the eviction callback of a cache, called with the keys other nodes invalidate.
+     */
+    public void register(String cache, Consumer<String> evict) {
+        caches.put(cache, evict);
+    }
+
+    public void publish(String cache, String key) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(RedisConfiguration.CACHE_INVALIDATION_TOPIC, nodeId + "|" + cache + "|" + key);
+        } catch (Exception e) {
+            log.error("Failed to publish invalidation of {} {}", cache, key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        Consumer<String> evict = caches.get(parts[1]);
+        if (evict != null) {
+            evict.accept(parts[2]);
+        }
+    }
+}
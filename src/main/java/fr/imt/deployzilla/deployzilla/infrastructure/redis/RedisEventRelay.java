@@ -0,0 +1,245 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.redis;
+
+import fr.imt.deployzilla.deployzilla.configuration.RedisConfiguration;
+import fr.imt.deployzilla.deployzilla.infrastructure.codec.LogRecordCodec;
+import fr.imt.deployzilla.deployzilla.infrastructure.codec.PipelineStatusCodec;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.LocalEventBus;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.PipelineInterestChanged;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.PipelineTopic;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Carries pipeline events between nodes. Events are delivered locally through the {@link LocalEventBus};
+ * this relay only subscribes to a per-pipeline channel while local clients watch that pipeline, and
+ * only publishes an event to Redis while another node does. A single node therefore never publishes
+ * anything.
+ * <p>
+ * Nodes learn who watches what from announcements on the {@code pipeline-interest} channel: a node
+ * announces a channel as soon as it subscribes to it and withdraws it when it unsubscribes, so the
+ * first events after a remote client subscribes are relayed. Announcements are repeated every
+ * {@code deployzilla.events.redis.interest-refresh-ms} and expire after three missed refreshes, in
+ * case a node goes away without withdrawing; a starting node asks the others to announce again.
+ * Refreshes are only sent while other nodes have been heard from, as a presence message when this
+ * node watches nothing, so a single node stays silent.
+ * <p>
+ * Payloads are wrapped as {@code u8 0xE1 | u8 nodeIdLength | nodeId | event} so a node can ignore
+ * its own events. Announcements are {@code u8 '+'|'-'|'?'|'!' | channel} in the same envelope.
+ */
+@Component
+@Slf4j
+public class RedisEventRelay implements MessageListener {
+
+    private static final byte ENVELOPE_MAGIC = (byte) 0xE1;
+    private static final byte INTEREST_ADDED = '+';
+    private static final byte INTEREST_REMOVED = '-';
+    private static final byte INTEREST_SYNC = '?';
+    private static final byte PRESENCE = '!';
+    private static final int MISSED_REFRESHES = 3;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer container;
+    private final LogRecordCodec logCodec;
+    private final PipelineStatusCodec statusCodec;
+    private final LocalEventBus eventBus;
+
+    private final byte[] nodeId = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+    private final Map<String, PipelineTopic> subscribedChannels = new ConcurrentHashMap<>();
+    /** Expiry of each remote node's announcement, by channel. */
+    private final Map<String, Map<String, Long>> remoteInterest = new ConcurrentHashMap<>();
+    /** Expiry of each remote node last heard from. */
+    private final Map<String, Long> peers = new ConcurrentHashMap<>();
+
+    @Value("${deployzilla.events.redis.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deployzilla.events.redis.interest-refresh-ms:30000}")
+    private long interestRefreshMs;
+
+    public RedisEventRelay(StringRedisTemplate redisTemplate, RedisMessageListenerContainer container,
+                           LogRecordCodec logCodec, PipelineStatusCodec statusCodec, LocalEventBus eventBus) {
+        this.redisTemplate = redisTemplate;
+        this.container = container;
+        this.logCodec = logCodec;
+        this.statusCodec = statusCodec;
+        this.eventBus = eventBus;
+        eventBus.subscribe(PipelineInterestChanged.class, this::onInterestChanged);
+    }
+
+    @PostConstruct
+    void listenForInterest() {
+        if (enabled) {
+            container.addMessageListener(this, new ChannelTopic(RedisConfiguration.INTEREST_TOPIC));
+            announce(INTEREST_SYNC, "");
+        }
+    }
+
+    /**
+     * Publish an event to other nodes, encoding it only if one of them is listening.
+     */
+    public void relay(PipelineTopic topic, String pipelineId, Supplier<byte[]> payload) {
+        if (!enabled) {
+            return;
+        }
+        String channel = RedisConfiguration.channel(topic, pipelineId);
+        try {
+            if (!hasRemoteInterest(channel)) {
+                return;
+            }
+            byte[] envelope = wrap(payload.get());
+            byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channelBytes, envelope));
+        } catch (Exception e) {
+            log.error("Failed to relay {} event for pipeline {}", topic, pipelineId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        byte[] body = message.getBody();
+        if (body.length < 2 || body[0] != ENVELOPE_MAGIC) {
+            return;
+        }
+        int nodeIdLength = body[1] & 0xFF;
+        if (Arrays.equals(body, 2, 2 + nodeIdLength, nodeId, 0, nodeId.length)) {
+            return;
+        }
+        byte[] event = Arrays.copyOfRange(body, 2 + nodeIdLength, body.length);
+        if (RedisConfiguration.INTEREST_TOPIC.equals(channel)) {
+            onAnnouncement(new String(body, 2, nodeIdLength, StandardCharsets.UTF_8), event);
+            return;
+        }
+        PipelineTopic topic = subscribedChannels.get(channel);
+        if (topic == null) {
+            return;
+        }
+        try {
+            eventBus.publish(topic == PipelineTopic.LOGS ? logCodec.decode(event) : statusCodec.decode(event));
+        } catch (Exception e) {
+            log.error("Failed to decode {} event from channel {}", topic, channel, e);
+        }
+    }
+
+    private void onInterestChanged(PipelineInterestChanged change) {
+        if (!enabled) {
+            return;
+        }
+        String channel = RedisConfiguration.channel(change.topic(), change.pipelineId());
+        if (change.active()) {
+            subscribedChannels.put(channel, change.topic());
+            // Subscribed before announcing, so events relayed in response are not missed
+            container.addMessageListener(this, new ChannelTopic(channel));
+            announce(INTEREST_ADDED, channel);
+        } else {
+            announce(INTEREST_REMOVED, channel);
+            container.removeMessageListener(this, new ChannelTopic(channel));
+            subscribedChannels.remove(channel);
+        }
+    }
+
+    /**
+     * Forget the remote announcements and nodes that were not repeated, then repeat this node's
+     * announcements if any other node is left to hear them.
+     */
+    @Scheduled(fixedDelayString = "${deployzilla.events.redis.interest-refresh-ms:30000}")
+    public void refreshInterest() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        remoteInterest.forEach((channel, nodes) -> {
+            nodes.values().removeIf(expiresAt -> expiresAt < now);
+            remoteInterest.computeIfPresent(channel, (c, current) -> current.isEmpty() ? null : current);
+        });
+        peers.values().removeIf(expiresAt -> expiresAt < now);
+        if (remoteInterest.isEmpty() && peers.isEmpty()) {
+            return;
+        }
+        announceAll();
+    }
+
+    private void onAnnouncement(String remoteNode, byte[] announcement) {
+        if (announcement.length == 0) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + MISSED_REFRESHES * interestRefreshMs;
+        peers.put(remoteNode, expiresAt);
+        String channel = new String(announcement, 1, announcement.length - 1, StandardCharsets.UTF_8);
+        switch (announcement[0]) {
+            case INTEREST_ADDED -> remoteInterest.computeIfAbsent(channel, c -> new ConcurrentHashMap<>())
+                    .put(remoteNode, expiresAt);
+            case INTEREST_REMOVED -> remoteInterest.computeIfPresent(channel, (c, nodes) -> {
+                nodes.remove(remoteNode);
+                return nodes.isEmpty() ? null : nodes;
+            });
+            case INTEREST_SYNC -> announceAll();
+            case PRESENCE -> {
+                // Only keeps the node known
+            }
+            default -> log.debug("Ignoring unknown interest announcement from node {}", remoteNode);
+        }
+    }
+
+    /**
+     * Announce every watched channel, or only that this node is alive when it watches none, so the
+     * other nodes keep refreshing theirs.
+     */
+    private void announceAll() {
+        if (subscribedChannels.isEmpty()) {
+            announce(PRESENCE, "");
+        } else {
+            subscribedChannels.keySet().forEach(channel -> announce(INTEREST_ADDED, channel));
+        }
+    }
+
+    private boolean hasRemoteInterest(String channel) {
+        Map<String, Long> nodes = remoteInterest.get(channel);
+        if (nodes == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        return nodes.values().stream().anyMatch(expiresAt -> expiresAt >= now);
+    }
+
+    private void announce(byte type, String channel) {
+        byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+        byte[] announcement = new byte[1 + channelBytes.length];
+        announcement[0] = type;
+        System.arraycopy(channelBytes, 0, announcement, 1, channelBytes.length);
+        byte[] envelope = wrap(announcement);
+        byte[] topic = RedisConfiguration.INTEREST_TOPIC.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(topic, envelope));
+        } catch (Exception e) {
+            // The periodic refresh announces it again
+            log.warn("Failed to announce interest in {}: {}", channel, e.getMessage());
+        }
+    }
+
+    private byte[] wrap(byte[] event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + nodeId.length + event.length);
+        out.write(ENVELOPE_MAGIC);
+        out.write(nodeId.length);
+        out.writeBytes(nodeId);
+        out.writeBytes(event);
+        return out.toByteArray();
+    }
+}
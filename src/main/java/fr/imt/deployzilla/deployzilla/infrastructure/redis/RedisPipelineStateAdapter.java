@@ -0,0 +1,178 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.redis;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobProgress;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineState;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineStatusUpdate;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineStatePort;
+import fr.imt.deployzilla.deployzilla.configuration.RedisConfiguration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pipeline snapshots held in memory on the node running the pipeline. When several nodes serve the
+ * API, {@code deployzilla.state.redis.enabled} also mirrors them into one Redis hash per pipeline
+ * (only the fields that changed are written), which other nodes read on a local miss.
+ * <pre>
+ * status | currentStep | version | updatedAt | job:{jobId} = index|jobType|status|startedAt|endedAt
+ * </pre>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RedisPipelineStateAdapter implements PipelineStatePort {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("SUCCESS", "FAILED");
+    private static final String JOB_FIELD_PREFIX = "job:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final Map<String, PipelineState> states = new ConcurrentHashMap<>();
+
+    @Value("${deployzilla.state.retention:10m}")
+    private Duration retention;
+
+    @Value("${deployzilla.state.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${deployzilla.state.redis.ttl:1d}")
+    private Duration redisTtl;
+
+    @Override
+    public PipelineState apply(PipelineStatusUpdate update) {
+        PipelineState state = states.compute(update.getPipelineId(), (id, previous) -> merge(previous, update));
+        if (redisEnabled) {
+            write(state, update);
+        }
+        return state;
+    }
+
+    @Override
+    public Optional<PipelineState> find(String pipelineId) {
+        PipelineState state = states.get(pipelineId);
+        if (state != null || !redisEnabled) {
+            return Optional.ofNullable(state);
+        }
+        return read(pipelineId);
+    }
+
+    @Scheduled(fixedDelayString = "${deployzilla.state.eviction-interval-ms:60000}")
+    public void evict() {
+        long now = System.currentTimeMillis();
+        states.values().removeIf(state -> state.getUpdatedAt() < now - (TERMINAL_STATUSES.contains(state.getStatus())
+                ? retention.toMillis()
+                : redisTtl.toMillis()));
+    }
+
+    private static PipelineState merge(PipelineState previous, PipelineStatusUpdate update) {
+        Map<String, JobProgress> jobs = new LinkedHashMap<>();
+        if (previous != null) {
+            previous.getJobs().forEach(job -> jobs.put(job.getJobId(), job));
+        }
+        if (update.getJobs() != null) {
+            update.getJobs().forEach(job -> jobs.put(job.getJobId(), job));
+        }
+
+        long version = previous != null ? Math.max(previous.getVersion() + 1, update.getTimestamp()) : update.getTimestamp();
+        return PipelineState.builder()
+                .pipelineId(update.getPipelineId())
+                .status(update.getStatus())
+                .currentStep(update.getCurrentStep())
+                .jobs(List.copyOf(jobs.values()))
+                .version(version)
+                .updatedAt(update.getTimestamp())
+                .build();
+    }
+
+    private void write(PipelineState state, PipelineStatusUpdate update) {
+        String key = RedisConfiguration.pipelineStateKey(state.getPipelineId());
+        Map<String, String> fields = new HashMap<>();
+        fields.put("status", nullToEmpty(state.getStatus()));
+        fields.put("currentStep", nullToEmpty(state.getCurrentStep()));
+        fields.put("version", Long.toString(state.getVersion()));
+        fields.put("updatedAt", Long.toString(state.getUpdatedAt()));
+        if (update.getJobs() != null) {
+            for (JobProgress job : update.getJobs()) {
+                fields.put(JOB_FIELD_PREFIX + job.getJobId(), encodeJob(state.getJobs().indexOf(job), job));
+            }
+        }
+        long ttlSeconds = (TERMINAL_STATUSES.contains(state.getStatus()) ? retention : redisTtl).toSeconds();
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection strings = (StringRedisConnection) connection;
+                strings.hMSet(key, fields);
+                strings.expire(key, ttlSeconds);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Failed to mirror state of pipeline {} to Redis", state.getPipelineId(), e);
+        }
+    }
+
+    private Optional<PipelineState> read(String pipelineId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(RedisConfiguration.pipelineStateKey(pipelineId));
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<Map.Entry<Integer, JobProgress>> jobs = new ArrayList<>();
+        fields.forEach((field, value) -> {
+            String name = field.toString();
+            if (name.startsWith(JOB_FIELD_PREFIX)) {
+                String[] parts = value.toString().split("\\|", -1);
+                jobs.add(Map.entry(Integer.parseInt(parts[0]), JobProgress.builder()
+                        .jobId(name.substring(JOB_FIELD_PREFIX.length()))
+                        .jobType(emptyToNull(parts[1]))
+                        .status(emptyToNull(parts[2]))
+                        .startedAt(parseTime(parts[3]))
+                        .endedAt(parseTime(parts[4]))
+                        .build()));
+            }
+        });
+        jobs.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+
+        return Optional.of(PipelineState.builder()
+                .pipelineId(pipelineId)
+                .status(emptyToNull(fields.get("status").toString()))
+                .currentStep(emptyToNull(fields.get("currentStep").toString()))
+                .jobs(jobs.stream().map(Map.Entry::getValue).toList())
+                .version(Long.parseLong(fields.get("version").toString()))
+                .updatedAt(Long.parseLong(fields.get("updatedAt").toString()))
+                .build());
+    }
+
+    private static String encodeJob(int index, JobProgress job) {
+        return index + "|" + nullToEmpty(job.getJobType()) + "|" + nullToEmpty(job.getStatus())
+                + "|" + (job.getStartedAt() != null ? job.getStartedAt() : "")
+                + "|" + (job.getEndedAt() != null ? job.getEndedAt() : "");
+    }
+
+    private static Long parseTime(String value) {
+        return value.isEmpty() ? null : Long.parseLong(value);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
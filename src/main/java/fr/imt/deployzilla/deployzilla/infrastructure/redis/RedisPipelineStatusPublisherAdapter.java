@@ -1,29 +1,28 @@
 package fr.imt.deployzilla.deployzilla.infrastructure.redis;
 
+import fr.imt.deployzilla.deployzilla.business.model.PipelineStatusUpdate;
 import fr.imt.deployzilla.deployzilla.business.port.PipelineStatusPublisherPort;
-import fr.imt.deployzilla.deployzilla.configuration.RedisConfiguration;
+import fr.imt.deployzilla.deployzilla.infrastructure.codec.PipelineStatusCodec;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.LocalEventBus;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.PipelineTopic;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+/**
+ * Delivers status updates to local subscribers through the event bus, and to other nodes over Redis
+ * when they watch the pipeline.
+ */
 @Component
-@Slf4j
 @RequiredArgsConstructor
 public class RedisPipelineStatusPublisherAdapter implements PipelineStatusPublisherPort {
 
-    private final StringRedisTemplate redisTemplate;
+    private final LocalEventBus eventBus;
+    private final RedisEventRelay relay;
+    private final PipelineStatusCodec codec;
 
     @Override
-    public void publish(String pipelineId, String status, String currentStep) {
-        try {
-            String message = String.format("%s|%s|%s",
-                    pipelineId,
-                    status,
-                    currentStep != null ? currentStep : "");
-            redisTemplate.convertAndSend(RedisConfiguration.PIPELINE_STATUS_TOPIC, message);
-        } catch (Exception e) {
-            log.error("Failed to publish pipeline status for pipeline {}", pipelineId, e);
-        }
+    public void publish(PipelineStatusUpdate update) {
+        eventBus.publish(update);
+        relay.relay(PipelineTopic.STATUS, update.getPipelineId(), () -> codec.encode(update));
     }
 }
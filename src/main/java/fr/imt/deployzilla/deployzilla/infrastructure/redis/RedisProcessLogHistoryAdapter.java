@@ -0,0 +1,66 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.redis;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogStream;
+import fr.imt.deployzilla.deployzilla.business.model.ProcessLogEntry;
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogHistoryPort;
+import fr.imt.deployzilla.deployzilla.configuration.RedisConfiguration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads pipeline log history back from the per-pipeline Redis Stream. Entries carry the step,
+ * output stream and sequence they were published with, so clients can rebuild per-step views.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisProcessLogHistoryAdapter implements ProcessLogHistoryPort {
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public List<ProcessLogEntry> readAfter(String pipelineId, String lastSeenId, int limit) {
+        // Exclusive lower bound so a client resuming from its last seen ID does not get it twice
+        Range<String> range = (lastSeenId == null || lastSeenId.isBlank())
+                ? Range.unbounded()
+                : Range.rightUnbounded(Range.Bound.exclusive(lastSeenId));
+
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                .range(RedisConfiguration.logStreamKey(pipelineId), range, Limit.limit().count(limit));
+
+        if (records == null) {
+            return List.of();
+        }
+
+        return records.stream()
+                .map(this::toEntry)
+                .toList();
+    }
+
+    private ProcessLogEntry toEntry(MapRecord<String, Object, Object> record) {
+        Map<Object, Object> fields = record.getValue();
+        String message = field(fields, RedisConfiguration.LOG_STREAM_MESSAGE_FIELD);
+        String stream = field(fields, RedisConfiguration.LOG_STREAM_STREAM_FIELD);
+        String sequence = field(fields, RedisConfiguration.LOG_STREAM_SEQUENCE_FIELD);
+        String timestamp = field(fields, RedisConfiguration.LOG_STREAM_TIMESTAMP_FIELD);
+        // Entries appended before these fields existed only have the text
+        return new ProcessLogEntry(
+                record.getId().getValue(),
+                timestamp != null ? Long.parseLong(timestamp) : record.getId().getTimestamp(),
+                field(fields, RedisConfiguration.LOG_STREAM_STEP_FIELD),
+                stream != null ? LogStream.valueOf(stream) : null,
+                sequence != null ? Long.valueOf(sequence) : null,
+                message != null ? message : "");
+    }
+
+    private static String field(Map<Object, Object> fields, String name) {
+        Object value = fields.get(name);
+        return value != null ? value.toString() : null;
+    }
+}
@@ -1,20 +1,98 @@
 package fr.imt.deployzilla.deployzilla.infrastructure.redis;
 
+import fr.imt.deployzilla.deployzilla.business.model.LogRecord;
 import fr.imt.deployzilla.deployzilla.business.port.ProcessLogPublisherPort;
 import fr.imt.deployzilla.deployzilla.configuration.RedisConfiguration;
+import fr.imt.deployzilla.deployzilla.infrastructure.codec.LogRecordCodec;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.LocalEventBus;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.PipelineTopic;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Delivers process log records to local subscribers through the event bus and to other nodes
+ * watching the pipeline over Redis pub/sub. When the "stream" log mode is enabled, they are also
+ * appended to a per-pipeline Redis Stream so they can be replayed, with their step, output stream,
+ * sequence and timestamp as fields next to the text.
+ */
 @Component
+@Slf4j
 @RequiredArgsConstructor
 public class RedisProcessLogPublisherAdapter implements ProcessLogPublisherPort {
 
     private final StringRedisTemplate redisTemplate;
+    private final LocalEventBus eventBus;
+    private final RedisEventRelay relay;
+    private final LogRecordCodec codec;
+
+    @Value("${deployzilla.logs.codec:BINARY}")
+    private LogRecordCodec.Format codecFormat;
+
+    @Value("${deployzilla.logs.mode:pubsub}")
+    private String logMode;
+
+    @Value("${deployzilla.logs.stream.max-length:10000}")
+    private long streamMaxLength;
+
+    @Value("${deployzilla.logs.stream.ttl:7d}")
+    private Duration streamTtl;
 
     @Override
-    public void publish(String pipelineId, String message) {
-        String payload = pipelineId + "|" + message;
-        redisTemplate.convertAndSend(RedisConfiguration.LOGS_TOPIC, payload);
+    public void publish(LogRecord record) {
+        if (RedisConfiguration.LOG_MODE_STREAM.equals(logMode)) {
+            appendToStream(record);
+        }
+        eventBus.publish(record);
+        relay.relay(PipelineTopic.LOGS, record.getPipelineId(), () -> codec.encode(record, codecFormat));
+    }
+
+    private void appendToStream(LogRecord logRecord) {
+        String pipelineId = logRecord.getPipelineId();
+        byte[] key = RedisConfiguration.logStreamKey(pipelineId).getBytes(StandardCharsets.UTF_8);
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        putField(fields, RedisConfiguration.LOG_STREAM_MESSAGE_FIELD, logRecord.getPayload());
+        putField(fields, RedisConfiguration.LOG_STREAM_STEP_FIELD, logRecord.getStepId());
+        putField(fields, RedisConfiguration.LOG_STREAM_STREAM_FIELD,
+                logRecord.getStream() != null ? logRecord.getStream().name() : null);
+        putField(fields, RedisConfiguration.LOG_STREAM_SEQUENCE_FIELD, Long.toString(logRecord.getSequence()));
+        putField(fields, RedisConfiguration.LOG_STREAM_TIMESTAMP_FIELD,
+                logRecord.getTimestamp() != null ? Long.toString(logRecord.getTimestamp().toEpochMilli()) : null);
+        MapRecord<byte[], byte[], byte[]> record = StreamRecords.newRecord()
+                .in(key)
+                .ofMap(fields);
+
+        try {
+            // XADD + EXPIRE in a single round trip; MAXLEN ~ keeps trimming cheap
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                appendCommands(connection, key, record);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Failed to append log to stream for pipeline {}", pipelineId, e);
+        }
+    }
+
+    private static void putField(Map<byte[], byte[]> fields, String name, String value) {
+        if (value != null) {
+            fields.put(name.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void appendCommands(RedisConnection connection, byte[] key, MapRecord<byte[], byte[], byte[]> record) {
+        connection.streamCommands().xAdd(record, XAddOptions.maxlen(streamMaxLength).approximateTrimming(true));
+        connection.keyCommands().expire(key, streamTtl.toSeconds());
     }
 }
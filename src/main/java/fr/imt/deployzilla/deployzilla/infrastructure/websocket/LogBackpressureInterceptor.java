@@ -0,0 +1,222 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.websocket;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogRecord;
+import fr.imt.deployzilla.deployzilla.business.model.LogStream;
+import fr.imt.deployzilla.deployzilla.infrastructure.codec.LogRecordCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sits on the client outbound channel and diverts pipeline log frames into bounded
+ * per-subscription queues instead of handing each one straight to the WebSocket session.
+ * Queues are flushed in batches (one STOMP frame carrying several records: concatenated binary
+ * records, or newline-delimited JSON), so the broker threads never wait on a slow browser and one
+ * stalled tab cannot delay the others.
+ */
+@Component
+@Slf4j
+public class LogBackpressureInterceptor implements ExecutorChannelInterceptor {
+
+    /** Internal header marking frames produced by the flusher; not serialized to STOMP. */
+    static final String BATCH_HEADER = "deployzillaLogBatch";
+
+    private final Map<String, Map<String, SubscriptionLogQueue>> queues = new ConcurrentHashMap<>();
+    private final LogRecordCodec codec;
+    private final Counter droppedCounter;
+
+    @Value("${deployzilla.websocket.logs.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${deployzilla.websocket.logs.overflow-policy:COLLAPSE}")
+    private LogOverflowPolicy overflowPolicy;
+
+    @Value("${deployzilla.websocket.logs.sample-rate:10}")
+    private int sampleRate;
+
+    @Value("${deployzilla.websocket.logs.batch-size:200}")
+    private int batchSize;
+
+    public LogBackpressureInterceptor(LogRecordCodec codec, MeterRegistry meterRegistry) {
+        this.codec = codec;
+        this.droppedCounter = Counter.builder("deployzilla.websocket.logs.dropped")
+                .description("Log lines dropped because a subscriber's outbound queue was full")
+                .register(meterRegistry);
+        Gauge.builder("deployzilla.websocket.logs.queued", this, LogBackpressureInterceptor::totalQueued)
+                .description("Log lines waiting in per-subscription outbound queues")
+                .register(meterRegistry);
+        Gauge.builder("deployzilla.websocket.logs.queued.max", this, LogBackpressureInterceptor::maxQueued)
+                .description("Depth of the fullest per-subscription outbound queue")
+                .register(meterRegistry);
+        Gauge.builder("deployzilla.websocket.logs.subscriptions", this, LogBackpressureInterceptor::subscriptionCount)
+                .description("Log subscriptions with an outbound queue")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!isLogFrame(message) || message.getHeaders().containsKey(BATCH_HEADER)) {
+            return message;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        if (sessionId == null || subscriptionId == null) {
+            return message;
+        }
+
+        SubscriptionLogQueue queue = queues
+                .computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(subscriptionId, id ->
+                        new SubscriptionLogQueue(queueCapacity, overflowPolicy, sampleRate, channel));
+
+        int dropped = queue.offer(message);
+        if (dropped > 0) {
+            droppedCounter.increment(dropped);
+        }
+        // Delivered later by flush()
+        return null;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (message.getHeaders().containsKey(BATCH_HEADER)) {
+            SubscriptionLogQueue queue = findQueue(message);
+            if (queue != null) {
+                queue.release();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${deployzilla.websocket.logs.flush-interval-ms:50}")
+    public void flush() {
+        queues.values().forEach(subscriptions -> subscriptions.values().forEach(this::flush));
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(event.getMessage().getHeaders());
+        Map<String, SubscriptionLogQueue> subscriptions = sessionId != null ? queues.get(sessionId) : null;
+        if (subscriptions != null && subscriptionId != null) {
+            subscriptions.remove(subscriptionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        queues.remove(event.getSessionId());
+    }
+
+    private void flush(SubscriptionLogQueue queue) {
+        // Skip subscriptions whose previous batch is still being written: that is the slow consumer
+        if (!queue.tryAcquire()) {
+            return;
+        }
+
+        SubscriptionLogQueue.Batch batch = queue.drain(batchSize);
+        if (batch == null) {
+            queue.release();
+            return;
+        }
+
+        try {
+            if (!queue.getChannel().send(toBatchMessage(batch))) {
+                queue.release();
+            }
+        } catch (Exception e) {
+            queue.release();
+            log.warn("Failed to dispatch log batch: {}", e.getMessage());
+        }
+    }
+
+    private Message<byte[]> toBatchMessage(SubscriptionLogQueue.Batch batch) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(batch.template());
+        accessor.setHeader(BATCH_HEADER, Boolean.TRUE);
+        LogRecordCodec.Format format = LogRecordCodec.Format.of(accessor.getContentType());
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (byte[] payload : batch.payloads()) {
+            appendRecord(body, payload, format);
+        }
+        if (batch.skipped() > 0) {
+            appendRecord(body, skippedMarker(accessor.getDestination(), batch.skipped(), format), format);
+        }
+        return MessageBuilder.createMessage(body.toByteArray(), accessor.getMessageHeaders());
+    }
+
+    private static void appendRecord(ByteArrayOutputStream body, byte[] record, LogRecordCodec.Format format) {
+        // Binary records are self-delimiting; anything else is one record per line
+        if (format != LogRecordCodec.Format.BINARY && body.size() > 0) {
+            body.write('\n');
+        }
+        body.writeBytes(record);
+    }
+
+    private byte[] skippedMarker(String destination, long skipped, LogRecordCodec.Format format) {
+        String text = "[" + skipped + " lines skipped]";
+        if (format == null) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+        return codec.encode(LogRecord.builder()
+                .pipelineId(PipelineLogBroadcaster.pipelineIdOf(destination))
+                .stream(LogStream.SYSTEM)
+                .sequence(-1)
+                .timestamp(Instant.now())
+                .payload(text)
+                .build(), format);
+    }
+
+    private SubscriptionLogQueue findQueue(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        Map<String, SubscriptionLogQueue> subscriptions = sessionId != null ? queues.get(sessionId) : null;
+        return subscriptions != null && subscriptionId != null ? subscriptions.get(subscriptionId) : null;
+    }
+
+    private static boolean isLogFrame(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        return SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(message.getHeaders()))
+                && destination != null
+                && destination.startsWith(PipelineLogBroadcaster.LOGS_DESTINATION_PREFIX);
+    }
+
+    private double totalQueued() {
+        return queues.values().stream()
+                .flatMap(subscriptions -> subscriptions.values().stream())
+                .mapToInt(SubscriptionLogQueue::size)
+                .sum();
+    }
+
+    private double maxQueued() {
+        return queues.values().stream()
+                .flatMap(subscriptions -> subscriptions.values().stream())
+                .mapToInt(SubscriptionLogQueue::size)
+                .max()
+                .orElse(0);
+    }
+
+    private double subscriptionCount() {
+        return queues.values().stream().mapToInt(Map::size).sum();
+    }
+}
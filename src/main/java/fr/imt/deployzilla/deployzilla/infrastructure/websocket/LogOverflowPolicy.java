@@ -0,0 +1,13 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.websocket;
+
+/**
+ * What to do with log frames for a WebSocket subscription whose outbound queue is full.
+ */
+public enum LogOverflowPolicy {
+    /** Evict the oldest queued line to make room for the newest one. */
+    DROP_OLDEST,
+    /** Keep one line out of every {@code sample-rate} while the queue is full. */
+    SAMPLE,
+    /** Drop new lines until the queue drains, then emit a single "[N lines skipped]" marker. */
+    COLLAPSE
+}
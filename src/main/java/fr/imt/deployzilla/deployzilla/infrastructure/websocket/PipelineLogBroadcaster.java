@@ -0,0 +1,64 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.websocket;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogRecord;
+import fr.imt.deployzilla.deployzilla.infrastructure.codec.LogRecordCodec;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.LocalEventBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Forwards log records from the local event bus to STOMP subscribers. Each pipeline has a JSON
+ * destination ({@code /topic/pipeline-logs/{id}}) and a binary one ({@code /topic/pipeline-logs/{id}/binary});
+ * a record is only encoded for destinations that currently have subscribers on this node.
+ */
+@Service
+@Slf4j
+public class PipelineLogBroadcaster {
+
+    public static final String LOGS_DESTINATION_PREFIX = "/topic/pipeline-logs/";
+    public static final String BINARY_DESTINATION_SUFFIX = "/binary";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final LogRecordCodec codec;
+    private final PipelineSubscriptionRegistry subscriptions;
+
+    public PipelineLogBroadcaster(SimpMessagingTemplate messagingTemplate, LogRecordCodec codec,
+                                  PipelineSubscriptionRegistry subscriptions, LocalEventBus eventBus) {
+        this.messagingTemplate = messagingTemplate;
+        this.codec = codec;
+        this.subscriptions = subscriptions;
+        eventBus.subscribe(LogRecord.class, this::broadcast);
+    }
+
+    public void broadcast(LogRecord record) {
+        try {
+            String destination = LOGS_DESTINATION_PREFIX + record.getPipelineId();
+            send(record, destination, LogRecordCodec.Format.JSON);
+            send(record, destination + BINARY_DESTINATION_SUFFIX, LogRecordCodec.Format.BINARY);
+        } catch (Exception e) {
+            log.error("Failed to broadcast log record", e);
+        }
+    }
+
+    /**
+     * Pipeline ID of a log destination, for either encoding.
+     */
+    public static String pipelineIdOf(String destination) {
+        String pipelineId = destination.substring(LOGS_DESTINATION_PREFIX.length());
+        return pipelineId.endsWith(BINARY_DESTINATION_SUFFIX)
+                ? pipelineId.substring(0, pipelineId.length() - BINARY_DESTINATION_SUFFIX.length())
+                : pipelineId;
+    }
+
+    private void send(LogRecord record, String destination, LogRecordCodec.Format format) {
+        if (!subscriptions.hasSubscribers(destination)) {
+            return;
+        }
+        messagingTemplate.send(destination, MessageBuilder.withPayload(codec.encode(record, format))
+                .setHeader(MessageHeaders.CONTENT_TYPE, format.getMimeType())
+                .build());
+    }
+}
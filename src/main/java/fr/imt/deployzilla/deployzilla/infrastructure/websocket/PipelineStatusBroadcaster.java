@@ -0,0 +1,133 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.websocket;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobProgress;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineState;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineStatusUpdate;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineStatePort;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.LocalEventBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Relays pipeline status updates from the local event bus to STOMP subscribers, conflated per pipeline:
+ * updates arriving within one tick are merged so only the latest pipeline state, plus the
+ * latest state of every job that changed, goes out once per tick.
+ * <p>
+ * A new subscriber first receives the full snapshot of the pipeline (all jobs, {@code snapshot: true}
+ * header), so it does not have to wait for the next change or read it elsewhere.
+ */
+@Service
+@Slf4j
+public class PipelineStatusBroadcaster {
+
+    public static final String STATUS_DESTINATION_PREFIX = "/topic/pipeline-status/";
+    public static final String SNAPSHOT_HEADER = "snapshot";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageChannel clientOutboundChannel;
+    private final PipelineStatePort pipelineStatePort;
+
+    private final Map<String, PipelineStatusUpdate> pending = new ConcurrentHashMap<>();
+
+    public PipelineStatusBroadcaster(SimpMessagingTemplate messagingTemplate,
+                                     @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                     PipelineStatePort pipelineStatePort, LocalEventBus eventBus) {
+        this.messagingTemplate = messagingTemplate;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.pipelineStatePort = pipelineStatePort;
+        eventBus.subscribe(PipelineStatusUpdate.class, this::enqueue);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = subscribe.getDestination();
+        if (destination == null || !destination.startsWith(STATUS_DESTINATION_PREFIX)) {
+            return;
+        }
+
+        String pipelineId = destination.substring(STATUS_DESTINATION_PREFIX.length());
+        try {
+            pipelineStatePort.find(pipelineId).ifPresent(state ->
+                    sendSnapshot(subscribe.getSessionId(), subscribe.getSubscriptionId(), destination, state));
+        } catch (Exception e) {
+            log.error("Failed to send status snapshot for {}", pipelineId, e);
+        }
+    }
+
+    public void enqueue(PipelineStatusUpdate update) {
+        pending.merge(update.getPipelineId(), update, PipelineStatusBroadcaster::conflate);
+    }
+
+    @Scheduled(fixedDelayString = "${deployzilla.websocket.status.conflation-interval-ms:250}")
+    public void flush() {
+        for (String pipelineId : pending.keySet()) {
+            PipelineStatusUpdate update = pending.remove(pipelineId);
+            if (update == null) {
+                continue;
+            }
+            try {
+                log.debug("Broadcasting pipeline status update for {}", pipelineId);
+                messagingTemplate.convertAndSend(STATUS_DESTINATION_PREFIX + pipelineId, update);
+            } catch (Exception e) {
+                log.error("Failed to broadcast pipeline status update for {}", pipelineId, e);
+            }
+        }
+    }
+
+    private void sendSnapshot(String sessionId, String subscriptionId, String destination, PipelineState state) {
+        PipelineStatusUpdate snapshot = PipelineStatusUpdate.builder()
+                .pipelineId(state.getPipelineId())
+                .status(state.getStatus())
+                .currentStep(state.getCurrentStep())
+                .jobs(state.getJobs())
+                .timestamp(state.getUpdatedAt())
+                .build();
+
+        // Addressed to this subscription only, bypassing the broker
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        headers.setNativeHeader(SNAPSHOT_HEADER, "true");
+        headers.setLeaveMutable(true);
+        Message<?> message = messagingTemplate.getMessageConverter().toMessage(snapshot, headers.getMessageHeaders());
+        if (message != null) {
+            clientOutboundChannel.send(message);
+        }
+    }
+
+    private static PipelineStatusUpdate conflate(PipelineStatusUpdate previous, PipelineStatusUpdate next) {
+        Map<String, JobProgress> jobs = new LinkedHashMap<>();
+        addJobs(jobs, previous.getJobs());
+        addJobs(jobs, next.getJobs());
+        return PipelineStatusUpdate.builder()
+                .pipelineId(next.getPipelineId())
+                .status(next.getStatus())
+                .currentStep(next.getCurrentStep())
+                .jobs(new ArrayList<>(jobs.values()))
+                .timestamp(Math.max(previous.getTimestamp(), next.getTimestamp()))
+                .build();
+    }
+
+    private static void addJobs(Map<String, JobProgress> jobs, List<JobProgress> updates) {
+        if (updates != null) {
+            updates.forEach(job -> jobs.put(job.getJobId(), job));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.websocket;
+
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.LocalEventBus;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.PipelineInterestChanged;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.PipelineTopic;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the STOMP subscriptions of this node per pipeline destination. Broadcasters use it to skip
+ * encoding for destinations nobody listens to, and interest changes per pipeline topic are published
+ * on the {@link LocalEventBus}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineSubscriptionRegistry {
+
+    private final LocalEventBus eventBus;
+
+    private final Map<String, Integer> destinations = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> sessions = new HashMap<>();
+    private final Map<Interest, Integer> interests = new HashMap<>();
+
+    public boolean hasSubscribers(String destination) {
+        return destinations.containsKey(destination);
+    }
+
+    @EventListener
+    public synchronized void onSubscribe(SessionSubscribeEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(event.getMessage().getHeaders());
+        String destination = SimpMessageHeaderAccessor.getDestination(event.getMessage().getHeaders());
+        Interest interest = destination != null ? Interest.of(destination) : null;
+        if (sessionId == null || subscriptionId == null || interest == null) {
+            return;
+        }
+
+        String previous = sessions.computeIfAbsent(sessionId, id -> new HashMap<>()).put(subscriptionId, destination);
+        if (previous != null) {
+            release(previous);
+        }
+        destinations.merge(destination, 1, Integer::sum);
+        if (interests.merge(interest, 1, Integer::sum) == 1) {
+            eventBus.publish(new PipelineInterestChanged(interest.topic(), interest.pipelineId(), true));
+        }
+    }
+
+    @EventListener
+    public synchronized void onUnsubscribe(SessionUnsubscribeEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(event.getMessage().getHeaders());
+        Map<String, String> subscriptions = sessionId != null ? sessions.get(sessionId) : null;
+        String destination = subscriptions != null && subscriptionId != null ? subscriptions.remove(subscriptionId) : null;
+        if (destination != null) {
+            release(destination);
+        }
+    }
+
+    @EventListener
+    public synchronized void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    private void release(String destination) {
+        destinations.computeIfPresent(destination, (d, count) -> count > 1 ? count - 1 : null);
+        Interest interest = Interest.of(destination);
+        Integer count = interest != null ? interests.get(interest) : null;
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            interests.put(interest, count - 1);
+        } else {
+            interests.remove(interest);
+            eventBus.publish(new PipelineInterestChanged(interest.topic(), interest.pipelineId(), false));
+        }
+    }
+
+    private record Interest(PipelineTopic topic, String pipelineId) {
+
+        static Interest of(String destination) {
+            if (destination.startsWith(PipelineLogBroadcaster.LOGS_DESTINATION_PREFIX)) {
+                return new Interest(PipelineTopic.LOGS, PipelineLogBroadcaster.pipelineIdOf(destination));
+            }
+            if (destination.startsWith(PipelineStatusBroadcaster.STATUS_DESTINATION_PREFIX)) {
+                return new Interest(PipelineTopic.STATUS,
+                        destination.substring(PipelineStatusBroadcaster.STATUS_DESTINATION_PREFIX.length()));
+            }
+            return null;
+        }
+    }
+}
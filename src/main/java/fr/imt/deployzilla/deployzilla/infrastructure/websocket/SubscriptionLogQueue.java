@@ -0,0 +1,129 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded queue of log frames waiting to be delivered to one STOMP subscription.
+ * At most one batch per subscription is in flight on the outbound channel, so a slow
+ * client only ever backs up its own queue.
+ */
+class SubscriptionLogQueue {
+
+    private final int capacity;
+    private final LogOverflowPolicy policy;
+    private final int sampleRate;
+    private final MessageChannel channel;
+
+    private final Deque<Message<?>> frames = new ArrayDeque<>();
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+
+    private Message<?> lastFrame;
+    private long skipped;
+    private long overflowCount;
+
+    SubscriptionLogQueue(int capacity, LogOverflowPolicy policy, int sampleRate, MessageChannel channel) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.channel = channel;
+    }
+
+    /**
+     * Queues a frame, applying the overflow policy when full.
+     *
+     * @return the number of frames dropped to make this call succeed (0 or 1)
+     */
+    synchronized int offer(Message<?> frame) {
+        lastFrame = frame;
+
+        // Once collapsing, keep dropping until the marker is flushed so lines never appear out of order
+        if (policy == LogOverflowPolicy.COLLAPSE && skipped > 0) {
+            skipped++;
+            return 1;
+        }
+
+        if (frames.size() < capacity) {
+            frames.addLast(frame);
+            return 0;
+        }
+
+        return switch (policy) {
+            case DROP_OLDEST -> {
+                frames.pollFirst();
+                frames.addLast(frame);
+                yield 1;
+            }
+            case SAMPLE -> {
+                if (++overflowCount % sampleRate == 0) {
+                    frames.pollFirst();
+                    frames.addLast(frame);
+                }
+                yield 1;
+            }
+            case COLLAPSE -> {
+                skipped++;
+                yield 1;
+            }
+        };
+    }
+
+    /**
+     * Removes up to {@code maxFrames} frames. Once the queue is empty, the pending count of
+     * collapsed lines is handed over too so the caller can emit a single marker.
+     *
+     * @return {@code null} when there is nothing to send
+     */
+    synchronized Batch drain(int maxFrames) {
+        if (frames.isEmpty() && skipped == 0) {
+            return null;
+        }
+
+        Message<?> template = lastFrame;
+        List<byte[]> payloads = new ArrayList<>(Math.min(maxFrames, frames.size()));
+        while (payloads.size() < maxFrames && !frames.isEmpty()) {
+            template = frames.pollFirst();
+            payloads.add(payloadBytes(template));
+        }
+
+        long skippedLines = 0;
+        if (frames.isEmpty()) {
+            skippedLines = skipped;
+            skipped = 0;
+        }
+        return new Batch(template, payloads, skippedLines);
+    }
+
+    synchronized int size() {
+        return frames.size();
+    }
+
+    boolean tryAcquire() {
+        return inFlight.compareAndSet(false, true);
+    }
+
+    void release() {
+        inFlight.set(false);
+    }
+
+    MessageChannel getChannel() {
+        return channel;
+    }
+
+    private static byte[] payloadBytes(Message<?> frame) {
+        Object payload = frame.getPayload();
+        return payload instanceof byte[] bytes
+                ? bytes
+                : payload.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    record Batch(Message<?> template, List<byte[]> payloads, long skipped) {
+    }
+}
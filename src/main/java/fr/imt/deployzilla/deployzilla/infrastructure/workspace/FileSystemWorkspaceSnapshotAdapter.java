@@ -0,0 +1,266 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.workspace;
+
+import fr.imt.deployzilla.deployzilla.business.model.WorkspaceSnapshotKey;
+import fr.imt.deployzilla.deployzilla.business.port.WorkspaceSnapshotPort;
+import fr.imt.deployzilla.deployzilla.business.utils.DirectorySanitizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Dependency snapshots under {@code deployzilla.workspace.snapshots.path}: one directory per install image
+ * and platform, then one per lockfile hash holding a read-only copy of {@code node_modules}.
+ * <p>
+ * Workspaces get a copy of a snapshot that nothing they do can write through: a reflink copy in
+ * {@code REFLINK} mode (needs Btrfs, XFS or similar, with the snapshots on the workspace filesystem),
+ * otherwise a plain copy. Never hard links: a tool rewriting a file in place would change the snapshot.
+ * Nor mounts: one made from this container would not propagate to the step containers binding the
+ * workspace from the host.
+ * {@code node_modules/.cache}, where build tools keep their caches, is never snapshotted; other top-level
+ * dot entries ({@code .bin}, {@code .pnpm}, {@code .prisma}, {@code .modules.yaml}...) belong to the install.
+ */
+@Component
+@Slf4j
+public class FileSystemWorkspaceSnapshotAdapter implements WorkspaceSnapshotPort {
+
+    private static final String NODE_MODULES = "node_modules";
+    private static final String TOOL_CACHE_DIR = ".cache";
+    private static final Duration STALE_STAGING_AGE = Duration.ofHours(1);
+
+    public enum Mode {
+        COPY,
+        REFLINK
+    }
+
+    @Value("${deployzilla.workspace.local.path:/workspaces}")
+    private String workspaceLocalPath;
+
+    @Value("${deployzilla.workspace.snapshots.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deployzilla.workspace.snapshots.path:${deployzilla.workspace.local.path:/workspaces}/.snapshots}")
+    private String snapshotsPath;
+
+    @Value("${deployzilla.workspace.snapshots.mode:REFLINK}")
+    private Mode mode;
+
+    @Value("${deployzilla.workspace.snapshots.max-count:20}")
+    private int maxCount;
+
+    @Override
+    public boolean restore(WorkspaceSnapshotKey key, String pipelineId, String projectDir) {
+        Path snapshot = snapshotOf(key);
+        Path target = nodeModulesOf(pipelineId, projectDir);
+        if (!enabled || !Files.isDirectory(snapshot) || Files.exists(target)) {
+            return false;
+        }
+
+        try {
+            // Last use decides which snapshots are pruned
+            Files.setLastModifiedTime(snapshot, FileTime.from(Instant.now()));
+            if (mode == Mode.REFLINK && reflinkCopy(snapshot, target)) {
+                return true;
+            }
+            copyTree(snapshot, target, false);
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to restore dependency snapshot {} for pipeline {}: {}", snapshot, pipelineId, e.getMessage());
+            deleteQuietly(target);
+            return false;
+        }
+    }
+
+    @Override
+    public void capture(WorkspaceSnapshotKey key, String pipelineId, String projectDir) {
+        Path snapshot = snapshotOf(key);
+        Path source = nodeModulesOf(pipelineId, projectDir);
+        if (!enabled || Files.exists(snapshot) || !Files.isDirectory(source)) {
+            return;
+        }
+
+        // Staged so a snapshot is never seen half-written
+        Path staging = snapshot.resolveSibling("." + snapshot.getFileName() + "-" + UUID.randomUUID());
+        try {
+            Files.createDirectories(snapshot.getParent());
+            copyTree(source, staging, true);
+            Files.move(staging, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Captured dependency snapshot {} from pipeline {}", snapshot, pipelineId);
+        } catch (IOException e) {
+            if (!Files.exists(snapshot)) {
+                log.warn("Failed to capture dependency snapshot {} from pipeline {}: {}", snapshot, pipelineId, e.getMessage());
+            }
+            deleteQuietly(staging);
+        }
+    }
+
+    /**
+     * Keep the {@code max-count} most recently used snapshots.
+     */
+    @Scheduled(fixedDelayString = "${deployzilla.workspace.snapshots.prune-interval-ms:3600000}")
+    public void prune() {
+        Path root = Path.of(snapshotsPath);
+        if (!enabled || !Files.isDirectory(root)) {
+            return;
+        }
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> images = Files.list(root)) {
+            for (Path image : images.filter(Files::isDirectory).toList()) {
+                try (Stream<Path> entries = Files.list(image)) {
+                    snapshots.addAll(entries.toList());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to prune dependency snapshots: {}", e.getMessage());
+            return;
+        }
+        snapshots.sort(Comparator.comparing(FileSystemWorkspaceSnapshotAdapter::lastModified).reversed());
+
+        int kept = 0;
+        Instant staleBefore = Instant.now().minus(STALE_STAGING_AGE);
+        for (Path snapshot : snapshots) {
+            if (snapshot.getFileName().toString().startsWith(".")) {
+                // Staging directory left behind by a crash
+                if (lastModified(snapshot).toInstant().isBefore(staleBefore)) {
+                    deleteQuietly(snapshot);
+                }
+            } else if (kept < maxCount) {
+                kept++;
+            } else {
+                deleteQuietly(snapshot);
+                log.info("Pruned dependency snapshot {}", snapshot);
+            }
+        }
+    }
+
+    private boolean reflinkCopy(Path snapshot, Path target) throws IOException {
+        String output = run("cp", "-a", "--reflink=always", snapshot.toString(), target.toString());
+        if (output == null) {
+            output = run("chmod", "-R", "u+w", target.toString());
+        }
+        if (output != null) {
+            log.warn("Reflink copy failed, falling back to a copy: {}", output);
+            FileSystemUtils.deleteRecursively(target);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code null} on success, otherwise the command's output
+     */
+    private static String run(String... command) {
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return "timed out";
+            }
+            return process.exitValue() == 0 ? null : output;
+        } catch (IOException e) {
+            return e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    /**
+     * Copy {@code source} to {@code target}: into a snapshot, read-only and without tool caches, or out of
+     * one, writable. Symbolic links (pnpm's layout is mostly links) are recreated as they are, never followed.
+     */
+    private static void copyTree(Path source, Path target, boolean intoSnapshot) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (intoSnapshot && isToolCache(source, dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path destination = target.resolve(source.relativize(file));
+                if (attrs.isSymbolicLink()) {
+                    Files.createSymbolicLink(destination, Files.readSymbolicLink(file));
+                } else {
+                    Files.copy(file, destination, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+                    setWritable(destination, !intoSnapshot);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static boolean isToolCache(Path nodeModules, Path dir) {
+        return nodeModules.equals(dir.getParent()) && dir.getFileName().toString().equals(TOOL_CACHE_DIR);
+    }
+
+    private static void setWritable(Path file, boolean writable) throws IOException {
+        try {
+            Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+            permissions.addAll(Files.getPosixFilePermissions(file));
+            if (writable) {
+                permissions.add(PosixFilePermission.OWNER_WRITE);
+            } else {
+                permissions.removeAll(EnumSet.of(PosixFilePermission.OWNER_WRITE,
+                        PosixFilePermission.GROUP_WRITE, PosixFilePermission.OTHERS_WRITE));
+            }
+            Files.setPosixFilePermissions(file, permissions);
+        } catch (UnsupportedOperationException e) {
+            // Non-POSIX filesystem, nothing to protect the snapshot with
+        }
+    }
+
+    private Path snapshotOf(WorkspaceSnapshotKey key) {
+        return Path.of(snapshotsPath,
+                DirectorySanitizer.sanitizeDirectoryName(key.getPlatform() + "-" + key.getImageId()),
+                DirectorySanitizer.sanitizeDirectoryName(key.getLockfileHash()));
+    }
+
+    private Path nodeModulesOf(String pipelineId, String projectDir) {
+        return Path.of(workspaceLocalPath, pipelineId, DirectorySanitizer.sanitizeDirectoryName(projectDir), NODE_MODULES);
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            FileSystemUtils.deleteRecursively(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+}
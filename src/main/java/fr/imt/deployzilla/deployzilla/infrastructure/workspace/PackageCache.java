@@ -0,0 +1,391 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.workspace;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Host directory shared by all install containers as npm cache, pnpm store and yarn cache, so tarballs
+ * are downloaded once per host instead of once per pipeline. {@code path} is the directory on the Docker
+ * host, bound into the containers; {@code local.path} is where this application sees it, to prune it.
+ * <p>
+ * The three are content-addressed and safe for concurrent installs (Yarn 1 is serialised by the install
+ * script with {@code --mutex}). Above {@code max-size}, pruning deletes their least recently used entries
+ * (npm content with the index buckets pointing at it, pnpm store files, yarn packages) until the total is
+ * back under {@code prune-target}, so that every package manager still finds either a complete entry or
+ * none. It waits up to {@code prune-wait} for running installs to finish, and installs wait for it.
+ */
+@Component
+@Slf4j
+public class PackageCache {
+
+    private static final String CONTAINER_CACHE_PATH = "/cache";
+    private static final String NPM_CACHE = "npm";
+    private static final String PNPM_STORE = "pnpm";
+    private static final String YARN_CACHE = "yarn";
+    private static final List<String> CACHES = List.of(NPM_CACHE, PNPM_STORE, YARN_CACHE);
+    private static final String NPM_CACACHE = "_cacache";
+    private static final Pattern YARN_VERSION_DIR = Pattern.compile("v\\d+");
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    private final StampedLock lock = new StampedLock();
+    private final AtomicLong size = new AtomicLong();
+
+    @Value("${deployzilla.packages.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deployzilla.packages.cache.path:/tmp/deployzilla-package-cache}")
+    private String cachePath;
+
+    @Value("${deployzilla.packages.cache.local.path:${deployzilla.packages.cache.path:/tmp/deployzilla-package-cache}}")
+    private String cacheLocalPath;
+
+    @Value("${deployzilla.packages.cache.max-size:10GB}")
+    private DataSize maxSize;
+
+    /** Pruning goes down to this fraction of {@code max-size}, so it does not run again right away. */
+    @Value("${deployzilla.packages.cache.prune-target:0.8}")
+    private double pruneTarget;
+
+    @Value("${deployzilla.packages.cache.prune-wait:5m}")
+    private Duration pruneWait;
+
+    public PackageCache(MeterRegistry meterRegistry) {
+        Gauge.builder("deployzilla.packages.cache.size", size, AtomicLong::get)
+                .description("Bytes in the shared package cache as of the last prune")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Bind of the cache directory for the install container.
+     */
+    public String volume() {
+        try {
+            Files.createDirectories(Path.of(cacheLocalPath));
+        } catch (IOException e) {
+            log.warn("Failed to create package cache directory {}", cacheLocalPath, e);
+        }
+        return cachePath + ":" + CONTAINER_CACHE_PATH;
+    }
+
+    /**
+     * Environment pointing each package manager at its part of the cache, read by {@code run-node-script.sh}.
+     */
+    public Map<String, String> environment() {
+        return Map.of(
+                "npm_config_cache", CONTAINER_CACHE_PATH + "/" + NPM_CACHE,
+                "PNPM_STORE_DIR", CONTAINER_CACHE_PATH + "/" + PNPM_STORE,
+                "YARN_CACHE_FOLDER", CONTAINER_CACHE_PATH + "/" + YARN_CACHE
+        );
+    }
+
+    /**
+     * Mark the cache as in use until {@link #release} is called with the returned stamp, from any thread.
+     */
+    public long acquire() {
+        return lock.readLock();
+    }
+
+    public void release(long stamp) {
+        lock.unlockRead(stamp);
+    }
+
+    @Scheduled(fixedDelayString = "${deployzilla.packages.cache.prune-interval-ms:600000}")
+    public void prune() {
+        Path root = Path.of(cacheLocalPath);
+        if (!enabled || !Files.isDirectory(root)) {
+            return;
+        }
+        long stamp;
+        try {
+            // Installs starting meanwhile queue behind this wait, so it only lasts until running ones end
+            stamp = lock.tryWriteLock(pruneWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (stamp == 0) {
+            log.info("Package cache still in use after {}, pruning next time", pruneWait);
+            return;
+        }
+        try {
+            prune(root);
+        } catch (IOException e) {
+            log.warn("Failed to prune package cache {}: {}", root, e.getMessage());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void prune(Path root) throws IOException {
+        long total = 0;
+        for (String name : CACHES) {
+            Path cache = root.resolve(name);
+            if (Files.isDirectory(cache)) {
+                total += usageOf(cache).size();
+            }
+        }
+        size.set(total);
+        if (total <= maxSize.toBytes()) {
+            return;
+        }
+
+        NpmIndex npmIndex = NpmIndex.read(root.resolve(NPM_CACHE).resolve(NPM_CACACHE));
+        List<CacheUsage> entries = new ArrayList<>(npmIndex.contents());
+        entries.addAll(filesOf(root.resolve(PNPM_STORE)));
+        entries.addAll(yarnEntriesOf(root.resolve(YARN_CACHE)));
+        entries.sort(Comparator.comparingLong(CacheUsage::lastUsed));
+
+        long target = (long) (maxSize.toBytes() * pruneTarget);
+        long freed = 0;
+        int pruned = 0;
+        for (CacheUsage entry : entries) {
+            if (total - freed <= target) {
+                break;
+            }
+            if (!Files.exists(entry.path(), LinkOption.NOFOLLOW_LINKS)) {
+                // npm content already gone with an index bucket deleted before
+                continue;
+            }
+            freed += npmIndex.unindex(entry.path());
+            FileSystemUtils.deleteRecursively(entry.path());
+            freed += entry.size();
+            pruned++;
+        }
+        size.set(total - freed);
+        log.info("Pruned {} package cache entries ({} MB)", pruned, freed / (1024 * 1024));
+    }
+
+    /**
+     * Every file of the pnpm store. pnpm checks the files of a package against the store before using it
+     * and downloads it again when one is missing, as it does when its index file is.
+     */
+    private static List<CacheUsage> filesOf(Path cache) throws IOException {
+        if (!Files.isDirectory(cache)) {
+            return List.of();
+        }
+        List<CacheUsage> files = new ArrayList<>();
+        Files.walkFileTree(cache, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    files.add(new CacheUsage(file, attrs.size(), lastUsed(attrs)));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Each package of the yarn cache: a directory per package in Yarn 1's {@code v6/}, a zip in later
+     * versions. Dot entries are yarn's own (temporary files, the install mutex).
+     */
+    private static List<CacheUsage> yarnEntriesOf(Path cache) throws IOException {
+        if (!Files.isDirectory(cache)) {
+            return List.of();
+        }
+        List<CacheUsage> entries = new ArrayList<>();
+        try (Stream<Path> children = Files.list(cache)) {
+            for (Path child : children.filter(PackageCache::isCacheEntry).toList()) {
+                if (Files.isDirectory(child) && YARN_VERSION_DIR.matcher(child.getFileName().toString()).matches()) {
+                    try (Stream<Path> packages = Files.list(child)) {
+                        for (Path entry : packages.filter(PackageCache::isCacheEntry).toList()) {
+                            entries.add(usageOf(entry));
+                        }
+                    }
+                } else {
+                    entries.add(usageOf(child));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static boolean isCacheEntry(Path path) {
+        return !path.getFileName().toString().startsWith(".");
+    }
+
+    private static CacheUsage usageOf(Path cache) throws IOException {
+        long[] totals = new long[2];
+        Files.walkFileTree(cache, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    totals[0] += attrs.size();
+                    totals[1] = Math.max(totals[1], lastUsed(attrs));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return new CacheUsage(cache, totals[0], totals[1]);
+    }
+
+    private static long lastUsed(BasicFileAttributes attrs) {
+        return Math.max(attrs.lastAccessTime().toMillis(), attrs.lastModifiedTime().toMillis());
+    }
+
+    private record CacheUsage(Path path, long size, long lastUsed) {
+    }
+
+    /**
+     * npm's cacache: index buckets (one per request key, a JSON entry per line after a hash and a tab)
+     * point at content files named after their integrity. npm fails on an indexed content file that is
+     * missing, so content only goes once the buckets indexing it are gone, like {@code npm cache verify}
+     * collects content no bucket indexes.
+     */
+    private static final class NpmIndex {
+
+        private final Path cacache;
+        private final Map<Path, Set<Path>> bucketsByContent = new HashMap<>();
+        private final Map<Path, Set<Path>> contentsByBucket = new HashMap<>();
+        private final Map<Path, Long> contentSizes = new HashMap<>();
+
+        private NpmIndex(Path cacache) {
+            this.cacache = cacache;
+        }
+
+        static NpmIndex read(Path cacache) throws IOException {
+            NpmIndex index = new NpmIndex(cacache);
+            Path buckets = cacache.resolve("index-v5");
+            if (Files.isDirectory(buckets)) {
+                try (Stream<Path> files = Files.walk(buckets)) {
+                    for (Path bucket : files.filter(Files::isRegularFile).toList()) {
+                        index.contentsByBucket.put(bucket, index.contentsOf(bucket));
+                    }
+                }
+            }
+            index.contentsByBucket.forEach((bucket, contents) -> contents.forEach(content ->
+                    index.bucketsByContent.computeIfAbsent(content, c -> new HashSet<>()).add(bucket)));
+            return index;
+        }
+
+        /**
+         * @return every content file, indexed or not
+         */
+        List<CacheUsage> contents() throws IOException {
+            Path content = cacache.resolve("content-v2");
+            if (!Files.isDirectory(content)) {
+                return List.of();
+            }
+            List<CacheUsage> contents = filesOf(content);
+            contents.forEach(usage -> contentSizes.put(usage.path(), usage.size()));
+            return contents;
+        }
+
+        /**
+         * Delete the buckets indexing {@code content} and the other content only they indexed.
+         *
+         * @return bytes freed, not counting {@code content} itself
+         */
+        long unindex(Path content) throws IOException {
+            long freed = 0;
+            Set<Path> indexing = bucketsByContent.remove(content);
+            for (Path bucket : indexing != null ? indexing : Set.<Path>of()) {
+                freed += Files.size(bucket);
+                Files.delete(bucket);
+                for (Path other : contentsByBucket.remove(bucket)) {
+                    Set<Path> buckets = bucketsByContent.get(other);
+                    if (buckets != null && buckets.remove(bucket) && buckets.isEmpty()) {
+                        bucketsByContent.remove(other);
+                        if (Files.deleteIfExists(other)) {
+                            freed += contentSizes.getOrDefault(other, 0L);
+                        }
+                    }
+                }
+            }
+            return freed;
+        }
+
+        private Set<Path> contentsOf(Path bucket) {
+            Set<Path> contents = new HashSet<>();
+            try {
+                for (String line : Files.readAllLines(bucket, StandardCharsets.UTF_8)) {
+                    int tab = line.indexOf('\t');
+                    if (tab < 0) {
+                        continue;
+                    }
+                    JsonNode integrity = JSON.readTree(line.substring(tab + 1)).path("integrity");
+                    // Several hashes may be listed, space separated
+                    for (String hash : integrity.asString("").split("\\s+")) {
+                        Path path = contentPathOf(hash);
+                        if (path != null) {
+                            contents.add(path);
+                        }
+                    }
+                }
+            } catch (IOException | JacksonException e) {
+                // Unreadable bucket: it keeps nothing from being pruned, and goes when its content does
+                log.debug("Skipping npm cache index {}: {}", bucket, e.getMessage());
+            }
+            return contents;
+        }
+
+        /**
+         * @return {@code content-v2/<algorithm>/<hex[0,2)>/<hex[2,4)>/<hex[4,)>}, as cacache lays it out
+         */
+        private Path contentPathOf(String hash) {
+            int dash = hash.indexOf('-');
+            if (dash <= 0) {
+                return null;
+            }
+            try {
+                String hex = HexFormat.of().formatHex(Base64.getDecoder().decode(hash.substring(dash + 1).split("\\?")[0]));
+                if (hex.length() < 5) {
+                    return null;
+                }
+                return cacache.resolve("content-v2").resolve(hash.substring(0, dash))
+                        .resolve(hex.substring(0, 2)).resolve(hex.substring(2, 4)).resolve(hex.substring(4));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
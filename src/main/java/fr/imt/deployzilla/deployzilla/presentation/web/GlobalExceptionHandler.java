@@ -10,6 +10,7 @@ import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.util.stream.Collectors;
@@ -33,6 +34,15 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(PipelineNotFoundException.class)
+    public ResponseEntity<HttpResponse<Void>> handlePipelineNotFound(PipelineNotFoundException ex) {
+        HttpResponse<Void> errorResponse = HttpResponse.error(
+                ex.getErrorCode(),
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
     @ExceptionHandler(DockerOperationException.class)
     public ResponseEntity<HttpResponse<Void>> handleDockerOperationError(DockerOperationException ex) {
         log.error("Docker operation failed: {}", ex.getMessage(), ex);
@@ -118,6 +128,19 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles a path variable or request parameter that cannot be converted, e.g. an unknown enum value.
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<HttpResponse<Void>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        log.warn("Invalid value for {}: {}", ex.getName(), ex.getValue());
+        HttpResponse<Void> errorResponse = HttpResponse.error(
+                "Invalid Request",
+                "Invalid value for '" + ex.getName() + "': " + ex.getValue()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<HttpResponse<Void>> handleWrongHttpVerb(HttpRequestMethodNotSupportedException ex) {
         log.error("Wrong HTTP verb: {}", ex.getMessage());
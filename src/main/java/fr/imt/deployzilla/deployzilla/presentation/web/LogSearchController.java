@@ -0,0 +1,37 @@
+package fr.imt.deployzilla.deployzilla.presentation.web;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.business.service.LogSearchService;
+import fr.imt.deployzilla.deployzilla.presentation.web.dto.LogSearchResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/v1/projects")
+@RequiredArgsConstructor
+public class LogSearchController {
+
+    private final LogSearchService logSearchService;
+
+    /**
+     * Lines containing {@code q} as a case-insensitive phrase. Matching is by whole words: {@code error}
+     * finds "Build error:" but not "TypeError".
+     */
+    @GetMapping("/{projectId}/logs/search")
+    public ResponseEntity<LogSearchResponse> searchLogs(@PathVariable String projectId,
+                                                        @RequestParam String q,
+                                                        @RequestParam(required = false) JobType jobType,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(new LogSearchResponse(
+                logSearchService.search(projectId, q, jobType, from, to, limit)));
+    }
+
+}
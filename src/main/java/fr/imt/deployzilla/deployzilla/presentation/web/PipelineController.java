@@ -1,20 +1,37 @@
 package fr.imt.deployzilla.deployzilla.presentation.web;
 
+import fr.imt.deployzilla.deployzilla.business.model.PipelinePage;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineState;
+import fr.imt.deployzilla.deployzilla.business.model.ProcessLogEntry;
+import fr.imt.deployzilla.deployzilla.business.service.PipelineHistoryService;
 import fr.imt.deployzilla.deployzilla.business.service.PipelineService;
+import fr.imt.deployzilla.deployzilla.business.service.PipelineStateService;
+import fr.imt.deployzilla.deployzilla.business.service.ProcessLogService;
 import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import fr.imt.deployzilla.deployzilla.presentation.web.dto.LogReplayResponse;
+import fr.imt.deployzilla.deployzilla.presentation.web.dto.PipelinePageResponse;
 import fr.imt.deployzilla.deployzilla.presentation.web.dto.PipelineResponse;
+import fr.imt.deployzilla.deployzilla.presentation.web.dto.StepLogResponse;
 import fr.imt.deployzilla.deployzilla.presentation.web.dto.mappers.PipelineMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/v1/pipelines")
 @RequiredArgsConstructor
 public class PipelineController {
 
     private final PipelineService pipelineService;
+    private final ProcessLogService processLogService;
+    private final PipelineStateService pipelineStateService;
+    private final PipelineHistoryService pipelineHistoryService;
     private final PipelineMapper pipelineMapper;
 
     @PostMapping("/start")
@@ -26,4 +43,65 @@ public class PipelineController {
         return ResponseEntity.ok(pipelineMapper.toResponse(pipeline));
     }
 
-}
\ No newline at end of file
+    @GetMapping
+    public ResponseEntity<PipelinePageResponse> listPipelines(@RequestParam String status,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "20") int limit) {
+        PipelinePage page = pipelineHistoryService.listPipelinesByStatus(status, cursor, limit);
+        return ResponseEntity.ok(new PipelinePageResponse(page.getPipelines(), page.getNextCursor()));
+    }
+
+    /**
+     * Live snapshot of a pipeline, served from memory. A request whose {@code If-None-Match} matches the
+     * current ETag is answered 304 without a body; with {@code wait > 0} it is first held until the
+     * pipeline changes, answering 304 only if the wait elapses.
+     */
+    @GetMapping("/{pipelineId}/state")
+    public CompletableFuture<ResponseEntity<PipelineState>> getState(@PathVariable String pipelineId,
+                                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                     @RequestParam(defaultValue = "0") long wait) {
+        Long knownVersion = versionOf(ifNoneMatch);
+        return pipelineStateService.awaitChange(pipelineId, knownVersion, Duration.ofSeconds(wait))
+                .thenApply(state -> {
+                    String eTag = Long.toString(state.getVersion());
+                    if (knownVersion != null && knownVersion == state.getVersion()) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                    }
+                    return ResponseEntity.ok().eTag(eTag).body(state);
+                });
+    }
+
+    @GetMapping("/{pipelineId}/logs/replay")
+    public ResponseEntity<LogReplayResponse> replayLogs(@PathVariable String pipelineId,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "500") int limit) {
+        List<ProcessLogEntry> entries = processLogService.replay(pipelineId, after, limit);
+        String lastId = entries.isEmpty() ? after : entries.getLast().getId();
+        return ResponseEntity.ok(new LogReplayResponse(entries, lastId));
+    }
+
+    @GetMapping("/{pipelineId}/logs")
+    public ResponseEntity<StepLogResponse> readStepLogs(@PathVariable String pipelineId,
+                                                        @RequestParam String step,
+                                                        @RequestParam(defaultValue = "0") long from,
+                                                        @RequestParam(defaultValue = "500") int limit) {
+        List<String> lines = processLogService.readStep(pipelineId, step, from, limit);
+        return ResponseEntity.ok(new StepLogResponse(step, from, lines, from + lines.size()));
+    }
+
+    private static Long versionOf(String eTag) {
+        if (eTag == null) {
+            return null;
+        }
+        String value = eTag.strip();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        try {
+            return Long.parseLong(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package fr.imt.deployzilla.deployzilla.presentation.web;
+
+import fr.imt.deployzilla.deployzilla.business.model.PipelinePage;
+import fr.imt.deployzilla.deployzilla.business.service.PipelineHistoryService;
+import fr.imt.deployzilla.deployzilla.presentation.web.dto.PipelinePageResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/projects")
+@RequiredArgsConstructor
+public class ProjectPipelineController {
+
+    private final PipelineHistoryService pipelineHistoryService;
+
+    @GetMapping("/{projectId}/pipelines")
+    public ResponseEntity<PipelinePageResponse> listPipelines(@PathVariable String projectId,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "20") int limit) {
+        PipelinePage page = pipelineHistoryService.listProjectPipelines(projectId, cursor, limit);
+        return ResponseEntity.ok(new PipelinePageResponse(page.getPipelines(), page.getNextCursor()));
+    }
+
+}
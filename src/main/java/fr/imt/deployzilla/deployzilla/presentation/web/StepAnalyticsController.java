@@ -0,0 +1,39 @@
+package fr.imt.deployzilla.deployzilla.presentation.web;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.business.service.StepDurationService;
+import fr.imt.deployzilla.deployzilla.presentation.web.dto.StepDurationResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DurationFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class StepAnalyticsController {
+
+    private final StepDurationService stepDurationService;
+
+    @GetMapping("/projects/{projectId}/analytics/step-durations")
+    public ResponseEntity<StepDurationResponse> projectStepDurations(@PathVariable String projectId,
+                                                                     @RequestParam(required = false) JobType jobType,
+                                                                     @RequestParam(defaultValue = "24h")
+                                                                     @DurationFormat(style = DurationFormat.Style.SIMPLE) Duration window) {
+        Duration effective = stepDurationService.effectiveWindow(window);
+        return ResponseEntity.ok(new StepDurationResponse(effective.toSeconds(),
+                stepDurationService.getStats(projectId, jobType, effective)));
+    }
+
+    @GetMapping("/analytics/step-durations")
+    public ResponseEntity<StepDurationResponse> stepDurations(@RequestParam(required = false) JobType jobType,
+                                                              @RequestParam(defaultValue = "24h")
+                                                              @DurationFormat(style = DurationFormat.Style.SIMPLE) Duration window) {
+        Duration effective = stepDurationService.effectiveWindow(window);
+        return ResponseEntity.ok(new StepDurationResponse(effective.toSeconds(),
+                stepDurationService.getStats(null, jobType, effective)));
+    }
+
+}
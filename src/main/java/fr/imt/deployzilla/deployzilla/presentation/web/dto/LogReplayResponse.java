@@ -0,0 +1,12 @@
+package fr.imt.deployzilla.deployzilla.presentation.web.dto;
+
+import fr.imt.deployzilla.deployzilla.business.model.ProcessLogEntry;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class LogReplayResponse {
+    List<ProcessLogEntry> entries;
+    String lastId;
+}
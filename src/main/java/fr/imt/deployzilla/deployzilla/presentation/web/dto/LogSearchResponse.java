@@ -0,0 +1,11 @@
+package fr.imt.deployzilla.deployzilla.presentation.web.dto;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogSearchHit;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class LogSearchResponse {
+    List<LogSearchHit> hits;
+}
@@ -0,0 +1,12 @@
+package fr.imt.deployzilla.deployzilla.presentation.web.dto;
+
+import fr.imt.deployzilla.deployzilla.business.model.PipelineSummary;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class PipelinePageResponse {
+    List<PipelineSummary> pipelines;
+    String nextCursor;
+}
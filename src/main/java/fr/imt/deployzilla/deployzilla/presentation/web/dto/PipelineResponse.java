@@ -1,5 +1,6 @@
 package fr.imt.deployzilla.deployzilla.presentation.web.dto;
 
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -12,6 +13,7 @@ public class PipelineResponse {
     private String status;
     private String commitHash;
     private String author;
+    private RepositoryMetadata repository;
     private List<JobResponse> jobs;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -0,0 +1,12 @@
+package fr.imt.deployzilla.deployzilla.presentation.web.dto;
+
+import fr.imt.deployzilla.deployzilla.business.model.StepDurationStats;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class StepDurationResponse {
+    long windowSeconds;
+    List<StepDurationStats> steps;
+}
@@ -0,0 +1,13 @@
+package fr.imt.deployzilla.deployzilla.presentation.web.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class StepLogResponse {
+    String step;
+    long from;
+    List<String> lines;
+    long nextFrom;
+}
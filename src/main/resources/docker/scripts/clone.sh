@@ -11,9 +11,27 @@ if [ -z "$GIT_REPO" ]; then
 fi
 
 DEST_PATH="/workspace/$TARGET_DIR"
+MIRROR_REPO="/mirror/repo.git"
+
+# Widen an existing sparse workspace to the whole commit, e.g. as image build context. The missing
+# contents come from the mirror the workspace was cloned from when it is mounted, else the network.
+if [ -n "$GIT_FULL_CHECKOUT" ]; then
+    echo "Checking out the whole repository in $DEST_PATH"
+    if [ "$(git -C "$DEST_PATH" remote get-url origin)" = "file://$MIRROR_REPO" ] && [ -f "$MIRROR_REPO/HEAD" ]; then
+        exec 9>/mirror/fetch.lock
+        flock -s 9
+    else
+        git -C "$DEST_PATH" remote set-url origin "$GIT_REPO"
+    fi
+    git -C "$DEST_PATH" sparse-checkout disable
+    git -C "$DEST_PATH" remote set-url origin "$GIT_REPO"
+    exit 0
+fi
 
 echo "Using GIT_REPO=$GIT_REPO"
 echo "Using GIT_BRANCH=$GIT_BRANCH"
+[ -n "$GIT_COMMIT" ] && echo "Using GIT_COMMIT=$GIT_COMMIT"
+echo "Using GIT_CLONE_STRATEGY=${GIT_CLONE_STRATEGY:-SHALLOW}"
 echo "Cloning to $DEST_PATH"
 
 # Ensure target directory is clean or empty if it exists (basic safety)
@@ -21,8 +39,88 @@ if [ -d "$DEST_PATH" ] && [ "$(ls -A $DEST_PATH)" ]; then
    echo "Warning: Target directory $DEST_PATH is not empty."
 fi
 
-# Clone command
-# Note: In a real scenario you might handle private keys here or assume they are mounted/configured via SSH config
-git clone --depth 1 --branch "$GIT_BRANCH" "$GIT_REPO" "$DEST_PATH"
+# Bring the bare mirror up to date; the lock serialises pipelines of the same repository and keeps
+# updates away from clones reading the mirror
+update_mirror() {
+    (
+        flock 9
+        if [ -f "$MIRROR_REPO/HEAD" ]; then
+            echo "Fetching into mirror"
+            git -C "$MIRROR_REPO" remote set-url origin "$GIT_REPO" \
+                && git -C "$MIRROR_REPO" fetch --prune origin
+        else
+            echo "Creating mirror"
+            rm -rf "$MIRROR_REPO" && git clone --mirror "$GIT_REPO" "$MIRROR_REPO"
+        fi \
+            && git -C "$MIRROR_REPO" config uploadpack.allowFilter true \
+            && git -C "$MIRROR_REPO" config uploadpack.allowAnySHA1InWant true
+    ) 9>/mirror/fetch.lock
+}
+
+SOURCE="$GIT_REPO"
+if [ -n "$GIT_MIRROR" ]; then
+    if update_mirror; then
+        SOURCE="file://$MIRROR_REPO"
+        # Held until exit: the fetches below read the mirror, which another update (or its
+        # auto gc) must not repack under them
+        exec 9>/mirror/fetch.lock
+        flock -s 9
+    else
+        echo "Warning: mirror unavailable, cloning from $GIT_REPO"
+    fi
+fi
+
+# SHALLOW: tip commit only; BLOBLESS/TREELESS: full history, contents fetched on checkout
+case "$GIT_CLONE_STRATEGY" in
+    BLOBLESS) FETCH_OPTS="--filter=blob:none" ;;
+    TREELESS) FETCH_OPTS="--filter=tree:0" ;;
+    *) FETCH_OPTS="--depth 1" ;;
+esac
+# A sparse checkout only needs the blobs of its paths, which checkout fetches on demand
+if [ -n "$GIT_SPARSE_PATHS" ] && [ "$GIT_CLONE_STRATEGY" != "BLOBLESS" ] && [ "$GIT_CLONE_STRATEGY" != "TREELESS" ]; then
+    FETCH_OPTS="$FETCH_OPTS --filter=blob:none"
+fi
+
+# Fetch exactly the requested commit (or the branch tip) rather than cloning the whole branch
+git init -q "$DEST_PATH"
+cd "$DEST_PATH"
+git remote add origin "$SOURCE"
+if [ -n "$GIT_SPARSE_PATHS" ]; then
+    echo "Sparse checkout of: $GIT_SPARSE_PATHS"
+    printf '%s\n' "$GIT_SPARSE_PATHS" | git sparse-checkout set --stdin
+fi
+git fetch $FETCH_OPTS origin "${GIT_COMMIT:-$GIT_BRANCH}"
+git checkout -q -B "$GIT_BRANCH" FETCH_HEAD
+
+# Repository metadata for later steps, read back by GitCloneService. Lockfiles are looked up in the
+# commit rather than the working tree so sparse checkouts still report them.
+{
+    echo "commit=$(git rev-parse HEAD)"
+    echo "tree=$(git rev-parse 'HEAD^{tree}')"
+    for LOCKFILE in npm:package-lock.json yarn:yarn.lock pnpm:pnpm-lock.yaml; do
+        if HASH=$(git rev-parse -q --verify "HEAD:${LOCKFILE#*:}"); then
+            echo "lockfile.${LOCKFILE%%:*}=$HASH"
+        fi
+    done
+    # Same precedence as run-node-script.sh
+    if git rev-parse -q --verify "HEAD:pnpm-lock.yaml" >/dev/null; then
+        echo "packageManager=pnpm"
+    elif git rev-parse -q --verify "HEAD:yarn.lock" >/dev/null; then
+        echo "packageManager=yarn"
+    else
+        echo "packageManager=npm"
+    fi
+    if [ -n "$GIT_BASE_COMMIT" ] && { git cat-file -e "$GIT_BASE_COMMIT^{commit}" 2>/dev/null \
+            || git fetch -q --depth 1 origin "$GIT_BASE_COMMIT"; }; then
+        echo "base=$GIT_BASE_COMMIT"
+        # Without rename detection a renamed file is listed under its old path too
+        git diff --name-only --no-renames "$GIT_BASE_COMMIT" HEAD | sed 's/^/changed=/'
+    fi
+} > /workspace/clone-metadata.properties
+
+# A sparse workspace keeps the mirror as origin until the full checkout has fetched the rest from it
+if [ -z "$GIT_SPARSE_PATHS" ] || [ "$SOURCE" = "$GIT_REPO" ]; then
+    git remote set-url origin "$GIT_REPO"
+fi
 
 echo "Clone complete."
@@ -23,10 +23,24 @@ detect_pm
 if [ "$COMMAND" = "install" ]; then
   echo "Installing dependencies using $PM..."
   corepack enable
+  # A shared package cache (npm_config_cache, PNPM_STORE_DIR, YARN_CACHE_FOLDER) may be mounted;
+  # prefer it over revalidating every package with the registry
   if [ "$PM" = "pnpm" ]; then
-    pnpm install --frozen-lockfile
+    if [ -n "$PNPM_STORE_DIR" ]; then
+      pnpm install --frozen-lockfile --prefer-offline --store-dir "$PNPM_STORE_DIR"
+    else
+      pnpm install --frozen-lockfile
+    fi
   elif [ "$PM" = "yarn" ]; then
-    yarn install --frozen-lockfile
+    if [ -n "$YARN_CACHE_FOLDER" ] && yarn --version | grep -q '^1\.'; then
+      # The Yarn 1 cache is not safe for concurrent installs
+      mkdir -p "$YARN_CACHE_FOLDER"
+      yarn install --frozen-lockfile --prefer-offline --mutex "file:$YARN_CACHE_FOLDER/.yarn-mutex"
+    else
+      yarn install --frozen-lockfile
+    fi
+  elif [ -n "$npm_config_cache" ]; then
+    npm ci --prefer-offline
   else
     npm ci
   fi
@@ -36,11 +50,68 @@ else
 
   ARGS=""
   if [ "$COMMAND" = "lint" ]; then
+     CACHE_ARGS="--cache"
+     if [ -n "$ESLINT_CACHE_STRATEGY" ]; then
+       # The checkout is fresh every time, so file metadata never matches a restored cache
+       CACHE_ARGS="--cache --cache-strategy $ESLINT_CACHE_STRATEGY"
+     fi
+
+     # Only the files listed (one per line), with ESLint directly rather than the project's lint script
+     if [ -n "$LINT_FILES" ]; then
+       echo "Linting $(wc -l < "$LINT_FILES") changed files with ESLint..."
+       if [ "$PM" = "pnpm" ]; then
+         ESLINT="pnpm exec eslint"
+       elif [ "$PM" = "yarn" ]; then
+         ESLINT="yarn eslint"
+       else
+         ESLINT="npx --no-install eslint"
+       fi
+       tr '\n' '\0' < "$LINT_FILES" | xargs -0 $ESLINT $CACHE_ARGS
+       exit 0
+     fi
+
      # For npm we need '--' to pass flags to the script, for yarn/pnpm we can usually just append
      if [ "$PM" = "npm" ]; then
-       ARGS="-- --cache"
+       ARGS="-- $CACHE_ARGS"
+     else
+       ARGS="$CACHE_ARGS"
+     fi
+  fi
+
+  # Only the tests depending on the files listed (one per line), per the test runner's module graph
+  if [ "$COMMAND" = "test" ] && [ -n "$TEST_FILES" ]; then
+     echo "Running tests related to $(wc -l < "$TEST_FILES") changed files..."
+     if grep -q '"vitest"' package.json; then
+       if [ "$PM" = "pnpm" ]; then
+         RELATED="pnpm exec vitest related --run --passWithNoTests"
+       elif [ "$PM" = "yarn" ]; then
+         RELATED="yarn vitest related --run --passWithNoTests"
+       else
+         RELATED="npx --no-install vitest related --run --passWithNoTests"
+       fi
+     elif [ "$PM" = "npm" ]; then
+       RELATED="npm run test -- --findRelatedTests --passWithNoTests"
+     else
+       RELATED="$PM run test --findRelatedTests --passWithNoTests"
+     fi
+     tr '\n' '\0' < "$TEST_FILES" | xargs -0 $RELATED
+     exit 0
+  fi
+
+  # One shard of several running in parallel on this workspace: each keeps its own coverage
+  # directory, merged into coverage/lcov.info by the engine once all shards are done
+  if [ "$COMMAND" = "test" ] && [ -n "$TEST_SHARD_COUNT" ]; then
+     echo "Running test shard $TEST_SHARD/$TEST_SHARD_COUNT"
+     SHARD_ARGS="--shard=$TEST_SHARD/$TEST_SHARD_COUNT"
+     if grep -q '"vitest"' package.json; then
+       SHARD_ARGS="$SHARD_ARGS --coverage.reportsDirectory=coverage/shard-$TEST_SHARD"
+     else
+       SHARD_ARGS="$SHARD_ARGS --coverageDirectory=coverage/shard-$TEST_SHARD"
+     fi
+     if [ "$PM" = "npm" ]; then
+       ARGS="-- $SHARD_ARGS"
      else
-       ARGS="--cache"
+       ARGS="$SHARD_ARGS"
      fi
   fi
 
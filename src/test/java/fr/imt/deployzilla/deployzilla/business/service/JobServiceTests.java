@@ -0,0 +1,186 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.model.BuildOutput;
+import fr.imt.deployzilla.deployzilla.business.model.ImageBuildMode;
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import fr.imt.deployzilla.deployzilla.business.port.ProjectRepositoryPort;
+import fr.imt.deployzilla.deployzilla.business.service.jobs.AppRunService;
+import fr.imt.deployzilla.deployzilla.business.service.jobs.EslintService;
+import fr.imt.deployzilla.deployzilla.business.service.jobs.GitCloneService;
+import fr.imt.deployzilla.deployzilla.business.service.jobs.ImageBuildService;
+import fr.imt.deployzilla.deployzilla.business.service.jobs.NpmBuildService;
+import fr.imt.deployzilla.deployzilla.business.service.jobs.NpmInstallService;
+import fr.imt.deployzilla.deployzilla.business.service.jobs.UnitTestService;
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.ContainerLogStreamer;
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.DockerImageService;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Project;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobServiceTests {
+
+    private static final String WORKSPACE_HEAD = "1111111111111111111111111111111111111111";
+    private static final String MOVED_HEAD = "2222222222222222222222222222222222222222";
+
+    private final ProjectRepositoryPort projectRepositoryPort = mock(ProjectRepositoryPort.class);
+    private final PipelineRepositoryPort pipelineRepositoryPort = mock(PipelineRepositoryPort.class);
+    private final GitCloneService gitCloneService = mock(GitCloneService.class);
+    private final NpmBuildService npmBuildService = mock(NpmBuildService.class);
+    private final ImageBuildService imageBuildService = mock(ImageBuildService.class);
+    private final ContainerExecutor containerExecutor = mock(ContainerExecutor.class);
+    private final DockerImageService dockerImageService = mock(DockerImageService.class);
+    private final JobService jobService = new JobService(projectRepositoryPort, pipelineRepositoryPort,
+            gitCloneService, mock(EslintService.class), mock(UnitTestService.class), mock(NpmInstallService.class),
+            mock(SonarqubeService.class), npmBuildService, imageBuildService, mock(AppRunService.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jobService, "projectDir", "app");
+
+        // The pipeline was created for a branch name, not the commit its workspace ended up at
+        Pipeline pipeline = new Pipeline();
+        pipeline.setCommitHash("main");
+        when(pipelineRepositoryPort.findById("p1")).thenReturn(Optional.of(pipeline));
+        when(gitCloneService.readHead("p1", "app")).thenReturn(WORKSPACE_HEAD);
+    }
+
+    @Test
+    void npmBuildRecordsTheWorkspaceHead() {
+        when(npmBuildService.execute(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new ProcessResult(0, "SUCCESS")));
+
+        jobService.runNpmBuild("p1");
+
+        verify(npmBuildService).execute("p1", "app", WORKSPACE_HEAD);
+    }
+
+    @Test
+    void imageBuildComparesBuildOutputWithTheWorkspaceHead() {
+        Project project = new Project();
+        project.setImageBuildMode(ImageBuildMode.PREBUILT);
+        when(projectRepositoryPort.findById("project")).thenReturn(Optional.of(project));
+        BuildOutput buildOutput = new BuildOutput(WORKSPACE_HEAD, List.of("dist"), false);
+        when(npmBuildService.readOutput("p1", "app")).thenReturn(buildOutput);
+        when(imageBuildService.execute(anyString(), anyString(), anyString(), any(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new ProcessResult(0, "SUCCESS")));
+
+        jobService.createImage("project", "p1");
+
+        verify(imageBuildService).execute(eq("project"), eq("p1"), eq("app"), eq(ImageBuildMode.PREBUILT),
+                eq(WORKSPACE_HEAD), eq(buildOutput));
+    }
+
+    @Test
+    void prebuiltImagePackagesTheBuildOutput(@TempDir Path workspaces) throws IOException {
+        Path projectPath = prebuiltWorkspace(workspaces);
+
+        JobService jobs = jobServiceOn(workspaces);
+        jobs.runNpmBuild("p1");
+        jobs.createImage("project", "p1");
+
+        verify(dockerImageService).buildImage(eq("p1"), eq("project"), eq(projectPath), anyString(), anyString(),
+                eq(Set.of("dist")), anyString(), anyString());
+    }
+
+    @Test
+    void prebuiltImageBuildsAgainWhenHeadMovedAfterNpmBuild(@TempDir Path workspaces) throws IOException {
+        Path projectPath = prebuiltWorkspace(workspaces);
+
+        JobService jobs = jobServiceOn(workspaces);
+        jobs.runNpmBuild("p1");
+        // e.g. a reset by a later step: the clone metadata still names the old commit
+        Files.writeString(projectPath.resolve(".git/refs/heads/main"), MOVED_HEAD + "\n");
+        jobs.createImage("project", "p1");
+
+        verify(dockerImageService).buildImage(eq("p1"), eq("project"), eq(projectPath), anyString(), anyString(),
+                eq(Set.of()), anyString(), anyString());
+    }
+
+    @Test
+    void prebuiltImageBuildsAgainWhenSourcesChangedAfterNpmBuild(@TempDir Path workspaces) throws IOException {
+        Path projectPath = prebuiltWorkspace(workspaces);
+
+        JobService jobs = jobServiceOn(workspaces);
+        jobs.runNpmBuild("p1");
+        Path source = projectPath.resolve("src/index.js");
+        Files.writeString(source, "console.log('edited');");
+        Files.setLastModifiedTime(source, FileTime.from(
+                Files.getLastModifiedTime(projectPath.resolve(".deployzilla-build")).toInstant().plusSeconds(1)));
+        jobs.createImage("project", "p1");
+
+        verify(dockerImageService).buildImage(eq("p1"), eq("project"), eq(projectPath), anyString(), anyString(),
+                eq(Set.of()), anyString(), anyString());
+    }
+
+    /**
+     * A pipeline workspace on branch {@code main} at {@link #WORKSPACE_HEAD}, whose build writes {@code dist},
+     * of a {@code PREBUILT} project.
+     */
+    private Path prebuiltWorkspace(Path workspaces) throws IOException {
+        Path projectPath = workspaces.resolve("p1").resolve("app");
+        Files.createDirectories(projectPath.resolve(".git/refs/heads"));
+        Files.writeString(projectPath.resolve(".git/HEAD"), "ref: refs/heads/main\n");
+        Files.writeString(projectPath.resolve(".git/refs/heads/main"), WORKSPACE_HEAD + "\n");
+        Files.writeString(workspaces.resolve("p1/clone-metadata.properties"), "commit=" + WORKSPACE_HEAD + "\n");
+        Files.createDirectories(projectPath.resolve("src"));
+        Files.writeString(projectPath.resolve("package.json"), "{}");
+        Files.writeString(projectPath.resolve("src/index.js"), "console.log('hello');");
+        FileTime checkedOut = FileTime.from(Instant.now().minusSeconds(3600));
+        Files.setLastModifiedTime(projectPath.resolve("package.json"), checkedOut);
+        Files.setLastModifiedTime(projectPath.resolve("src/index.js"), checkedOut);
+        Files.setLastModifiedTime(projectPath.resolve("src"), checkedOut);
+
+        when(containerExecutor.executeStep(eq("p1"), eq(JobType.NPM_BUILD.getStepId()), anyString(), any(), any()))
+                .thenAnswer(invocation -> {
+                    Files.createDirectories(projectPath.resolve("dist"));
+                    Files.writeString(projectPath.resolve("dist/index.js"), "console.log('hello');");
+                    return CompletableFuture.completedFuture(new ProcessResult(0, "SUCCESS"));
+                });
+        Project project = new Project();
+        project.setImageBuildMode(ImageBuildMode.PREBUILT);
+        when(projectRepositoryPort.findById("project")).thenReturn(Optional.of(project));
+        return projectPath;
+    }
+
+    /**
+     * A service running the real clone, build and image build steps on {@code workspaces}, with Docker mocked.
+     */
+    private JobService jobServiceOn(Path workspaces) {
+        GitCloneService realGitCloneService = new GitCloneService(containerExecutor);
+        ReflectionTestUtils.setField(realGitCloneService, "localWorkspacePath", workspaces.toString());
+        NpmBuildService realNpmBuildService = new NpmBuildService(containerExecutor);
+        ReflectionTestUtils.setField(realNpmBuildService, "workspacePath", workspaces.toString());
+        ReflectionTestUtils.setField(realNpmBuildService, "workspaceLocalPath", workspaces.toString());
+        ImageBuildService realImageBuildService = new ImageBuildService(dockerImageService,
+                mock(ContainerLogStreamer.class));
+        ReflectionTestUtils.setField(realImageBuildService, "workspaceLocalPath", workspaces.toString());
+
+        JobService jobs = new JobService(projectRepositoryPort, pipelineRepositoryPort, realGitCloneService,
+                mock(EslintService.class), mock(UnitTestService.class), mock(NpmInstallService.class),
+                mock(SonarqubeService.class), realNpmBuildService, realImageBuildService, mock(AppRunService.class));
+        ReflectionTestUtils.setField(jobs, "projectDir", "app");
+        return jobs;
+    }
+}
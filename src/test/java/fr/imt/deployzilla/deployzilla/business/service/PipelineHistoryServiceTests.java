@@ -0,0 +1,96 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.model.PipelineCursor;
+import fr.imt.deployzilla.deployzilla.business.model.PipelinePage;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineSummary;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PipelineHistoryServiceTests {
+
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2026, 3, 1, 12, 30, 15);
+
+    private final PipelineRepositoryPort pipelineRepository = mock(PipelineRepositoryPort.class);
+    private final PipelineHistoryService service = new PipelineHistoryService(pipelineRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 100);
+    }
+
+    @Test
+    void nextCursorPointsAfterTheLastPipelineOfThePage() {
+        when(pipelineRepository.findByStatus(eq("SUCCESS"), any(), eq(3)))
+                .thenReturn(List.of(summary("p3", UPDATED), summary("p2", UPDATED), summary("p1", UPDATED)));
+
+        PipelinePage page = service.listPipelinesByStatus("SUCCESS", null, 2);
+        service.listPipelinesByStatus("SUCCESS", page.getNextCursor(), 2);
+
+        assertThat(page.getPipelines()).extracting(PipelineSummary::getId).containsExactly("p3", "p2");
+        assertThat(decoded(page.getNextCursor())).isEqualTo(UPDATED + "|p2");
+        assertThat(requestedCursors()).containsExactly(null, new PipelineCursor(UPDATED, "p2"));
+    }
+
+    @Test
+    void cursorOfAPipelineWithoutSortValueContinuesAmongThoseWithout() {
+        when(pipelineRepository.findByStatus(eq("SUCCESS"), any(), eq(2)))
+                .thenReturn(List.of(summary("p2", null), summary("p1", null)));
+
+        PipelinePage page = service.listPipelinesByStatus("SUCCESS", null, 1);
+        service.listPipelinesByStatus("SUCCESS", page.getNextCursor(), 1);
+
+        assertThat(decoded(page.getNextCursor())).isEqualTo("|p2");
+        assertThat(requestedCursors()).containsExactly(null, new PipelineCursor(null, "p2"));
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        when(pipelineRepository.findByStatus(eq("SUCCESS"), any(), eq(3))).thenReturn(List.of(summary("p1", UPDATED)));
+
+        assertThat(service.listPipelinesByStatus("SUCCESS", null, 2).getNextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String cursor : List.of("not base64!", encoded("no-separator"), encoded("yesterday|p1"), encoded(UPDATED + "|"))) {
+            assertThatThrownBy(() -> service.listPipelinesByStatus("SUCCESS", cursor, 2))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid cursor");
+        }
+    }
+
+    private List<PipelineCursor> requestedCursors() {
+        ArgumentCaptor<PipelineCursor> cursors = ArgumentCaptor.forClass(PipelineCursor.class);
+        verify(pipelineRepository, times(2)).findByStatus(eq("SUCCESS"), cursors.capture(), any(Integer.class));
+        return cursors.getAllValues();
+    }
+
+    private static PipelineSummary summary(String id, LocalDateTime updatedAt) {
+        return new PipelineSummary(id, "project-1", "SUCCESS", "abc123", "alice", "PUSH", UPDATED.minusHours(1), updatedAt);
+    }
+
+    private static String decoded(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    private static String encoded(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,65 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PipelineRetentionServiceTests {
+
+    private final PipelineRepositoryPort pipelineRepository = mock(PipelineRepositoryPort.class);
+    private final PipelineRetentionService service = new PipelineRetentionService(pipelineRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxAge", Duration.ofDays(90));
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    @Test
+    void archivesBatchesUntilOneIsNotFull() {
+        when(pipelineRepository.archiveFinishedBefore(any(), anyInt())).thenReturn(2).thenReturn(2).thenReturn(1);
+
+        service.archive();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(pipelineRepository, times(3)).archiveFinishedBefore(cutoff.capture(), eq(2));
+        assertThat(cutoff.getAllValues()).containsOnly(cutoff.getValue());
+        assertThat(cutoff.getValue()).isBetween(LocalDateTime.now().minusDays(90).minusMinutes(1), LocalDateTime.now().minusDays(90));
+    }
+
+    @Test
+    void stopsAtTheFirstFailure() {
+        when(pipelineRepository.archiveFinishedBefore(any(), anyInt()))
+                .thenReturn(2)
+                .thenThrow(new IllegalStateException("Mongo unavailable"));
+
+        service.archive();
+
+        verify(pipelineRepository, times(2)).archiveFinishedBefore(any(), anyInt());
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        ReflectionTestUtils.setField(service, "enabled", false);
+
+        service.archive();
+
+        verify(pipelineRepository, never()).archiveFinishedBefore(any(), anyInt());
+    }
+}
@@ -0,0 +1,60 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.model.PipelineState;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineStatePort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PipelineStateServiceTests {
+
+    private final PipelineStatePort statePort = mock(PipelineStatePort.class);
+    private final PipelineStateService service = new PipelineStateService(statePort);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxWait", Duration.ofMillis(50));
+        when(statePort.find("p1")).thenReturn(Optional.of(state(42)));
+    }
+
+    @Test
+    void capsTheWaitAtTheConfiguredMaximum() throws Exception {
+        CompletableFuture<PipelineState> result = service.awaitChange("p1", 42L, Duration.ofSeconds(Long.MAX_VALUE));
+
+        assertThat(result.get(5, TimeUnit.SECONDS).getVersion()).isEqualTo(42);
+    }
+
+    @Test
+    void rejectsANegativeWait() {
+        assertThatThrownBy(() -> service.awaitChange("p1", 42L, Duration.ofSeconds(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void answersAtOnceWhenTheVersionAlreadyChanged() {
+        CompletableFuture<PipelineState> result = service.awaitChange("p1", 41L, Duration.ofSeconds(30));
+
+        assertThat(result).isCompletedWithValueMatching(state -> state.getVersion() == 42);
+    }
+
+    private static PipelineState state(long version) {
+        return PipelineState.builder()
+                .pipelineId("p1")
+                .status("RUNNING")
+                .jobs(List.of())
+                .version(version)
+                .updatedAt(version)
+                .build();
+    }
+}
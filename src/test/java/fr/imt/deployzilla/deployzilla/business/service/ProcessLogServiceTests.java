@@ -0,0 +1,63 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogHistoryPort;
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogStorePort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ProcessLogServiceTests {
+
+    private final ProcessLogHistoryPort historyPort = mock(ProcessLogHistoryPort.class);
+    private final ProcessLogService service = new ProcessLogService(historyPort, mock(ProcessLogStorePort.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 1000);
+    }
+
+    @Test
+    void replaysFromTheBeginningWithoutLastSeenId() {
+        service.replay("p1", null, 500);
+
+        verify(historyPort).readAfter("p1", null, 500);
+    }
+
+    @Test
+    void resumesAfterTheLastSeenId() {
+        service.replay("p1", "1700000000000-3", 500);
+
+        verify(historyPort).readAfter("p1", "1700000000000-3", 500);
+    }
+
+    @Test
+    void capsThePageSize() {
+        service.replay("p1", null, 1_000_000);
+
+        verify(historyPort).readAfter("p1", null, 1000);
+    }
+
+    @Test
+    void rejectsAMalformedLastSeenId() {
+        assertThatThrownBy(() -> service.replay("p1", "not-an-id", 500))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.replay("p1", "1700000000000", 500))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(historyPort, never()).readAfter(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void rejectsANonPositiveLimit() {
+        assertThatThrownBy(() -> service.replay("p1", null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.replay("p1", null, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,79 @@
+package fr.imt.deployzilla.deployzilla.business.service;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import fr.imt.deployzilla.deployzilla.business.port.StepDurationStatsPort;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Job;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StepDurationServiceTests {
+
+    private final StepDurationStatsPort statsPort = mock(StepDurationStatsPort.class);
+    private final PipelineRepositoryPort pipelineRepository = mock(PipelineRepositoryPort.class);
+    private final StepDurationService service = new StepDurationService(statsPort, pipelineRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxWindow", Duration.ofDays(7));
+    }
+
+    @Test
+    void countsAJobOnceWhetherRecordedHereOrReadBackFromMongo() {
+        Job job = finishedJob();
+        Pipeline pipeline = new Pipeline();
+        pipeline.setProjectId("project-1");
+        pipeline.addJob(job.copy());
+        when(pipelineRepository.findFinishedSince(any())).thenReturn(List.of(pipeline));
+
+        service.record("project-1", job);
+        service.sync();
+        service.sync();
+
+        verify(statsPort, times(1)).record(eq("project-1"), eq(JobType.NPM_TEST), eq(Duration.ofSeconds(42)), any());
+    }
+
+    @Test
+    void recordsJobsFinishedOnOtherNodes() {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setProjectId("project-1");
+        pipeline.addJob(finishedJob());
+        when(pipelineRepository.findFinishedSince(any())).thenReturn(List.of()).thenReturn(List.of(pipeline));
+
+        service.sync();
+        service.sync();
+
+        verify(statsPort, times(1)).record(eq("project-1"), eq(JobType.NPM_TEST), eq(Duration.ofSeconds(42)), any());
+    }
+
+    @Test
+    void capsTheWindowAtTheMaximum() {
+        assertThat(service.effectiveWindow(Duration.ofDays(30))).isEqualTo(Duration.ofDays(7));
+        assertThat(service.effectiveWindow(Duration.ofHours(24))).isEqualTo(Duration.ofHours(24));
+        assertThatThrownBy(() -> service.effectiveWindow(Duration.ZERO)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Job finishedJob() {
+        Job job = new Job(JobType.NPM_TEST);
+        LocalDateTime end = LocalDateTime.now().minusMinutes(5);
+        job.setStatus("SUCCESS");
+        job.setStartTime(end.minusSeconds(42));
+        job.setEndTime(end);
+        return job;
+    }
+}
@@ -0,0 +1,119 @@
+package fr.imt.deployzilla.deployzilla.business.service.jobs;
+
+import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
+import fr.imt.deployzilla.deployzilla.business.service.ContainerExecutor;
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.ContainerLogStreamer;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Project;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EslintServiceTests {
+
+    @TempDir
+    Path workspaces;
+
+    private final ContainerExecutor containerExecutor = mock(ContainerExecutor.class);
+    private final ContainerLogStreamer containerLogStreamer = mock(ContainerLogStreamer.class);
+    private final EslintService eslintService = new EslintService(containerExecutor, containerLogStreamer);
+    private Project project;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(eslintService, "workspacePath", "/host/workspaces");
+        ReflectionTestUtils.setField(eslintService, "workspaceLocalPath", workspaces.toString());
+        ReflectionTestUtils.setField(eslintService, "cacheEnabled", false);
+
+        project = new Project();
+        project.setProjectId(new ObjectId());
+        project.setBranch("feature");
+        project.setLintChangedFilesOnly(true);
+
+        Files.createDirectories(workspaces.resolve("p1/app/src"));
+        Files.writeString(workspaces.resolve("p1/app/src/sum.ts"), "export const sum = (a: number, b: number) => a + b;");
+        Files.writeString(workspaces.resolve("p1/app/src/styles.css"), "body { margin: 0; }");
+        Files.writeString(workspaces.resolve("p1/app/README.md"), "# App");
+        when(containerExecutor.executeStep(anyString(), anyString(), anyString(), anyList(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new ProcessResult(0, "SUCCESS")));
+    }
+
+    @Test
+    void lintsOnlyChangedFilesWithALintableExtension() throws IOException {
+        eslintService.execute("p1", "app", project, changed("src/sum.ts", "src/styles.css", "README.md")).join();
+
+        assertThat(lintEnvironment()).containsEntry("LINT_FILES", ".deployzilla-lint-files");
+        assertThat(Files.readAllLines(workspaces.resolve("p1/app/.deployzilla-lint-files"))).containsExactly("src/sum.ts");
+    }
+
+    @Test
+    void skipsESLintWhenNoLintableFileChanged() {
+        ProcessResult result = eslintService.execute("p1", "app", project, changed("src/styles.css", "README.md")).join();
+
+        assertThat(result.getExitCode()).isZero();
+        verify(containerExecutor, never()).executeStep(anyString(), anyString(), anyString(), anyList(), any());
+        verify(containerLogStreamer).sealLogs(eq("p1"), anyString());
+    }
+
+    @Test
+    void lintsEverythingWhenTheConfigurationOrDependenciesChanged() {
+        for (String config : List.of("eslint.config.mjs", ".eslintrc.json", "package.json", "pnpm-lock.yaml")) {
+            eslintService.execute("p1", "app", project, changed("src/sum.ts", config)).join();
+        }
+
+        ArgumentCaptor<Map<String, String>> environments = environments(4);
+        assertThat(environments.getAllValues()).allSatisfy(env -> assertThat(env).doesNotContainKey("LINT_FILES"));
+    }
+
+    @Test
+    void lintsEverythingWithoutABaseCommit() {
+        eslintService.execute("p1", "app", project, new RepositoryMetadata("head", "tree", "npm", Map.of(), null, null)).join();
+
+        assertThat(lintEnvironment()).doesNotContainKey("LINT_FILES");
+    }
+
+    @Test
+    void ignoresChangedFilesThatNoLongerExist() {
+        ProcessResult result = eslintService.execute("p1", "app", project, changed("src/removed.ts")).join();
+
+        assertThat(result.getExitCode()).isZero();
+        verify(containerExecutor, never()).executeStep(anyString(), anyString(), anyString(), anyList(), any());
+    }
+
+    private Map<String, String> lintEnvironment() {
+        return environments(1).getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArgumentCaptor<Map<String, String>> environments(int times) {
+        ArgumentCaptor<Map<String, String>> environments = ArgumentCaptor.forClass(Map.class);
+        verify(containerExecutor, times(times))
+                .executeStep(eq("p1"), anyString(), anyString(), anyList(), environments.capture());
+        return environments;
+    }
+
+    private static RepositoryMetadata changed(String... files) {
+        return new RepositoryMetadata("head", "tree", "npm", Map.of(), "base", List.of(files));
+    }
+}
@@ -0,0 +1,107 @@
+package fr.imt.deployzilla.deployzilla.business.service.jobs;
+
+import fr.imt.deployzilla.deployzilla.business.model.ProcessResult;
+import fr.imt.deployzilla.deployzilla.business.model.RepositoryMetadata;
+import fr.imt.deployzilla.deployzilla.business.service.ContainerExecutor;
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.ContainerLogStreamer;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Project;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UnitTestServiceTests {
+
+    @TempDir
+    Path workspaces;
+
+    private final ContainerExecutor containerExecutor = mock(ContainerExecutor.class);
+    private final UnitTestService unitTestService =
+            new UnitTestService(containerExecutor, mock(ContainerLogStreamer.class));
+    private Project project;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(unitTestService, "workspacePath", "/host/workspaces");
+        ReflectionTestUtils.setField(unitTestService, "workspaceLocalPath", workspaces.toString());
+        ReflectionTestUtils.setField(unitTestService, "maxShards", 8);
+        ReflectionTestUtils.setField(unitTestService, "fullSuiteBranches", Set.of("main"));
+        ReflectionTestUtils.setField(unitTestService, "fullSuiteInterval", Duration.ofHours(24));
+
+        project = new Project();
+        project.setProjectId(new ObjectId());
+        project.setBranch("feature");
+        project.setTestShards(1);
+        project.setTestImpactSelection(true);
+        @SuppressWarnings("unchecked")
+        Map<String, Instant> lastFullRuns = (Map<String, Instant>) ReflectionTestUtils.getField(unitTestService, "lastFullRuns");
+        lastFullRuns.put(project.getProjectId().toHexString(), Instant.now());
+
+        Files.createDirectories(workspaces.resolve("p1/app/src"));
+        Files.writeString(workspaces.resolve("p1/app/src/sum.js"), "export const sum = (a, b) => a + b;");
+        when(containerExecutor.executeStep(anyString(), anyString(), anyString(), anyList(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new ProcessResult(0, "SUCCESS")));
+    }
+
+    @Test
+    void runsTheTestsRelatedToChangedFiles() {
+        unitTestService.execute("p1", "app", project, changed("src/sum.js")).join();
+
+        verify(containerExecutor).executeStep(eq("p1"), anyString(), anyString(), anyList(),
+                eq(Map.of("TEST_FILES", ".deployzilla-test-files")));
+    }
+
+    @Test
+    void runsEverythingWhenAChangedSourceFileNoLongerExists() {
+        // A rename lists the old path, whose importers now fail without being related to anything
+        unitTestService.execute("p1", "app", project, changed("src/sum.js", "src/add.js")).join();
+
+        verify(containerExecutor).executeStep(eq("p1"), anyString(), anyString(), anyList(), eq(Map.of()));
+    }
+
+    @Test
+    void runsEverythingWhenASnapshotChanged() {
+        unitTestService.execute("p1", "app", project, changed("src/__snapshots__/sum.test.js.snap")).join();
+
+        verify(containerExecutor).executeStep(eq("p1"), anyString(), anyString(), anyList(), eq(Map.of()));
+    }
+
+    @Test
+    void skipsTheTestsWhenOnlyDocumentationChanged() {
+        unitTestService.execute("p1", "app", project, changed("README.md", "docs/usage.mdx", "LICENSE")).join();
+
+        verify(containerExecutor, never()).executeStep(anyString(), anyString(), anyString(), anyList(), any());
+    }
+
+    @Test
+    void ignoresDocumentationNextToChangedSources() {
+        unitTestService.execute("p1", "app", project, changed("src/sum.js", "CHANGELOG.md")).join();
+
+        verify(containerExecutor).executeStep(eq("p1"), anyString(), anyString(), anyList(),
+                eq(Map.of("TEST_FILES", ".deployzilla-test-files")));
+    }
+
+    private static RepositoryMetadata changed(String... files) {
+        return new RepositoryMetadata("head", "tree", "npm", Map.of(), "base", List.of(files));
+    }
+}
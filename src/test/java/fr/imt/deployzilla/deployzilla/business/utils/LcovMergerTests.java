@@ -0,0 +1,127 @@
+package fr.imt.deployzilla.deployzilla.business.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LcovMergerTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sumsHitsPerLineFunctionAndBranchAndRecomputesTotals() throws IOException {
+        Path first = write("shard-1.info", """
+                TN:
+                SF:src/sum.js
+                FN:1,sum
+                FN:5,unused
+                FNDA:2,sum
+                FNDA:0,unused
+                FNF:2
+                FNH:1
+                BRDA:2,0,0,1
+                BRDA:2,0,1,0
+                BRF:2
+                BRH:1
+                DA:1,2
+                DA:2,2
+                DA:6,0
+                LF:3
+                LH:2
+                end_of_record
+                """);
+        Path second = write("shard-2.info", """
+                TN:
+                SF:src/sum.js
+                FN:1,sum
+                FN:5,unused
+                FNDA:1,sum
+                FNDA:3,unused
+                BRDA:2,0,0,0
+                BRDA:2,0,1,4
+                DA:1,1
+                DA:6,3
+                end_of_record
+                """);
+        Path output = dir.resolve("coverage/lcov.info");
+
+        int files = LcovMerger.merge(List.of(first, second), output);
+
+        assertThat(files).isEqualTo(1);
+        assertThat(Files.readAllLines(output)).containsExactly(
+                "TN:",
+                "SF:src/sum.js",
+                "FN:1,sum",
+                "FN:5,unused",
+                "FNDA:3,sum",
+                "FNDA:3,unused",
+                "FNF:2",
+                "FNH:2",
+                "BRDA:2,0,0,1",
+                "BRDA:2,0,1,4",
+                "BRF:2",
+                "BRH:2",
+                "DA:1,3",
+                "DA:2,2",
+                "DA:6,3",
+                "LF:3",
+                "LH:3",
+                "end_of_record");
+    }
+
+    @Test
+    void keepsUnevaluatedBranchesUntilAShardEvaluatesThem() throws IOException {
+        Path first = write("shard-1.info", """
+                SF:src/a.js
+                BRDA:3,0,0,-
+                BRDA:3,0,1,-
+                end_of_record
+                """);
+        Path second = write("shard-2.info", """
+                SF:src/a.js
+                BRDA:3,0,0,2
+                BRDA:3,0,1,-
+                end_of_record
+                """);
+        Path output = dir.resolve("lcov.info");
+
+        LcovMerger.merge(List.of(first, second), output);
+
+        assertThat(Files.readAllLines(output))
+                .contains("BRDA:3,0,0,2", "BRDA:3,0,1,-", "BRF:2", "BRH:1");
+    }
+
+    @Test
+    void keepsSourcesCoveredByOneShardOnlyAndSkipsMalformedRecords() throws IOException {
+        Path first = write("shard-1.info", """
+                SF:src/a.js
+                DA:1,1
+                DA:oops
+                end_of_record
+                """);
+        Path second = write("shard-2.info", """
+                SF:src/b.js
+                DA:1,0
+                end_of_record
+                """);
+        Path output = dir.resolve("lcov.info");
+
+        int files = LcovMerger.merge(List.of(first, second), output);
+
+        assertThat(files).isEqualTo(2);
+        List<String> lines = Files.readAllLines(output);
+        assertThat(lines).contains("SF:src/a.js", "SF:src/b.js", "DA:1,1", "DA:1,0");
+        assertThat(lines).doesNotContain("DA:oops");
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content);
+    }
+}
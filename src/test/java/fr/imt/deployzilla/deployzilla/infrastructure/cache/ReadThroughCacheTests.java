@@ -0,0 +1,135 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.cache;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Job;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadThroughCacheTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReadThroughCache<String, Pipeline> cache =
+            new ReadThroughCache<>("pipeline", 2, Duration.ofMinutes(1), Pipeline::copy, meterRegistry);
+
+    @Test
+    void loadsOnceThenServesFromTheCache() {
+        AtomicInteger loads = new AtomicInteger();
+        Pipeline pipeline = pipeline("p1");
+
+        cache.get("p1", id -> {
+            loads.incrementAndGet();
+            return Optional.of(pipeline);
+        });
+        Optional<Pipeline> cached = cache.get("p1", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertThat(loads).hasValue(1);
+        assertThat(cached).hasValueSatisfying(value -> assertThat(value.getId()).isEqualTo("p1"));
+        assertThat(meterRegistry.get("deployzilla.cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("deployzilla.cache.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheAbsentValues() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("missing", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        cache.get("missing", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void modifyingAReturnedValueLeavesTheCachedOneUnchanged() {
+        Pipeline pipeline = pipeline("p1");
+        cache.put("p1", pipeline);
+        pipeline.setStatus("FAILED");
+
+        Pipeline first = cache.get("p1", id -> Optional.empty()).orElseThrow();
+        first.setStatus("RUNNING");
+        first.getJobs().getFirst().setStatus("RUNNING");
+
+        Pipeline second = cache.get("p1", id -> Optional.empty()).orElseThrow();
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getStatus()).isEqualTo("CREATED");
+        assertThat(second.getJobs().getFirst().getStatus()).isEqualTo("PENDING");
+    }
+
+    @Test
+    void updateChangesTheCachedValue() {
+        cache.put("p1", pipeline("p1"));
+
+        cache.update("p1", cached -> cached.setStatus("SUCCESS"));
+        cache.update("absent", cached -> cached.setStatus("SUCCESS"));
+
+        assertThat(cache.get("p1", id -> Optional.empty()).orElseThrow().getStatus()).isEqualTo("SUCCESS");
+    }
+
+    @Test
+    void doesNotCacheALoadOverlappingAChange() {
+        cache.get("p1", id -> {
+            cache.update("p1", cached -> cached.setStatus("SUCCESS"));
+            return Optional.of(pipeline("p1"));
+        });
+        cache.get("p2", id -> {
+            cache.invalidate("p2");
+            return Optional.of(pipeline("p2"));
+        });
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("p1", id -> {
+            loads.incrementAndGet();
+            return Optional.of(pipeline("p1"));
+        });
+        cache.get("p2", id -> {
+            loads.incrementAndGet();
+            return Optional.of(pipeline("p2"));
+        });
+        assertThat(loads).hasValue(2);
+        // Both loads above completed without interference, so they are cached
+        assertThat(cache.get("p1", id -> Optional.empty())).isPresent();
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        cache.put("p1", pipeline("p1"));
+        cache.put("p2", pipeline("p2"));
+        cache.get("p1", id -> Optional.empty());
+        cache.put("p3", pipeline("p3"));
+
+        assertThat(cache.get("p2", id -> Optional.empty())).isEmpty();
+        assertThat(cache.get("p1", id -> Optional.empty())).isPresent();
+        assertThat(meterRegistry.get("deployzilla.cache.evictions").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredEntriesAreLoadedAgain() {
+        ReadThroughCache<String, Pipeline> expired =
+                new ReadThroughCache<>("expired", 2, Duration.ZERO, Pipeline::copy, meterRegistry);
+        expired.put("p1", pipeline("p1"));
+
+        assertThat(expired.get("p1", id -> Optional.empty())).isEmpty();
+    }
+
+    private static Pipeline pipeline(String id) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setId(id);
+        pipeline.addJob(new Job(JobType.NPM_TEST));
+        return pipeline;
+    }
+}
@@ -0,0 +1,78 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.codec;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogRecord;
+import fr.imt.deployzilla.deployzilla.business.model.LogStream;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogRecordCodecTests {
+
+    private final LogRecordCodec codec = new LogRecordCodec(JsonMapper.builder().build());
+
+    @Test
+    void binaryRoundTripKeepsEveryField() {
+        LogRecord record = record("npm-install", LogStream.STDERR, 42, Instant.parse("2026-03-01T10:15:30.123456789Z"),
+                "added 312 packages — ✓");
+
+        byte[] encoded = codec.encode(record, LogRecordCodec.Format.BINARY);
+
+        assertThat(codec.formatOf(encoded)).isEqualTo(LogRecordCodec.Format.BINARY);
+        assertThat(codec.decode(encoded)).isEqualTo(record);
+    }
+
+    @Test
+    void binaryRoundTripOfPipelineLevelMarker() {
+        LogRecord record = record(null, LogStream.SYSTEM, -1, Instant.parse("1969-12-31T23:59:59.5Z"), "");
+
+        assertThat(codec.decode(codec.encode(record, LogRecordCodec.Format.BINARY))).isEqualTo(record);
+    }
+
+    @Test
+    void jsonRoundTripKeepsMicroseconds() {
+        LogRecord record = record("unit-test", LogStream.STDOUT, 7, Instant.parse("2026-03-01T10:15:30.123456789Z"),
+                "PASS src/app.test.ts");
+
+        byte[] encoded = codec.encode(record, LogRecordCodec.Format.JSON);
+
+        assertThat(codec.formatOf(encoded)).isEqualTo(LogRecordCodec.Format.JSON);
+        assertThat(codec.decode(encoded)).isEqualTo(record("unit-test", LogStream.STDOUT, 7,
+                Instant.parse("2026-03-01T10:15:30.123456Z"), "PASS src/app.test.ts"));
+    }
+
+    @Test
+    void decodesLegacyPlainMessages() {
+        LogRecord decoded = codec.decode("p1|Cloning repository".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(decoded.getPipelineId()).isEqualTo("p1");
+        assertThat(decoded.getPayload()).isEqualTo("Cloning repository");
+        assertThat(decoded.getStream()).isEqualTo(LogStream.SYSTEM);
+        assertThat(decoded.getSequence()).isEqualTo(-1);
+    }
+
+    @Test
+    void rejectsUnknownEncodings() {
+        byte[] futureVersion = codec.encode(record("a", LogStream.STDOUT, 1, Instant.EPOCH, "x"), LogRecordCodec.Format.BINARY);
+        futureVersion[1] = 2;
+
+        assertThatThrownBy(() -> codec.decode(futureVersion)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode("no separator".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static LogRecord record(String stepId, LogStream stream, long sequence, Instant timestamp, String payload) {
+        return LogRecord.builder()
+                .pipelineId("p1")
+                .stepId(stepId)
+                .stream(stream)
+                .sequence(sequence)
+                .timestamp(timestamp)
+                .payload(payload)
+                .build();
+    }
+}
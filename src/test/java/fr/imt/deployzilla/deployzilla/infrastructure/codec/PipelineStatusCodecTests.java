@@ -0,0 +1,61 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.codec;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobProgress;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineStatusUpdate;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineStatusCodecTests {
+
+    private final PipelineStatusCodec codec = new PipelineStatusCodec();
+
+    @Test
+    void roundTripKeepsEveryField() {
+        PipelineStatusUpdate update = PipelineStatusUpdate.builder()
+                .pipelineId("p1")
+                .status("RUNNING")
+                .currentStep("unit-test")
+                .jobs(List.of(
+                        new JobProgress("j1", "NPM_INSTALL", "SUCCESS", 1000L, 2000L),
+                        new JobProgress("j2", "NPM_TEST", "RUNNING", 0L, null)))
+                .timestamp(1_772_000_000_000L)
+                .build();
+
+        assertThat(codec.decode(codec.encode(update))).isEqualTo(update);
+    }
+
+    @Test
+    void roundTripWithoutStepNorJobs() {
+        PipelineStatusUpdate update = PipelineStatusUpdate.builder()
+                .pipelineId("p1")
+                .status("SUCCESS")
+                .jobs(List.of())
+                .timestamp(1)
+                .build();
+
+        assertThat(codec.decode(codec.encode(update))).isEqualTo(update);
+    }
+
+    @Test
+    void decodesLegacyStrings() {
+        PipelineStatusUpdate update = codec.decode("p1|FAILED|eslint".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(update.getPipelineId()).isEqualTo("p1");
+        assertThat(update.getStatus()).isEqualTo("FAILED");
+        assertThat(update.getCurrentStep()).isEqualTo("eslint");
+        assertThat(update.getJobs()).isEmpty();
+    }
+
+    @Test
+    void rejectsUnknownEncodings() {
+        assertThatThrownBy(() -> codec.decode("garbage".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode(new byte[]{(byte) 0xD8, 9}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
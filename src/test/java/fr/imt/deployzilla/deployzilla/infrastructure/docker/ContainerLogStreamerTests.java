@@ -0,0 +1,77 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.LogContainerCmd;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import fr.imt.deployzilla.deployzilla.business.model.LogRecord;
+import fr.imt.deployzilla.deployzilla.business.port.LogSearchIndexPort;
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogPublisherPort;
+import fr.imt.deployzilla.deployzilla.business.port.ProcessLogStorePort;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContainerLogStreamerTests {
+
+    private final ProcessLogPublisherPort logPublisher = mock(ProcessLogPublisherPort.class);
+    private final ContainerLogStreamer streamer = new ContainerLogStreamer(logPublisher,
+            mock(ProcessLogStorePort.class), mock(LogSearchIndexPort.class));
+
+    @Test
+    void numbersLinesPerPipelineUntilItEnds() {
+        streamer.publishLog("p1", "a");
+        streamer.publishLog("p1", "b");
+        streamer.publishLog("p2", "c");
+        streamer.endPipeline("p1");
+        streamer.publishLog("p1", "d");
+
+        assertThat(published()).extracting(LogRecord::getPipelineId, LogRecord::getSequence)
+                .containsExactly(
+                        tuple("p1", 0L),
+                        tuple("p1", 1L),
+                        tuple("p2", 0L),
+                        tuple("p1", 0L));
+    }
+
+    @Test
+    void monitoredApplicationLogsKeepTheirSequenceAfterThePipelineEnds() {
+        DockerClient client = mock(DockerClient.class);
+        LogContainerCmd command = mock(LogContainerCmd.class, RETURNS_SELF);
+        AtomicReference<ResultCallback.Adapter<Frame>> callback = new AtomicReference<>();
+        when(client.logContainerCmd("0123456789ab")).thenReturn(command);
+        when(command.exec(any())).thenAnswer(invocation -> {
+            callback.set(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        streamer.publishLog("p1", "app-run", "starting");
+        streamer.monitorAsync(client, "p1", "app-run", "0123456789ab");
+        verify(command, timeout(5000)).exec(any());
+        streamer.endPipeline("p1");
+        callback.get().onNext(new Frame(StreamType.STDOUT, "listening\n".getBytes(StandardCharsets.UTF_8)));
+        callback.get().onComplete();
+
+        assertThat(published()).extracting(LogRecord::getSequence).containsExactly(0L, 1L);
+    }
+
+    private List<LogRecord> published() {
+        ArgumentCaptor<LogRecord> records = ArgumentCaptor.forClass(LogRecord.class);
+        verify(logPublisher, atLeastOnce()).publish(records.capture());
+        return records.getAllValues();
+    }
+}
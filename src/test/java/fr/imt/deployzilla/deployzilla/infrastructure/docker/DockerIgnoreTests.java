@@ -0,0 +1,111 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.docker;
+
+import fr.imt.deployzilla.deployzilla.infrastructure.docker.BuildContextArchive.DockerIgnore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DockerIgnoreTests {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void withoutDockerignoreNothingIsExcluded() throws IOException {
+        DockerIgnore ignore = DockerIgnore.read(root.resolve(".dockerignore"), Set.of());
+
+        assertThat(ignore.excludes("src/index.js")).isFalse();
+        assertThat(ignore.hasExceptions()).isFalse();
+    }
+
+    @Test
+    void matchesGlobsOnPathsFromTheContextRoot() throws IOException {
+        DockerIgnore ignore = read("""
+                # comment
+                *.log
+                docs
+                /tmp/./cache
+                src/*/fixtures
+                file?.txt
+                """);
+
+        assertThat(ignore.excludes("debug.log")).isTrue();
+        assertThat(ignore.excludes("logs/debug.log")).isFalse();
+        assertThat(ignore.excludes("docs/guide/intro.md")).isTrue();
+        assertThat(ignore.excludes("tmp/cache/entry")).isTrue();
+        assertThat(ignore.excludes("src/app/fixtures/data.json")).isTrue();
+        assertThat(ignore.excludes("src/app/deep/fixtures")).isFalse();
+        assertThat(ignore.excludes("file1.txt")).isTrue();
+        assertThat(ignore.excludes("file10.txt")).isFalse();
+        assertThat(ignore.excludes("# comment")).isFalse();
+    }
+
+    @Test
+    void doubleStarMatchesAnyNumberOfDirectories() throws IOException {
+        DockerIgnore ignore = read("""
+                **/*.test.js
+                coverage/**
+                """);
+
+        assertThat(ignore.excludes("sum.test.js")).isTrue();
+        assertThat(ignore.excludes("src/math/sum.test.js")).isTrue();
+        assertThat(ignore.excludes("src/math/sum.js")).isFalse();
+        assertThat(ignore.excludes("coverage/lcov-report/index.html")).isTrue();
+    }
+
+    @Test
+    void lastMatchingRuleWinsAndExceptionsReinclude() throws IOException {
+        DockerIgnore ignore = read("""
+                *.md
+                !README.md
+                README*
+                config
+                !config/default.json
+                """);
+
+        assertThat(ignore.hasExceptions()).isTrue();
+        assertThat(ignore.excludes("CHANGELOG.md")).isTrue();
+        // Excluded again by the rule after the exception
+        assertThat(ignore.excludes("README.md")).isTrue();
+        assertThat(ignore.excludes("config/secrets.json")).isTrue();
+        assertThat(ignore.excludes("config/default.json")).isFalse();
+    }
+
+    @Test
+    void keptPathsWinOverEveryRule() throws IOException {
+        DockerIgnore ignore = DockerIgnore.read(write("""
+                dist
+                .next
+                """), Set.of("dist"));
+
+        assertThat(ignore.excludes("dist/main.js")).isFalse();
+        assertThat(ignore.excludes(".next/cache")).isTrue();
+    }
+
+    @Test
+    void escapesRegexCharactersAndSupportsCharacterClasses() throws IOException {
+        DockerIgnore ignore = read("""
+                build+output
+                [ab].js
+                """);
+
+        assertThat(ignore.excludes("build+output")).isTrue();
+        assertThat(ignore.excludes("buildddoutput")).isFalse();
+        assertThat(ignore.excludes("a.js")).isTrue();
+        assertThat(ignore.excludes("c.js")).isFalse();
+    }
+
+    private DockerIgnore read(String content) throws IOException {
+        return DockerIgnore.read(write(content), Set.of());
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(root.resolve(".dockerignore"), content);
+    }
+}
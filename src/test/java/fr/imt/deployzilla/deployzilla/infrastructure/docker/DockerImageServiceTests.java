@@ -0,0 +1,86 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.docker;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class DockerImageServiceTests {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void buildxIsStoppedAtTheTimeoutEvenWhenItKeepsItsOutputOpen() throws Exception {
+        ContainerLogStreamer containerLogStreamer = mock(ContainerLogStreamer.class);
+        DockerImageService service = new DockerImageService(containerLogStreamer);
+        ReflectionTestUtils.setField(service, "dockerHost", "unix:///var/run/docker.sock");
+        ReflectionTestUtils.setField(service, "timeoutSeconds", 1);
+        Path workspace = Files.createDirectories(root.resolve("workspace"));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> service.runBuildx("p1", List.of("sh", "-c", "echo building; sleep 30"),
+                workspace, "Dockerfile", "FROM scratch", Set.of()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("timed out");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        verify(containerLogStreamer, timeout(2000)).publishLog("p1", JobType.IMAGE_BUILD.getStepId(), "building");
+    }
+
+    @Test
+    void buildxOutputIsPublishedBeforeItsExitCodeIsReturned() throws Exception {
+        ContainerLogStreamer containerLogStreamer = mock(ContainerLogStreamer.class);
+        DockerImageService service = new DockerImageService(containerLogStreamer);
+        ReflectionTestUtils.setField(service, "dockerHost", "unix:///var/run/docker.sock");
+        ReflectionTestUtils.setField(service, "timeoutSeconds", 10);
+        Path workspace = Files.createDirectories(root.resolve("workspace"));
+
+        int exitCode = service.runBuildx("p1", List.of("sh", "-c", "cat > /dev/null; echo done; exit 3"),
+                workspace, "Dockerfile", "FROM scratch", Set.of());
+
+        assertThat(exitCode).isEqualTo(3);
+        verify(containerLogStreamer).publishLog("p1", JobType.IMAGE_BUILD.getStepId(), "done");
+    }
+
+    @Test
+    void replaceCacheSwapsTheExportedCacheIn() throws IOException {
+        Path cache = Files.createDirectories(root.resolve("project"));
+        Files.writeString(cache.resolve("index.json"), "old");
+        Path exported = Files.createDirectories(root.resolve("project.new-1"));
+        Files.writeString(exported.resolve("index.json"), "new");
+
+        DockerImageService.replaceCache(cache, exported);
+
+        assertThat(cache.resolve("index.json")).hasContent("new");
+        try (var entries = Files.list(root)) {
+            assertThat(entries).containsExactly(cache);
+        }
+    }
+
+    @Test
+    void replaceCacheKeepsThePreviousCacheWhenTheExportIsMissing() throws IOException {
+        Path cache = Files.createDirectories(root.resolve("project"));
+        Files.writeString(cache.resolve("index.json"), "old");
+
+        DockerImageService.replaceCache(cache, root.resolve("project.new-1"));
+
+        assertThat(cache.resolve("index.json")).hasContent("old");
+        try (var entries = Files.list(root)) {
+            assertThat(entries).containsExactly(cache);
+        }
+    }
+}
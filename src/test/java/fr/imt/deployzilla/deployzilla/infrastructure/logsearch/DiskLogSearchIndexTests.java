@@ -0,0 +1,71 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogSearchQuery;
+import fr.imt.deployzilla.deployzilla.business.port.PipelineRepositoryPort;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiskLogSearchIndexTests {
+
+    @TempDir
+    Path indexPath;
+
+    private final PipelineRepositoryPort pipelineRepository = mock(PipelineRepositoryPort.class);
+    private DiskLogSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new DiskLogSearchIndex(pipelineRepository);
+        ReflectionTestUtils.setField(searchIndex, "enabled", true);
+        ReflectionTestUtils.setField(searchIndex, "indexPath", indexPath.toString());
+        ReflectionTestUtils.setField(searchIndex, "flushLines", 100);
+        ReflectionTestUtils.setField(searchIndex, "mergeFactor", 10);
+        ReflectionTestUtils.setField(searchIndex, "maxSegmentLines", 1000L);
+        ReflectionTestUtils.setField(searchIndex, "queueCapacity", 100);
+        searchIndex.startIndexer();
+    }
+
+    @Test
+    void indexesQueuedLinesUnderTheirProject() {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setProjectId("project-1");
+        when(pipelineRepository.findById("p1")).thenReturn(Optional.of(pipeline));
+
+        searchIndex.index("p1", "test", "npm ERR! missing script\nsecond line");
+        searchIndex.index("p1", null, "npm ERR! again");
+        searchIndex.shutdown();
+
+        assertThat(searchIndex.search(query("npm err")))
+                .extracting(hit -> hit.getStepId() + ": " + hit.getLine())
+                .containsExactly("test: npm ERR! missing script", "pipeline: npm ERR! again");
+        verify(pipelineRepository, times(1)).findById("p1");
+    }
+
+    @Test
+    void looksUpAnUnknownPipelineOnlyOnce() {
+        when(pipelineRepository.findById("gone")).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 5; i++) {
+            searchIndex.index("gone", "test", "line " + i);
+        }
+        searchIndex.shutdown();
+
+        verify(pipelineRepository, times(1)).findById("gone");
+    }
+
+    private static LogSearchQuery query(String text) {
+        return LogSearchQuery.builder().projectId("project-1").text(text).limit(10).build();
+    }
+}
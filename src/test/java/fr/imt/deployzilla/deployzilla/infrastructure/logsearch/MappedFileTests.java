@@ -0,0 +1,40 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedFileTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsValuesStraddlingTwoRegions() throws Exception {
+        Path file = directory.resolve("sparse.seg");
+        long boundary = MappedFile.REGION_SIZE;
+        try (RandomAccessFile output = new RandomAccessFile(file.toFile(), "rw")) {
+            // Sparse: only the bytes around the region boundary take space
+            output.setLength(boundary + 64);
+            output.seek(boundary - 4);
+            output.writeLong(0x0102030405060708L);
+            output.writeInt(-2);
+            output.writeShort(0xBEEF);
+        }
+
+        MappedFile mapped = MappedFile.map(file);
+
+        assertThat(mapped.size()).isEqualTo(boundary + 64);
+        assertThat(mapped.getLong(boundary - 4)).isEqualTo(0x0102030405060708L);
+        assertThat(mapped.getInt(boundary - 2)).isEqualTo(0x03040506);
+        assertThat(mapped.getInt(boundary + 4)).isEqualTo(-2);
+        assertThat(Short.toUnsignedInt(mapped.getShort(boundary + 8))).isEqualTo(0xBEEF);
+        byte[] bytes = new byte[10];
+        mapped.get(boundary - 4, bytes, 0, bytes.length);
+        assertThat(bytes).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, -1, -1);
+    }
+}
@@ -0,0 +1,92 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logsearch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProjectLogIndexTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsBufferedAndWrittenLines() throws Exception {
+        ProjectLogIndex index = ProjectLogIndex.open(directory, Runnable::run, 3, 10, 1000);
+        add(index, "test", "Compiling module alpha", "Tests failed: 2", "Done");
+        add(index, "lint", "Module beta has 2 failed rules");
+
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(lines(search(index, "failed", null))).containsExactly("Tests failed: 2", "Module beta has 2 failed rules");
+        assertThat(lines(search(index, "failed", "lint"))).containsExactly("Module beta has 2 failed rules");
+        assertThat(lines(search(index, "module alpha", null))).containsExactly("Compiling module alpha");
+        assertThat(search(index, "gamma", null)).isEmpty();
+    }
+
+    @Test
+    void mergedSegmentsKeepEveryLineSearchable() throws Exception {
+        ProjectLogIndex index = ProjectLogIndex.open(directory, Runnable::run, 2, 3, 1000);
+        IntStream.range(0, 12).forEach(i -> add(index, "test", "line " + i + (i % 2 == 0 ? " even" : " odd")));
+
+        // 6 flushed segments of 2 lines, merged 3 at a time into 2 segments of 6
+        assertThat(segmentFiles()).hasSize(2);
+        assertThat(search(index, "even", null)).hasSize(6);
+        assertThat(lines(search(index, "line 7", null))).containsExactly("line 7 odd");
+    }
+
+    @Test
+    void reopensWrittenSegments() throws Exception {
+        ProjectLogIndex index = ProjectLogIndex.open(directory, Runnable::run, 2, 10, 1000);
+        add(index, "test", "first deployment", "second deployment");
+
+        ProjectLogIndex reopened = ProjectLogIndex.open(directory, Runnable::run, 2, 10, 1000);
+        add(reopened, "test", "third deployment", "fourth");
+
+        assertThat(lines(search(reopened, "deployment", null)))
+                .containsExactly("first deployment", "second deployment", "third deployment");
+        assertThat(segmentFiles()).containsExactly("00000000000000000000-00000000000000000001.seg",
+                "00000000000000000002-00000000000000000003.seg");
+    }
+
+    @Test
+    void matchesWholeWordsOnlyWhetherWrittenOrBuffered() throws Exception {
+        ProjectLogIndex index = ProjectLogIndex.open(directory, Runnable::run, 2, 10, 1000);
+        add(index, "test", "TypeError: x is undefined", "Build error: exit 1");
+        add(index, "test", "ECONNREFUSEDerror", "Lint error: 3 problems");
+
+        assertThat(segmentFiles()).hasSize(2);
+        // Still buffered
+        add(index, "test", "TypeError again");
+
+        assertThat(lines(search(index, "error", null))).containsExactly("Build error: exit 1", "Lint error: 3 problems");
+        assertThat(lines(search(index, "typeerror", null))).containsExactly("TypeError: x is undefined", "TypeError again");
+    }
+
+    private static void add(ProjectLogIndex index, String stepId, String... lines) {
+        for (String line : lines) {
+            index.add(new IndexedLine("p1", stepId, 1000, line));
+        }
+    }
+
+    private static List<IndexedLine> search(ProjectLogIndex index, String text, String stepId) {
+        return index.search(LogTokenizer.tokens(text), text.toLowerCase(Locale.ROOT), stepId,
+                Long.MIN_VALUE, Long.MAX_VALUE, 100);
+    }
+
+    private static List<String> lines(List<IndexedLine> hits) {
+        return hits.stream().map(IndexedLine::line).toList();
+    }
+
+    private List<String> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.logstore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentedProcessLogStoreTests {
+
+    @TempDir
+    Path storePath;
+
+    private SegmentedProcessLogStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new SegmentedProcessLogStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "storePath", storePath.toString());
+        ReflectionTestUtils.setField(store, "linesPerSegment", 10L);
+        ReflectionTestUtils.setField(store, "blockLines", 4);
+        ReflectionTestUtils.setField(store, "idleSealMs", 600000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    void readsRangesAcrossRotatedSegments() {
+        lines(0, 25).forEach(line -> store.append("p1", "test", line));
+
+        assertThat(store.read("p1", "test", 0, 100)).isEqualTo(lines(0, 25));
+        assertThat(store.read("p1", "test", 7, 6)).isEqualTo(lines(7, 13));
+        assertThat(store.read("p1", "test", 24, 10)).containsExactly("line-24");
+        assertThat(store.read("p1", "test", 25, 10)).isEmpty();
+    }
+
+    @Test
+    void readsSealedSegmentsOnceCompressed() throws Exception {
+        lines(0, 25).forEach(line -> store.append("p1", "test", line));
+        store.seal("p1", "test");
+
+        awaitSegments(storePath.resolve("p1").resolve("test"), 3);
+
+        assertThat(store.read("p1", "test", 0, 100)).isEqualTo(lines(0, 25));
+        assertThat(store.read("p1", "test", 13, 5)).isEqualTo(lines(13, 18));
+    }
+
+    @Test
+    void storesOneLinePerPhysicalLine() {
+        store.append("p1", null, "first\nsecond\r\nthird");
+
+        assertThat(store.read("p1", null, 1, 10)).containsExactly("second", "third");
+    }
+
+    @Test
+    void continuesNumberingAfterSeal() {
+        lines(0, 5).forEach(line -> store.append("p1", "test", line));
+        store.seal("p1", "test");
+        lines(5, 8).forEach(line -> store.append("p1", "test", line));
+
+        assertThat(store.read("p1", "test", 0, 100)).isEqualTo(lines(0, 8));
+    }
+
+    @Test
+    void keepsEveryLineWhenSealedWhileAppending() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> appenders = new ArrayList<>();
+            for (int shard = 0; shard < 3; shard++) {
+                int offset = shard * 1000;
+                appenders.add(executor.submit(() ->
+                        lines(offset, offset + 1000).forEach(line -> store.append("p1", "test", line))));
+            }
+            Future<?> sealer = executor.submit(() -> {
+                while (appenders.stream().anyMatch(future -> !future.isDone())) {
+                    store.seal("p1", "test");
+                }
+            });
+            for (Future<?> appender : appenders) {
+                appender.get(30, TimeUnit.SECONDS);
+            }
+            sealer.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(store.read("p1", "test", 0, 5000)).hasSize(3000).containsExactlyInAnyOrderElementsOf(lines(0, 3000));
+    }
+
+    @Test
+    void sealAllSealsEveryStepOfThePipeline() {
+        store.append("p1", "test", "a");
+        store.append("p1", "app-run", "b");
+        store.append("p2", "test", "c");
+
+        store.sealAll("p1");
+
+        assertThat(openWriters()).containsExactly("p2/test");
+        assertThat(store.read("p1", "app-run", 0, 10)).containsExactly("b");
+    }
+
+    @Test
+    void sealsIdleWriters() {
+        store.append("p1", "app-run", "a");
+        ReflectionTestUtils.setField(store, "idleSealMs", -1L);
+
+        store.sealIdleWriters();
+
+        assertThat(openWriters()).isEmpty();
+    }
+
+    @Test
+    void compressesSegmentsLeftSealingOnStartup() throws Exception {
+        lines(0, 5).forEach(line -> store.append("p1", "test", line));
+        store.shutdown();
+        // As if the previous run stopped between the rename and the compression
+        Path directory = storePath.resolve("p1").resolve("test");
+        Files.move(directory.resolve("00000000000000000000.log"), directory.resolve("00000000000000000000.sealing.log"));
+        Files.move(directory.resolve("00000000000000000000.idx"), directory.resolve("00000000000000000000.sealing.idx"));
+
+        setUp();
+        store.resumeSealing();
+
+        awaitSegments(directory, 1);
+        assertThat(directory.resolve("00000000000000000000.sealing.log")).doesNotExist();
+        assertThat(store.read("p1", "test", 0, 10)).isEqualTo(lines(0, 5));
+    }
+
+    private List<String> openWriters() {
+        return ((Map<?, ?>) ReflectionTestUtils.getField(store, "writers")).keySet().stream()
+                .map(String::valueOf)
+                .toList();
+    }
+
+    private static List<String> lines(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "line-" + i).toList();
+    }
+
+    private static void awaitSegments(Path directory, int sealed) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            try (Stream<Path> files = Files.list(directory)) {
+                if (files.filter(file -> file.toString().endsWith(".log.gz")).count() == sealed) {
+                    return;
+                }
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Segments of " + directory + " not sealed in time");
+    }
+}
@@ -0,0 +1,174 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.persistence.repository;
+
+import fr.imt.deployzilla.deployzilla.business.model.PipelineCursor;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineSummary;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.ArchivedPipeline;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import fr.imt.deployzilla.deployzilla.infrastructure.redis.RedisCacheInvalidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ExecutableFindOperation.ExecutableFind;
+import org.springframework.data.mongodb.core.ExecutableFindOperation.FindWithQuery;
+import org.springframework.data.mongodb.core.ExecutableFindOperation.TerminatingFind;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongoPipelineRepositoryAdapterTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final FindWithQuery<PipelineSummary> liveTier = tier(Pipeline.class);
+    private final FindWithQuery<PipelineSummary> archiveTier = tier(ArchivedPipeline.class);
+    private MongoPipelineRepositoryAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        adapter = new MongoPipelineRepositoryAdapter(mock(PipelineRepository.class), mongoTemplate,
+                mock(PipelineWriteBuffer.class), mock(RedisCacheInvalidator.class), new SimpleMeterRegistry(),
+                10, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void mergesBothTiersNewestFirstWithoutSortValueLast() {
+        returns(liveTier, summary("live-2", NOW), summary("live-legacy", null));
+        returns(archiveTier, summary("archived-3", NOW.plusHours(1)), summary("archived-1", NOW),
+                summary("archived-legacy", null));
+
+        List<PipelineSummary> page = adapter.findByStatus("SUCCESS", null, 4);
+
+        assertThat(page).extracting(PipelineSummary::getId)
+                .containsExactly("archived-3", "live-2", "archived-1", "live-legacy");
+        assertThat(queryOf(liveTier).getQueryObject()).isEqualTo(new Document("status", "SUCCESS"));
+        assertThat(queryOf(liveTier).getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void cursorWithSortValueAlsoReachesPipelinesWithout() {
+        returns(liveTier);
+        returns(archiveTier);
+
+        adapter.findByStatus("SUCCESS", new PipelineCursor(NOW, "p5"), 10);
+
+        List<Object> branches = queryOf(archiveTier).getQueryObject().getList("$or", Object.class);
+        assertThat(branches).hasSize(3).contains(new Document("updatedAt", null));
+    }
+
+    @Test
+    void cursorWithoutSortValueContinuesByIdAmongPipelinesWithout() {
+        returns(liveTier);
+        returns(archiveTier);
+
+        adapter.findByStatus("SUCCESS", new PipelineCursor(null, "p5"), 10);
+
+        Document query = queryOf(liveTier).getQueryObject();
+        assertThat(query).containsKey("updatedAt").doesNotContainKey("$or");
+        assertThat(query.get("updatedAt")).isNull();
+        assertThat(query.get("_id", Document.class)).isEqualTo(new Document("$lt", "p5"));
+    }
+
+    @Test
+    void projectListingMergesBothTiersByCreation() {
+        returns(liveTier, summary("live", NOW.minusHours(1), null));
+        returns(archiveTier, summary("archived-new", NOW, null), summary("archived-old", NOW.minusHours(2), null));
+
+        List<PipelineSummary> page = adapter.findByProject("project-1", null, 2);
+
+        assertThat(page).extracting(PipelineSummary::getId).containsExactly("archived-new", "live");
+        assertThat(queryOf(archiveTier).getQueryObject()).isEqualTo(new Document("projectId", "project-1"));
+    }
+
+    @Test
+    void archivesFinishedPipelinesMatchingOnCreationWhenNeverUpdated() {
+        Pipeline legacy = new Pipeline();
+        legacy.setStatus("SUCCESS");
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.find(any(Query.class), eq(Pipeline.class))).thenReturn(List.of(legacy));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ArchivedPipeline.class)).thenReturn(bulk);
+
+        int archived = adapter.archiveFinishedBefore(NOW, 50);
+
+        assertThat(archived).isEqualTo(1);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Pipeline.class));
+        Document filter = query.getValue().getQueryObject();
+        assertThat(filter.get("status")).isEqualTo(new Document("$in", List.of("SUCCESS", "FAILED")));
+        assertThat(filter.getList("$or", Document.class)).containsExactly(
+                new Document("updatedAt", new Document("$lt", NOW)),
+                new Document("$and", List.of(
+                        new Document("updatedAt", null),
+                        new Document("createdAt", new Document("$lt", NOW)))));
+        assertThat(query.getValue().getLimit()).isEqualTo(50);
+        verify(bulk).replaceOne(any(Query.class), any(ArchivedPipeline.class), any(FindAndReplaceOptions.class));
+        verify(bulk).execute();
+        verify(mongoTemplate).remove(any(Query.class), eq(Pipeline.class));
+    }
+
+    @Test
+    void archivingNothingWritesNothing() {
+        when(mongoTemplate.find(any(Query.class), eq(Pipeline.class))).thenReturn(List.of());
+
+        assertThat(adapter.archiveFinishedBefore(NOW, 50)).isZero();
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Pipeline.class));
+    }
+
+    @Test
+    void finishedSinceAlsoMatchesPipelinesNeverUpdated() {
+        adapter.findFinishedSince(NOW);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Pipeline.class));
+        assertThat(query.getValue().getQueryObject().getList("$or", Document.class)).containsExactly(
+                new Document("updatedAt", new Document("$gte", NOW)),
+                new Document("$and", List.of(
+                        new Document("updatedAt", null),
+                        new Document("createdAt", new Document("$gte", NOW)))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> FindWithQuery<PipelineSummary> tier(Class<T> type) {
+        ExecutableFind<T> find = mock(ExecutableFind.class);
+        FindWithQuery<PipelineSummary> withQuery = mock(FindWithQuery.class);
+        when(mongoTemplate.query(type)).thenReturn(find);
+        when(find.as(PipelineSummary.class)).thenReturn(withQuery);
+        return withQuery;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void returns(FindWithQuery<PipelineSummary> tier, PipelineSummary... summaries) {
+        TerminatingFind<PipelineSummary> terminating = mock(TerminatingFind.class);
+        when(tier.matching(any(Query.class))).thenReturn(terminating);
+        when(terminating.all()).thenReturn(List.of(summaries));
+    }
+
+    private static Query queryOf(FindWithQuery<PipelineSummary> tier) {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(tier).matching(query.capture());
+        return query.getValue();
+    }
+
+    private static PipelineSummary summary(String id, LocalDateTime updatedAt) {
+        return summary(id, NOW.minusDays(1), updatedAt);
+    }
+
+    private static PipelineSummary summary(String id, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        return new PipelineSummary(id, "project-1", "SUCCESS", "abc123", "alice", "PUSH", createdAt, updatedAt);
+    }
+}
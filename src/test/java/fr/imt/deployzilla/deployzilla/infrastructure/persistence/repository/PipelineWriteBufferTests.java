@@ -0,0 +1,150 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.persistence.repository;
+
+import fr.imt.deployzilla.deployzilla.business.model.JobType;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Job;
+import fr.imt.deployzilla.deployzilla.infrastructure.persistence.Pipeline;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PipelineWriteBufferTests {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private PipelineWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Pipeline.class)).thenReturn(bulk);
+        buffer = new PipelineWriteBuffer(mongoTemplate);
+        ReflectionTestUtils.setField(buffer, "maxBatchSize", 500);
+    }
+
+    @Test
+    void coalescesChangesIntoOneUpdatePerPipeline() {
+        buffer.setPipelineField("p1", "status", "RUNNING");
+        buffer.setPipelineField("p1", "status", "SUCCESS");
+        buffer.setPipelineField("p1", "currentStep", "IMAGE_BUILD");
+        buffer.setPipelineField("p2", "status", "FAILED");
+
+        buffer.flush();
+
+        List<Update> updates = capturedUpdates(2);
+        Document set = setOf(updates.getFirst());
+        assertThat(set.get("status")).isEqualTo("SUCCESS");
+        assertThat(set.get("currentStep")).isEqualTo("IMAGE_BUILD");
+        assertThat(set).containsKey("updatedAt");
+        assertThat(setOf(updates.get(1)).get("status")).isEqualTo("FAILED");
+        verify(bulk, times(1)).execute();
+    }
+
+    @Test
+    void addressesJobFieldsThroughArrayFilters() {
+        buffer.setJobField("p1", "job-a", "status", "RUNNING");
+        buffer.setJobField("p1", "job-b", "status", "PENDING");
+        buffer.setJobField("p1", "job-a", "status", "SUCCESS");
+
+        buffer.flush();
+
+        Update update = capturedUpdates(1).getFirst();
+        Document set = setOf(update);
+        assertThat(set.get("jobs.$[j0].status")).isEqualTo("SUCCESS");
+        assertThat(set.get("jobs.$[j1].status")).isEqualTo("PENDING");
+        assertThat(update.getArrayFilters())
+                .extracting(UpdateDefinition.ArrayFilter::asDocument)
+                .containsExactly(new Document("j0._id", "job-a"), new Document("j1._id", "job-b"));
+    }
+
+    @Test
+    void requeuesAFailedBatchUnderNewerChanges() {
+        when(bulk.execute()).then(invocation -> {
+            // Written while the batch was in flight: must win over the failed value
+            buffer.setPipelineField("p1", "status", "SUCCESS");
+            throw new IllegalStateException("Mongo unavailable");
+        });
+        buffer.setPipelineField("p1", "status", "RUNNING");
+        buffer.setPipelineField("p1", "currentStep", "NPM_TEST");
+        buffer.flush();
+
+        clearInvocations(bulk);
+        doReturn(null).when(bulk).execute();
+        buffer.flush();
+
+        Document set = setOf(capturedUpdates(1).getFirst());
+        assertThat(set.get("status")).isEqualTo("SUCCESS");
+        assertThat(set.get("currentStep")).isEqualTo("NPM_TEST");
+    }
+
+    @Test
+    void overlaysChangesNotWrittenYetOnLoadedPipelines() {
+        Pipeline loaded = new Pipeline();
+        loaded.setId("p1");
+        Job job = new Job(JobType.NPM_TEST);
+        loaded.addJob(job);
+        LocalDateTime start = LocalDateTime.now();
+        buffer.setPipelineField("p1", "status", "RUNNING");
+        buffer.setJobField("p1", job.getId(), "status", "RUNNING");
+        buffer.setJobField("p1", job.getId(), "startTime", start);
+
+        buffer.overlay(loaded);
+
+        assertThat(loaded.getStatus()).isEqualTo("RUNNING");
+        assertThat(job.getStatus()).isEqualTo("RUNNING");
+        assertThat(job.getStartTime()).isEqualTo(start);
+    }
+
+    @Test
+    void overlaysChangesWhileTheirWriteIsInFlight() {
+        Pipeline loaded = new Pipeline();
+        loaded.setId("p1");
+        when(bulk.execute()).then(invocation -> {
+            buffer.overlay(loaded);
+            return null;
+        });
+        buffer.setPipelineField("p1", "status", "SUCCESS");
+
+        buffer.flush();
+
+        assertThat(loaded.getStatus()).isEqualTo("SUCCESS");
+        Pipeline afterWrite = new Pipeline();
+        afterWrite.setId("p1");
+        assertThat(buffer.overlay(afterWrite).getStatus()).isEqualTo("CREATED");
+    }
+
+    @Test
+    void flushWithoutChangesWritesNothing() {
+        buffer.flush();
+
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), any(Class.class));
+    }
+
+    private List<Update> capturedUpdates(int count) {
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(count)).updateOne(any(Query.class), updates.capture());
+        return updates.getAllValues();
+    }
+
+    private static Document setOf(Update update) {
+        return update.getUpdateObject().get("$set", Document.class);
+    }
+}
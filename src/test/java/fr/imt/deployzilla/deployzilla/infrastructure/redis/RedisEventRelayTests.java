@@ -0,0 +1,189 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.redis;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogRecord;
+import fr.imt.deployzilla.deployzilla.business.model.LogStream;
+import fr.imt.deployzilla.deployzilla.configuration.RedisConfiguration;
+import fr.imt.deployzilla.deployzilla.infrastructure.codec.LogRecordCodec;
+import fr.imt.deployzilla.deployzilla.infrastructure.codec.PipelineStatusCodec;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.LocalEventBus;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.PipelineInterestChanged;
+import fr.imt.deployzilla.deployzilla.infrastructure.eventbus.PipelineTopic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisEventRelayTests {
+
+    private static final String LOGS_CHANNEL = RedisConfiguration.channel(PipelineTopic.LOGS, "p1");
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisConnection connection = mock(RedisConnection.class);
+    private final LogRecordCodec logCodec = new LogRecordCodec(JsonMapper.builder().build());
+    private final LocalEventBus eventBus = new LocalEventBus();
+    private final List<LogRecord> received = new ArrayList<>();
+    private RedisEventRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+        relay = new RedisEventRelay(redisTemplate, mock(RedisMessageListenerContainer.class), logCodec,
+                new PipelineStatusCodec(), eventBus);
+        ReflectionTestUtils.setField(relay, "enabled", true);
+        ReflectionTestUtils.setField(relay, "interestRefreshMs", 30000L);
+        eventBus.subscribe(LogRecord.class, received::add);
+    }
+
+    @Test
+    void doesNotEncodeNorPublishWithoutRemoteInterest() {
+        Supplier<byte[]> payload = mock();
+
+        relay.relay(PipelineTopic.LOGS, "p1", payload);
+
+        verify(payload, never()).get();
+        verify(connection, never()).publish(any(), any());
+    }
+
+    @Test
+    void publishesWhileARemoteNodeWatchesTheChannel() {
+        announce("node-b", '+', LOGS_CHANNEL);
+        relay.relay(PipelineTopic.LOGS, "p1", () -> new byte[]{42});
+        relay.relay(PipelineTopic.LOGS, "p2", () -> new byte[]{43});
+
+        announce("node-b", '-', LOGS_CHANNEL);
+        relay.relay(PipelineTopic.LOGS, "p1", () -> new byte[]{44});
+
+        List<byte[]> bodies = published(LOGS_CHANNEL);
+        assertThat(bodies).hasSize(1);
+        assertThat(bodies.getFirst()[bodies.getFirst().length - 1]).isEqualTo((byte) 42);
+    }
+
+    @Test
+    void remoteInterestExpiresWhenNotRefreshed() throws Exception {
+        ReflectionTestUtils.setField(relay, "interestRefreshMs", 1L);
+        announce("node-b", '+', LOGS_CHANNEL);
+        Thread.sleep(10);
+
+        relay.refreshInterest();
+        relay.relay(PipelineTopic.LOGS, "p1", () -> new byte[]{42});
+
+        assertThat(published(LOGS_CHANNEL)).isEmpty();
+    }
+
+    @Test
+    void deliversRemoteEventsOfWatchedChannelsOnly() {
+        eventBus.publish(new PipelineInterestChanged(PipelineTopic.LOGS, "p1", true));
+        byte[] event = encoded("hello");
+
+        relay.onMessage(new DefaultMessage(bytes(LOGS_CHANNEL), envelope("node-b", event)), null);
+        relay.onMessage(new DefaultMessage(bytes(RedisConfiguration.channel(PipelineTopic.LOGS, "p2")),
+                envelope("node-b", event)), null);
+
+        assertThat(received).extracting(LogRecord::getPayload).containsExactly("hello");
+    }
+
+    @Test
+    void ignoresItsOwnEvents() {
+        eventBus.publish(new PipelineInterestChanged(PipelineTopic.LOGS, "p1", true));
+        byte[] ownAnnouncement = published(RedisConfiguration.INTEREST_TOPIC).getFirst();
+        String ownNodeId = new String(ownAnnouncement, 2, ownAnnouncement[1], StandardCharsets.UTF_8);
+        byte[] event = encoded("echo");
+
+        relay.onMessage(new DefaultMessage(bytes(LOGS_CHANNEL), envelope(ownNodeId, event)), null);
+
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void aSingleNodeDoesNotRefreshItsAnnouncements() {
+        eventBus.publish(new PipelineInterestChanged(PipelineTopic.LOGS, "p1", true));
+        clearInvocations(connection);
+
+        relay.refreshInterest();
+
+        verify(connection, never()).publish(any(), any());
+    }
+
+    @Test
+    void refreshesAnnouncementsOnceAnotherNodeWasHeard() {
+        eventBus.publish(new PipelineInterestChanged(PipelineTopic.LOGS, "p1", true));
+        announce("node-b", '!', "");
+        clearInvocations(connection);
+
+        relay.refreshInterest();
+
+        assertThat(published(RedisConfiguration.INTEREST_TOPIC))
+                .extracting(body -> new String(body, 2 + body[1], body.length - 2 - body[1], StandardCharsets.UTF_8))
+                .containsExactly("+" + LOGS_CHANNEL);
+    }
+
+    @Test
+    void answersASyncRequestWithPresenceWhenWatchingNothing() {
+        announce("node-b", '?', "");
+
+        assertThat(published(RedisConfiguration.INTEREST_TOPIC))
+                .extracting(body -> (char) body[2 + body[1]])
+                .containsExactly('!');
+    }
+
+    private byte[] encoded(String line) {
+        return logCodec.encode(LogRecord.builder().pipelineId("p1").stream(LogStream.STDOUT).sequence(3)
+                .timestamp(Instant.ofEpochMilli(1000)).payload(line).build(), LogRecordCodec.Format.BINARY);
+    }
+
+    private void announce(String node, char type, String channel) {
+        relay.onMessage(new DefaultMessage(bytes(RedisConfiguration.INTEREST_TOPIC),
+                envelope(node, bytes(type + channel))), null);
+    }
+
+    private List<byte[]> published(String channel) {
+        ArgumentCaptor<byte[]> channels = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<byte[]> bodies = ArgumentCaptor.forClass(byte[].class);
+        verify(connection, atLeast(0)).publish(channels.capture(), bodies.capture());
+        List<byte[]> result = new ArrayList<>();
+        for (int i = 0; i < channels.getAllValues().size(); i++) {
+            if (Arrays.equals(channels.getAllValues().get(i), bytes(channel))) {
+                result.add(bodies.getAllValues().get(i));
+            }
+        }
+        return result;
+    }
+
+    private static byte[] envelope(String node, byte[] event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xE1);
+        out.write(node.length());
+        out.writeBytes(bytes(node));
+        out.writeBytes(event);
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,108 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.websocket;
+
+import fr.imt.deployzilla.deployzilla.infrastructure.codec.LogRecordCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LogBackpressureInterceptorTests {
+
+    private static final String DESTINATION = PipelineLogBroadcaster.LOGS_DESTINATION_PREFIX + "p1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final LogBackpressureInterceptor interceptor =
+            new LogBackpressureInterceptor(new LogRecordCodec(JsonMapper.builder().build()), meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(interceptor, "queueCapacity", 2);
+        ReflectionTestUtils.setField(interceptor, "overflowPolicy", LogOverflowPolicy.COLLAPSE);
+        ReflectionTestUtils.setField(interceptor, "sampleRate", 10);
+        ReflectionTestUtils.setField(interceptor, "batchSize", 200);
+        when(channel.send(any())).thenReturn(true);
+    }
+
+    @Test
+    void queuesLogFramesAndPassesOthersThrough() {
+        Message<?> other = frame("/topic/pipeline-status/p1", "s1", "sub-1", "status");
+
+        assertThat(interceptor.preSend(frame(DESTINATION, "s1", "sub-1", "line-0"), channel)).isNull();
+        assertThat(interceptor.preSend(other, channel)).isSameAs(other);
+    }
+
+    @Test
+    void reportsQueuedLinesPerSubscriptionAndDrops() {
+        interceptor.preSend(frame(DESTINATION, "s1", "sub-1", "line-0"), channel);
+        interceptor.preSend(frame(DESTINATION, "s1", "sub-1", "line-1"), channel);
+        interceptor.preSend(frame(DESTINATION, "s1", "sub-1", "line-2"), channel);
+        interceptor.preSend(frame(DESTINATION, "s2", "sub-1", "line-0"), channel);
+
+        assertThat(meterRegistry.get("deployzilla.websocket.logs.queued").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("deployzilla.websocket.logs.queued.max").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("deployzilla.websocket.logs.subscriptions").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("deployzilla.websocket.logs.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void flushesOneBatchWithTheSkippedMarker() {
+        interceptor.preSend(frame(DESTINATION, "s1", "sub-1", "line-0"), channel);
+        interceptor.preSend(frame(DESTINATION, "s1", "sub-1", "line-1"), channel);
+        interceptor.preSend(frame(DESTINATION, "s1", "sub-1", "line-2"), channel);
+
+        interceptor.flush();
+
+        ArgumentCaptor<Message<?>> batch = ArgumentCaptor.captor();
+        verify(channel).send(batch.capture());
+        assertThat(new String((byte[]) batch.getValue().getPayload(), StandardCharsets.UTF_8))
+                .isEqualTo("line-0\nline-1\n[1 lines skipped]");
+        assertThat(batch.getValue().getHeaders()).containsKey(LogBackpressureInterceptor.BATCH_HEADER);
+        assertThat(interceptor.preSend(batch.getValue(), channel)).isSameAs(batch.getValue());
+    }
+
+    @Test
+    void holdsTheNextBatchUntilThePreviousOneIsHandled() {
+        interceptor.preSend(frame(DESTINATION, "s1", "sub-1", "line-0"), channel);
+        interceptor.flush();
+        ArgumentCaptor<Message<?>> batch = ArgumentCaptor.captor();
+        verify(channel).send(batch.capture());
+        clearInvocations(channel);
+
+        interceptor.preSend(frame(DESTINATION, "s1", "sub-1", "line-1"), channel);
+        interceptor.flush();
+        verify(channel, never()).send(any());
+
+        interceptor.afterMessageHandled(batch.getValue(), channel, mock(MessageHandler.class), null);
+        interceptor.flush();
+        verify(channel, times(1)).send(any());
+    }
+
+    private static Message<?> frame(String destination, String sessionId, String subscriptionId, String line) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(line.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
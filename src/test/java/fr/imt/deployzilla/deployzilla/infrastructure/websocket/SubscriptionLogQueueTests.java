@@ -0,0 +1,98 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SubscriptionLogQueueTests {
+
+    @Test
+    void dropOldestEvictsTheOldestLine() {
+        SubscriptionLogQueue queue = queue(3, LogOverflowPolicy.DROP_OLDEST, 1);
+
+        List<Integer> dropped = offer(queue, 0, 5);
+
+        assertThat(dropped).containsExactly(0, 0, 0, 1, 1);
+        SubscriptionLogQueue.Batch batch = queue.drain(10);
+        assertThat(lines(batch)).containsExactly("line-2", "line-3", "line-4");
+        assertThat(batch.skipped()).isZero();
+    }
+
+    @Test
+    void sampleKeepsOneOverflowingLineInSampleRate() {
+        SubscriptionLogQueue queue = queue(2, LogOverflowPolicy.SAMPLE, 2);
+
+        List<Integer> dropped = offer(queue, 0, 4);
+
+        assertThat(dropped).containsExactly(0, 0, 1, 1);
+        assertThat(lines(queue.drain(10))).containsExactly("line-1", "line-3");
+    }
+
+    @Test
+    void collapseDropsNewLinesAndReportsHowManyOnceDrained() {
+        SubscriptionLogQueue queue = queue(2, LogOverflowPolicy.COLLAPSE, 1);
+
+        List<Integer> dropped = offer(queue, 0, 5);
+
+        assertThat(dropped).containsExactly(0, 0, 1, 1, 1);
+        SubscriptionLogQueue.Batch batch = queue.drain(10);
+        assertThat(lines(batch)).containsExactly("line-0", "line-1");
+        assertThat(batch.skipped()).isEqualTo(3);
+
+        offer(queue, 5, 6);
+        assertThat(lines(queue.drain(10))).containsExactly("line-5");
+    }
+
+    @Test
+    void collapseKeepsDroppingUntilTheMarkerIsSent() {
+        SubscriptionLogQueue queue = queue(2, LogOverflowPolicy.COLLAPSE, 1);
+        offer(queue, 0, 3);
+
+        SubscriptionLogQueue.Batch first = queue.drain(1);
+        // Room again, but queuing line-3 now would deliver it before the marker of line-2
+        List<Integer> dropped = offer(queue, 3, 4);
+        SubscriptionLogQueue.Batch second = queue.drain(10);
+
+        assertThat(lines(first)).containsExactly("line-0");
+        assertThat(first.skipped()).isZero();
+        assertThat(dropped).containsExactly(1);
+        assertThat(lines(second)).containsExactly("line-1");
+        assertThat(second.skipped()).isEqualTo(2);
+        assertThat(queue.drain(10)).isNull();
+    }
+
+    @Test
+    void drainsInBatchesOfAtMostMaxFrames() {
+        SubscriptionLogQueue queue = queue(10, LogOverflowPolicy.COLLAPSE, 1);
+        offer(queue, 0, 5);
+
+        assertThat(lines(queue.drain(2))).containsExactly("line-0", "line-1");
+        assertThat(queue.size()).isEqualTo(3);
+    }
+
+    private static SubscriptionLogQueue queue(int capacity, LogOverflowPolicy policy, int sampleRate) {
+        return new SubscriptionLogQueue(capacity, policy, sampleRate, mock(MessageChannel.class));
+    }
+
+    private static List<Integer> offer(SubscriptionLogQueue queue, int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> queue.offer(frame("line-" + i)))
+                .toList();
+    }
+
+    private static Message<?> frame(String line) {
+        return MessageBuilder.withPayload(line.getBytes(StandardCharsets.UTF_8)).build();
+    }
+
+    private static List<String> lines(SubscriptionLogQueue.Batch batch) {
+        return batch.payloads().stream().map(bytes -> new String(bytes, StandardCharsets.UTF_8)).toList();
+    }
+}
@@ -0,0 +1,76 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.workspace;
+
+import fr.imt.deployzilla.deployzilla.business.model.WorkspaceSnapshotKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSystemWorkspaceSnapshotAdapterTests {
+
+    private static final WorkspaceSnapshotKey KEY = new WorkspaceSnapshotKey("lockfile", "sha256:image", "linux/amd64");
+
+    @TempDir
+    Path workspaces;
+
+    private final FileSystemWorkspaceSnapshotAdapter adapter = new FileSystemWorkspaceSnapshotAdapter();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(adapter, "workspaceLocalPath", workspaces.toString());
+        ReflectionTestUtils.setField(adapter, "enabled", true);
+        ReflectionTestUtils.setField(adapter, "snapshotsPath", workspaces.resolve(".snapshots").toString());
+        ReflectionTestUtils.setField(adapter, "mode", FileSystemWorkspaceSnapshotAdapter.Mode.COPY);
+        ReflectionTestUtils.setField(adapter, "maxCount", 20);
+    }
+
+    @Test
+    void restoredFilesCanBeRewrittenWithoutChangingTheSnapshot() throws IOException {
+        Path installed = write(workspaces.resolve("p1/app/node_modules/left-pad/index.js"), "original");
+        adapter.capture(KEY, "p1", "app");
+
+        assertThat(adapter.restore(KEY, "p2", "app")).isTrue();
+        Path restored = workspaces.resolve("p2/app/node_modules/left-pad/index.js");
+        Files.writeString(restored, "rewritten in place");
+        Files.writeString(installed, "rewritten in place");
+
+        assertThat(adapter.restore(KEY, "p3", "app")).isTrue();
+        assertThat(workspaces.resolve("p3/app/node_modules/left-pad/index.js")).hasContent("original");
+    }
+
+    @Test
+    void snapshotsEverythingButTheToolCache() throws IOException {
+        Path nodeModules = workspaces.resolve("p1/app/node_modules");
+        write(nodeModules.resolve(".cache/babel-loader/entry.json"), "{}");
+        write(nodeModules.resolve(".prisma/client/index.js"), "prisma");
+        write(nodeModules.resolve(".modules.yaml"), "layoutVersion: 5");
+        write(nodeModules.resolve(".bin/tsc"), "#!/bin/sh");
+        write(nodeModules.resolve("left-pad/.cache/kept.txt"), "not top-level");
+        adapter.capture(KEY, "p1", "app");
+
+        assertThat(adapter.restore(KEY, "p2", "app")).isTrue();
+        Path restored = workspaces.resolve("p2/app/node_modules");
+        assertThat(restored.resolve(".cache")).doesNotExist();
+        assertThat(restored.resolve(".prisma/client/index.js")).hasContent("prisma");
+        assertThat(restored.resolve(".modules.yaml")).exists();
+        assertThat(restored.resolve(".bin/tsc")).exists();
+        assertThat(restored.resolve("left-pad/.cache/kept.txt")).exists();
+    }
+
+    @Test
+    void restoreWithoutSnapshotChangesNothing() {
+        assertThat(adapter.restore(KEY, "p1", "app")).isFalse();
+        assertThat(workspaces.resolve("p1/app/node_modules")).doesNotExist();
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
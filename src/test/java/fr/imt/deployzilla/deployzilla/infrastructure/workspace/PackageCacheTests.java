@@ -0,0 +1,182 @@
+package fr.imt.deployzilla.deployzilla.infrastructure.workspace;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PackageCacheTests {
+
+    @TempDir
+    Path cacheRoot;
+
+    private final PackageCache packageCache = new PackageCache(new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(packageCache, "enabled", true);
+        ReflectionTestUtils.setField(packageCache, "cachePath", "/host/package-cache");
+        ReflectionTestUtils.setField(packageCache, "cacheLocalPath", cacheRoot.toString());
+        ReflectionTestUtils.setField(packageCache, "maxSize", DataSize.ofBytes(1000));
+        ReflectionTestUtils.setField(packageCache, "pruneTarget", 0.8);
+        ReflectionTestUtils.setField(packageCache, "pruneWait", Duration.ofSeconds(1));
+    }
+
+    @Test
+    void bindsTheHostPathAndCreatesTheLocalOne() throws IOException {
+        Files.delete(cacheRoot);
+
+        assertThat(packageCache.volume()).isEqualTo("/host/package-cache:/cache");
+        assertThat(cacheRoot).isDirectory();
+    }
+
+    @Test
+    void prunesNpmContentTogetherWithTheIndexPointingAtIt() throws IOException {
+        Instant now = Instant.now();
+        Path oldBucket = npmEntry("old", "old-tarball", 400, "old-manifest", 100, now.minus(3, ChronoUnit.DAYS));
+        Path newBucket = npmEntry("new", "new-tarball", 400, "new-manifest", 100, now.minus(1, ChronoUnit.HOURS));
+
+        packageCache.prune();
+
+        // The old bucket goes with its oldest content, and the manifest it alone indexed goes too
+        assertThat(oldBucket).doesNotExist();
+        assertThat(npmContent("old-tarball")).doesNotExist();
+        assertThat(npmContent("old-manifest")).doesNotExist();
+        assertThat(newBucket).exists();
+        assertThat(npmContent("new-tarball")).exists();
+        assertThat(npmContent("new-manifest")).exists();
+    }
+
+    @Test
+    void prunesNpmContentIndexedBySeveralBuckets() throws IOException {
+        Instant now = Instant.now();
+        Path first = npmEntry("first", "shared-tarball", 500, "first-manifest", 100, now.minus(3, ChronoUnit.DAYS));
+        Path second = npmEntry("second", "shared-tarball", 500, "second-manifest", 100, now.minus(2, ChronoUnit.DAYS));
+
+        packageCache.prune();
+
+        assertThat(first).doesNotExist();
+        assertThat(second).doesNotExist();
+        assertThat(npmContent("shared-tarball")).doesNotExist();
+        assertThat(npmContent("first-manifest")).doesNotExist();
+        assertThat(npmContent("second-manifest")).doesNotExist();
+    }
+
+    @Test
+    void prunesSingleYarnPackagesAndPnpmFiles() throws IOException {
+        Instant now = Instant.now();
+        write(cacheRoot.resolve("yarn/v6/npm-old-1.0.0/index.js"), 300, now.minus(5, ChronoUnit.DAYS));
+        write(cacheRoot.resolve("yarn/v6/npm-new-1.0.0/index.js"), 300, now.minus(1, ChronoUnit.HOURS));
+        write(cacheRoot.resolve("yarn/v6/.tmp/partial"), 10, now.minus(9, ChronoUnit.DAYS));
+        write(cacheRoot.resolve("pnpm/v3/files/00/old"), 300, now.minus(4, ChronoUnit.DAYS));
+        write(cacheRoot.resolve("pnpm/v3/files/01/new"), 300, now.minus(2, ChronoUnit.HOURS));
+
+        packageCache.prune();
+
+        assertThat(cacheRoot.resolve("yarn/v6/npm-old-1.0.0")).doesNotExist();
+        assertThat(cacheRoot.resolve("pnpm/v3/files/00/old")).doesNotExist();
+        assertThat(cacheRoot.resolve("yarn/v6/npm-new-1.0.0/index.js")).exists();
+        assertThat(cacheRoot.resolve("yarn/v6/.tmp/partial")).exists();
+        assertThat(cacheRoot.resolve("pnpm/v3/files/01/new")).exists();
+    }
+
+    @Test
+    void waitsForRunningInstallsBeforePruning() throws Exception {
+        write(cacheRoot.resolve("yarn/v6/npm-old-1.0.0/index.js"), 1200, Instant.now().minus(5, ChronoUnit.DAYS));
+        ReflectionTestUtils.setField(packageCache, "pruneWait", Duration.ofSeconds(10));
+        long stamp = packageCache.acquire();
+
+        CompletableFuture<Void> pruning = CompletableFuture.runAsync(packageCache::prune);
+        Thread.sleep(200);
+        assertThat(pruning).isNotDone();
+        packageCache.release(stamp);
+        pruning.get(5, TimeUnit.SECONDS);
+
+        assertThat(cacheRoot.resolve("yarn/v6/npm-old-1.0.0")).doesNotExist();
+    }
+
+    @Test
+    void skipsPruningWhenInstallsOutlastTheWait() throws IOException {
+        write(cacheRoot.resolve("yarn/v6/npm-old-1.0.0/index.js"), 1200, Instant.now().minus(5, ChronoUnit.DAYS));
+        ReflectionTestUtils.setField(packageCache, "pruneWait", Duration.ofMillis(50));
+        long stamp = packageCache.acquire();
+        try {
+            packageCache.prune();
+        } finally {
+            packageCache.release(stamp);
+        }
+
+        assertThat(cacheRoot.resolve("yarn/v6/npm-old-1.0.0/index.js")).exists();
+    }
+
+    @Test
+    void keepsEverythingUnderTheMaximumSize() throws IOException {
+        Instant old = Instant.now().minus(30, ChronoUnit.DAYS);
+        write(cacheRoot.resolve("npm/_cacache/content-v2/a"), 300, old);
+        write(cacheRoot.resolve("pnpm/v3/files/b"), 300, old);
+
+        packageCache.prune();
+
+        assertThat(cacheRoot.resolve("npm/_cacache/content-v2/a")).exists();
+        assertThat(cacheRoot.resolve("pnpm/v3/files/b")).exists();
+    }
+
+    /**
+     * @return the index bucket of an npm cache entry made of a tarball and a manifest
+     */
+    private Path npmEntry(String key, String tarball, int tarballSize, String manifest, int manifestSize,
+                          Instant lastUsed) throws IOException {
+        write(npmContent(tarball), tarballSize, lastUsed);
+        write(npmContent(manifest), manifestSize, lastUsed.plusSeconds(60));
+        Path bucket = cacheRoot.resolve("npm/_cacache/index-v5/" + key.substring(0, 2) + "/" + key);
+        Files.createDirectories(bucket.getParent());
+        Files.writeString(bucket, "\n" + "0".repeat(40) + "\t{\"key\":\"" + key + "\",\"integrity\":\""
+                + integrity(tarball) + " " + integrity(manifest) + "\"}");
+        Files.setLastModifiedTime(bucket, FileTime.from(lastUsed));
+        return bucket;
+    }
+
+    private Path npmContent(String name) {
+        String hex = HexFormat.of().formatHex(digest(name));
+        return cacheRoot.resolve("npm/_cacache/content-v2/sha512/" + hex.substring(0, 2) + "/" + hex.substring(2, 4) + "/" + hex.substring(4));
+    }
+
+    private static String integrity(String name) {
+        return "sha512-" + Base64.getEncoder().encodeToString(digest(name));
+    }
+
+    private static byte[] digest(String name) {
+        try {
+            return MessageDigest.getInstance("SHA-512").digest(name.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Path write(Path file, int size, Instant lastUsed) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.from(lastUsed));
+        Files.setAttribute(file, "lastAccessTime", FileTime.from(lastUsed));
+        return file;
+    }
+}
@@ -0,0 +1,114 @@
+package fr.imt.deployzilla.deployzilla.presentation.web;
+
+import fr.imt.deployzilla.deployzilla.business.model.LogStream;
+import fr.imt.deployzilla.deployzilla.business.model.PipelineState;
+import fr.imt.deployzilla.deployzilla.business.model.ProcessLogEntry;
+import fr.imt.deployzilla.deployzilla.business.service.PipelineHistoryService;
+import fr.imt.deployzilla.deployzilla.business.service.PipelineService;
+import fr.imt.deployzilla.deployzilla.business.service.PipelineStateService;
+import fr.imt.deployzilla.deployzilla.business.service.ProcessLogService;
+import fr.imt.deployzilla.deployzilla.presentation.web.dto.LogReplayResponse;
+import fr.imt.deployzilla.deployzilla.presentation.web.dto.mappers.PipelineMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PipelineControllerTests {
+
+    private final PipelineStateService pipelineStateService = mock(PipelineStateService.class);
+    private final ProcessLogService processLogService = mock(ProcessLogService.class);
+    private final PipelineController controller = new PipelineController(mock(PipelineService.class),
+            processLogService, pipelineStateService, mock(PipelineHistoryService.class),
+            mock(PipelineMapper.class));
+
+    @Test
+    void answersNotModifiedWithoutBodyWhenTheVersionIsUnchanged() {
+        when(pipelineStateService.awaitChange("p1", 42L, Duration.ZERO))
+                .thenReturn(CompletableFuture.completedFuture(state(42)));
+
+        ResponseEntity<PipelineState> response = controller.getState("p1", "\"42\"", 0).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"42\"");
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void answersNotModifiedWhenTheLongPollTimesOut() {
+        when(pipelineStateService.awaitChange("p1", 42L, Duration.ofSeconds(30)))
+                .thenReturn(CompletableFuture.completedFuture(state(42)));
+
+        ResponseEntity<PipelineState> response = controller.getState("p1", "W/\"42\"", 30).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void answersTheSnapshotWhenTheVersionChanged() {
+        when(pipelineStateService.awaitChange("p1", 42L, Duration.ofSeconds(30)))
+                .thenReturn(CompletableFuture.completedFuture(state(43)));
+
+        ResponseEntity<PipelineState> response = controller.getState("p1", "\"42\"", 30).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"43\"");
+        assertThat(response.getBody().getVersion()).isEqualTo(43);
+    }
+
+    @Test
+    void answersTheSnapshotWithoutIfNoneMatch() {
+        when(pipelineStateService.awaitChange("p1", null, Duration.ZERO))
+                .thenReturn(CompletableFuture.completedFuture(state(42)));
+
+        ResponseEntity<PipelineState> response = controller.getState("p1", null, 0).join();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+    }
+
+    @Test
+    void replayPagesResumeAfterTheLastEntry() {
+        when(processLogService.replay("p1", null, 2)).thenReturn(List.of(entry("1-0"), entry("1-1")));
+        when(processLogService.replay("p1", "1-1", 2)).thenReturn(List.of(entry("2-0")));
+
+        LogReplayResponse first = controller.replayLogs("p1", null, 2).getBody();
+        LogReplayResponse second = controller.replayLogs("p1", first.getLastId(), 2).getBody();
+
+        assertThat(first.getEntries()).extracting(ProcessLogEntry::getId).containsExactly("1-0", "1-1");
+        assertThat(second.getEntries()).extracting(ProcessLogEntry::getId).containsExactly("2-0");
+        assertThat(second.getLastId()).isEqualTo("2-0");
+    }
+
+    @Test
+    void replayPastTheEndKeepsTheLastSeenId() {
+        when(processLogService.replay("p1", "2-0", 500)).thenReturn(List.of());
+
+        LogReplayResponse response = controller.replayLogs("p1", "2-0", 500).getBody();
+
+        assertThat(response.getEntries()).isEmpty();
+        assertThat(response.getLastId()).isEqualTo("2-0");
+    }
+
+    private static ProcessLogEntry entry(String id) {
+        return new ProcessLogEntry(id, 0, "npm-install", LogStream.STDOUT, 0L, "line " + id);
+    }
+
+    private static PipelineState state(long version) {
+        return PipelineState.builder()
+                .pipelineId("p1")
+                .status("RUNNING")
+                .jobs(List.of())
+                .version(version)
+                .updatedAt(version)
+                .build();
+    }
+}